@@ -0,0 +1,319 @@
+package org.gbif.collections.sync.benchmarks;
+
+import org.gbif.api.model.collections.Collection;
+import org.gbif.api.model.collections.Institution;
+import org.gbif.api.model.collections.MasterSourceMetadata;
+import org.gbif.api.model.registry.Identifier;
+import org.gbif.api.model.registry.MachineTag;
+import org.gbif.api.vocabulary.Country;
+import org.gbif.api.vocabulary.IdentifierType;
+import org.gbif.api.vocabulary.collections.Source;
+import org.gbif.collections.sync.config.IDigBioConfig;
+import org.gbif.collections.sync.config.IHConfig;
+import org.gbif.collections.sync.config.SyncConfig;
+import org.gbif.collections.sync.config.SyncConfig.NotificationConfig;
+import org.gbif.collections.sync.config.SyncConfig.RegistryConfig;
+import org.gbif.collections.sync.idigbio.model.IDigBioRecord;
+import org.gbif.collections.sync.ih.model.IHInstitution;
+import org.gbif.collections.sync.ih.model.IHStaff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.gbif.collections.sync.common.Utils.encodeIRN;
+import static org.gbif.collections.sync.idigbio.IDigBioUtils.IDIGBIO_COLLECTION_UUID;
+import static org.gbif.collections.sync.idigbio.IDigBioUtils.IDIGBIO_NAMESPACE;
+
+/**
+ * Generates the synthetic datasets of the benchmarks. The generator is seeded, so the same size
+ * always produces the same data and the results of different commits can be compared.
+ */
+public class SyntheticData {
+
+  public static final long SEED = 20_201;
+  public static final String WS_USER = "benchmark-user";
+
+  private static final String[] WORDS = {
+    "herbarium", "museum", "natural", "history", "botany", "university", "national", "garden",
+    "zoology", "state", "college", "institute", "research", "center", "flora", "fauna",
+    "collection", "science", "regional", "royal", "marine", "insects", "fungi", "vertebrates"
+  };
+  private static final String[] DATES = {
+    "1850", "1901-03", "1923-05-17", "12/08/1964", "21st March 1887", "March 1902", "marzo 1950",
+    "1999.", "not a date"
+  };
+  private static final List<Country> COUNTRIES = Arrays.asList(Country.values());
+
+  private final Random random = new Random(SEED);
+  private final int size;
+
+  private final List<Institution> institutions = new ArrayList<>();
+  private final List<Collection> collections = new ArrayList<>();
+  private final List<IDigBioRecord> iDigBioRecords = new ArrayList<>();
+  private final List<IHInstitution> ihInstitutions = new ArrayList<>();
+  private final List<IHStaff> ihStaff = new ArrayList<>();
+  private final List<String> countryNames = new ArrayList<>();
+  private final List<String> dates = new ArrayList<>();
+
+  private SyntheticData(int size) {
+    this.size = size;
+    generateEntities();
+    generateIDigBioRecords();
+    generateIH();
+    generateCountriesAndDates();
+  }
+
+  /**
+   * Creates a dataset with the given number of institutions and collections, and the same number
+   * of source records linked to them.
+   */
+  public static SyntheticData create(int size) {
+    return new SyntheticData(size);
+  }
+
+  public static SyncConfig syncConfig() {
+    SyncConfig syncConfig = new SyncConfig();
+    syncConfig.setDryRun(true);
+    syncConfig.setSendNotifications(false);
+
+    RegistryConfig registryConfig = new RegistryConfig();
+    registryConfig.setWsUser(WS_USER);
+    syncConfig.setRegistry(registryConfig);
+
+    NotificationConfig notificationConfig = new NotificationConfig();
+    notificationConfig.setRegistryPortalUrl("http://benchmark.org");
+    syncConfig.setNotification(notificationConfig);
+    return syncConfig;
+  }
+
+  public static IDigBioConfig iDigBioConfig() {
+    IDigBioConfig config = new IDigBioConfig();
+    config.setSyncConfig(syncConfig());
+    return config;
+  }
+
+  public static IHConfig ihConfig() {
+    IHConfig config = new IHConfig();
+    config.setSyncConfig(syncConfig());
+    return config;
+  }
+
+  private void generateEntities() {
+    for (int i = 0; i < size; i++) {
+      Institution institution = new Institution();
+      institution.setKey(randomUuid());
+      institution.setCode("I" + i);
+      institution.setName(words(3));
+      institution.setCreatedBy("other-user");
+      institution.setIdentifiers(new ArrayList<>());
+      institution.setMachineTags(new ArrayList<>());
+      institution.getIdentifiers().add(new Identifier(IdentifierType.LSID, "urn:lsid:inst:" + i));
+      // a third of the entities come from IH
+      if (i % 3 == 0) {
+        institution.setMasterSourceMetadata(new MasterSourceMetadata(Source.IH_IRN, irn(i)));
+        institution.getIdentifiers().add(new Identifier(IdentifierType.IH_IRN, encodeIRN(irn(i))));
+      }
+      institutions.add(institution);
+    }
+
+    for (int i = 0; i < size; i++) {
+      // some institutions have several collections and some none
+      Institution institution = institutions.get(random.nextInt(size));
+      Collection collection = new Collection();
+      collection.setKey(randomUuid());
+      collection.setCode("C" + i);
+      collection.setName(words(4));
+      collection.setInstitutionKey(institution.getKey());
+      collection.setCreatedBy("other-user");
+      collection.setIdentifiers(new ArrayList<>());
+      collection.setMachineTags(new ArrayList<>());
+      collection.getIdentifiers().add(new Identifier(IdentifierType.LSID, "urn:lsid:coll:" + i));
+      if (i % 4 == 0) {
+        collection
+            .getMachineTags()
+            .add(new MachineTag(IDIGBIO_NAMESPACE, IDIGBIO_COLLECTION_UUID, idigbioUuid(i)));
+      }
+      if (institution.getMasterSourceMetadata() != null) {
+        collection.setMasterSourceMetadata(
+            new MasterSourceMetadata(
+                Source.IH_IRN, institution.getMasterSourceMetadata().getSourceId()));
+      }
+      collections.add(collection);
+    }
+  }
+
+  private void generateIDigBioRecords() {
+    for (int i = 0; i < size; i++) {
+      Collection collection = collections.get(i);
+      IDigBioRecord record = new IDigBioRecord();
+      record.setInstitution(words(3));
+      record.setInstitutionCode("I" + random.nextInt(size));
+      record.setCollectionCode(collection.getCode());
+      record.setCollectionLsid("urn:lsid:coll:" + i);
+
+      int type = random.nextInt(10);
+      if (type < 3) {
+        // matched by the iDigBio machine tag
+        record.setGrbioInstMatch(collection.getInstitutionKey());
+        record.setCollectionUuid(i % 4 == 0 ? idigbioUuid(i) : randomUuid().toString());
+        record.setCollection(collection.getName());
+      } else if (type < 8) {
+        // matched by code and name similarity
+        record.setGrbioInstMatch(collection.getInstitutionKey());
+        record.setCollection(collection.getName().toUpperCase() + " " + words(1));
+      } else {
+        // no match
+        record.setCollection(words(4));
+      }
+      iDigBioRecords.add(record);
+    }
+  }
+
+  private void generateIH() {
+    for (int i = 0; i < size; i++) {
+      IHInstitution ihInstitution = new IHInstitution();
+      ihInstitution.setIrn(irn(i));
+      ihInstitution.setCode("I" + i);
+      ihInstitution.setOrganization(words(3));
+      ihInstitution.setDivision(words(2));
+      ihInstitution.setDepartment(words(2));
+      ihInstitution.setSpecimenTotal(random.nextInt(1_000_000));
+      ihInstitution.setDateFounded(DATES[random.nextInt(DATES.length)]);
+      ihInstitution.setCurrentStatus("Active");
+      ihInstitution.setTaxonomicCoverage(words(5));
+      ihInstitution.setGeography(words(3));
+      ihInstitution.setNotes(words(8));
+      ihInstitution.setCites("US " + i);
+      ihInstitution.setIncorporatedHerbaria(Arrays.asList(words(2), words(2)));
+      ihInstitution.setImportantCollectors(Arrays.asList(words(2), words(2), words(2)));
+
+      String country = randomCountry().getTitle();
+      IHInstitution.Address address = new IHInstitution.Address();
+      address.setPhysicalStreet(i + " " + words(2));
+      address.setPhysicalCity(words(1));
+      address.setPhysicalCountry(country);
+      address.setPostalStreet(i + " " + words(2));
+      address.setPostalCity(words(1));
+      address.setPostalCountry(country);
+      ihInstitution.setAddress(address);
+
+      IHInstitution.Contact contact = new IHInstitution.Contact();
+      contact.setEmail("herbarium" + i + "@example.org");
+      contact.setPhone("+1 555 " + i);
+      contact.setWebUrl("http://herbarium" + i + ".example.org");
+      ihInstitution.setContact(contact);
+
+      IHInstitution.Location location = new IHInstitution.Location();
+      location.setLat(random.nextDouble() * 180 - 90);
+      location.setLon(random.nextDouble() * 360 - 180);
+      ihInstitution.setLocation(location);
+      ihInstitutions.add(ihInstitution);
+
+      IHStaff staff = new IHStaff();
+      staff.setIrn("s" + i);
+      staff.setCode(ihInstitution.getCode());
+      staff.setFirstName(words(1));
+      staff.setLastName(words(1));
+      staff.setPosition(words(2));
+      staff.setSpecialities(words(3));
+      staff.setCorrespondent("Yes");
+      IHStaff.Address staffAddress = new IHStaff.Address();
+      staffAddress.setStreet(i + " " + words(2));
+      staffAddress.setCity(words(1));
+      staffAddress.setCountry(country);
+      staff.setAddress(staffAddress);
+      IHStaff.Contact staffContact = new IHStaff.Contact();
+      staffContact.setEmail("staff" + i + "@example.org");
+      staffContact.setPhone("+1 555 " + i);
+      staff.setContact(staffContact);
+      ihStaff.add(staff);
+    }
+  }
+
+  private void generateCountriesAndDates() {
+    for (int i = 0; i < size; i++) {
+      Country country = randomCountry();
+      // the same variations of the names that IH uses
+      switch (random.nextInt(4)) {
+        case 0:
+          countryNames.add(country.getTitle());
+          break;
+        case 1:
+          countryNames.add(country.getIso2LetterCode());
+          break;
+        case 2:
+          countryNames.add(country.getTitle() + ", " + words(1));
+          break;
+        default:
+          countryNames.add(country.name().replace('_', ' ').toLowerCase());
+      }
+      dates.add(DATES[random.nextInt(DATES.length)]);
+    }
+  }
+
+  private Country randomCountry() {
+    Country country;
+    do {
+      country = COUNTRIES.get(random.nextInt(COUNTRIES.size()));
+    } while (!country.isOfficial());
+    return country;
+  }
+
+  private String words(int count) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        sb.append(' ');
+      }
+      sb.append(WORDS[random.nextInt(WORDS.length)]);
+    }
+    return sb.toString();
+  }
+
+  private UUID randomUuid() {
+    return new UUID(random.nextLong(), random.nextLong());
+  }
+
+  private static String irn(int i) {
+    return String.valueOf(100_000 + i);
+  }
+
+  private static String idigbioUuid(int i) {
+    return new UUID(SEED, i).toString();
+  }
+
+  public int getSize() {
+    return size;
+  }
+
+  public List<Institution> getInstitutions() {
+    return institutions;
+  }
+
+  public List<Collection> getCollections() {
+    return collections;
+  }
+
+  public List<IDigBioRecord> getIDigBioRecords() {
+    return iDigBioRecords;
+  }
+
+  public List<IHInstitution> getIhInstitutions() {
+    return ihInstitutions;
+  }
+
+  public List<IHStaff> getIhStaff() {
+    return ihStaff;
+  }
+
+  public List<String> getCountryNames() {
+    return countryNames;
+  }
+
+  public List<String> getDates() {
+    return dates;
+  }
+}
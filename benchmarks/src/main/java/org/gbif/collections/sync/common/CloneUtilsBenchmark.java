@@ -0,0 +1,46 @@
+package org.gbif.collections.sync.common;
+
+import org.gbif.api.model.collections.Collection;
+import org.gbif.collections.sync.benchmarks.SyntheticData;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks {@link CloneUtils#cloneCollection}. Each invocation clones the next collection. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CloneUtilsBenchmark {
+
+  @Param({"10000", "100000"})
+  private int size;
+
+  private List<Collection> collections;
+  private int cursor;
+
+  @Setup
+  public void setup() {
+    collections = SyntheticData.create(size).getCollections();
+  }
+
+  @Benchmark
+  public Collection cloneCollection() {
+    cursor = cursor + 1 < size ? cursor + 1 : 0;
+    return CloneUtils.cloneCollection(collections.get(cursor));
+  }
+}
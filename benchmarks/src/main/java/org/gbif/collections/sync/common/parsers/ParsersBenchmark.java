@@ -0,0 +1,71 @@
+package org.gbif.collections.sync.common.parsers;
+
+import org.gbif.api.vocabulary.Country;
+import org.gbif.collections.sync.benchmarks.SyntheticData;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the {@link CountryParser} and {@link DataParser#parseDateYear}. The country mapping
+ * is done for the whole dataset, the rest of the benchmarks parse the next value of the dataset.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParsersBenchmark {
+
+  @Param({"10000", "100000"})
+  private int size;
+
+  private List<String> countryNames;
+  private List<String> dates;
+  private CountryParser countryParser;
+  private int cursor;
+
+  @Setup
+  public void setup() {
+    SyntheticData data = SyntheticData.create(size);
+    countryNames = data.getCountryNames();
+    dates = data.getDates();
+    countryParser = CountryParser.from(countryNames);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Measurement(iterations = 5, time = 10)
+  public Map<String, Country> mapCountries() {
+    return CountryParser.mapCountries(countryNames);
+  }
+
+  @Benchmark
+  public Country parseCountry() {
+    return countryParser.parse(countryNames.get(next()));
+  }
+
+  @Benchmark
+  public Integer parseDateYear() {
+    return DataParser.parseDateYear(dates.get(next()));
+  }
+
+  private int next() {
+    cursor = cursor + 1 < size ? cursor + 1 : 0;
+    return cursor;
+  }
+}
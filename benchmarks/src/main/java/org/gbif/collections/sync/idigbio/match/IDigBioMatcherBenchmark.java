@@ -0,0 +1,76 @@
+package org.gbif.collections.sync.idigbio.match;
+
+import org.gbif.api.model.collections.Collection;
+import org.gbif.collections.sync.benchmarks.SyntheticData;
+import org.gbif.collections.sync.clients.proxy.IDigBioProxyClient;
+import org.gbif.collections.sync.idigbio.IDigBioDataLoader.IDigBioData;
+import org.gbif.collections.sync.idigbio.model.IDigBioRecord;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks the iDigBio {@link Matcher}. Each invocation matches the next record. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IDigBioMatcherBenchmark {
+
+  @Param({"10000", "100000"})
+  private int size;
+
+  private Matcher matcher;
+  private List<IDigBioRecord> records;
+  private List<String> names;
+  private int cursor;
+
+  @Setup
+  public void setup() {
+    SyntheticData data = SyntheticData.create(size);
+    records = data.getIDigBioRecords();
+    names = data.getCollections().stream().map(Collection::getName).collect(Collectors.toList());
+    IDigBioProxyClient proxyClient =
+        IDigBioProxyClient.builder()
+            .iDigBioConfig(SyntheticData.iDigBioConfig())
+            .dataLoader(
+                () -> new IDigBioData(data.getInstitutions(), data.getCollections(), records))
+            .build();
+    matcher = new Matcher(proxyClient);
+  }
+
+  @Benchmark
+  public IDigBioMatchResult match() {
+    return matcher.match(records.get(next()));
+  }
+
+  @Benchmark
+  public long stringSimilarity() {
+    int i = next();
+    return Matcher.stringSimilarity(records.get(i).getCollection(), names.get(i));
+  }
+
+  @Benchmark
+  public NameSignature nameSignature() {
+    return NameSignature.of(names.get(next()));
+  }
+
+  private int next() {
+    cursor = cursor + 1 < size ? cursor + 1 : 0;
+    return cursor;
+  }
+}
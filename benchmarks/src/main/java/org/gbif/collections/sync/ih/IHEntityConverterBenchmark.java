@@ -0,0 +1,86 @@
+package org.gbif.collections.sync.ih;
+
+import org.gbif.api.model.collections.Collection;
+import org.gbif.api.model.collections.Contact;
+import org.gbif.api.model.collections.Institution;
+import org.gbif.collections.sync.benchmarks.SyntheticData;
+import org.gbif.collections.sync.common.converter.ConvertedCollection;
+import org.gbif.collections.sync.common.parsers.CountryParser;
+import org.gbif.collections.sync.config.IHConfig;
+import org.gbif.collections.sync.ih.model.IHInstitution;
+import org.gbif.collections.sync.ih.model.IHStaff;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the {@link IHEntityConverter}. Each invocation converts the next IH entity, merging
+ * it with an existing GrSciColl entity.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IHEntityConverterBenchmark {
+
+  @Param({"10000", "100000"})
+  private int size;
+
+  private IHEntityConverter converter;
+  private List<IHInstitution> ihInstitutions;
+  private List<IHStaff> ihStaff;
+  private List<Institution> institutions;
+  private List<Collection> collections;
+  private int cursor;
+
+  @Setup
+  public void setup() {
+    SyntheticData data = SyntheticData.create(size);
+    ihInstitutions = data.getIhInstitutions();
+    ihStaff = data.getIhStaff();
+    institutions = data.getInstitutions();
+    collections = data.getCollections();
+
+    IHConfig ihConfig = SyntheticData.ihConfig();
+    converter =
+        IHEntityConverter.create(
+            CountryParser.from(data.getCountryNames()), IHIssueNotifier.getInstance(ihConfig));
+  }
+
+  @Benchmark
+  public Institution convertToInstitution() {
+    int i = next();
+    return converter.convertToInstitution(ihInstitutions.get(i), institutions.get(i));
+  }
+
+  @Benchmark
+  public ConvertedCollection convertToCollection() {
+    int i = next();
+    return converter.convertToCollection(
+        ihInstitutions.get(i), collections.get(i), institutions.get(i));
+  }
+
+  @Benchmark
+  public Contact convertToContact() {
+    return converter.convertToContact(ihStaff.get(next()));
+  }
+
+  private int next() {
+    cursor = cursor + 1 < size ? cursor + 1 : 0;
+    return cursor;
+  }
+}
@@ -0,0 +1,63 @@
+package org.gbif.collections.sync.ih.match;
+
+import org.gbif.collections.sync.benchmarks.SyntheticData;
+import org.gbif.collections.sync.clients.proxy.IHProxyClient;
+import org.gbif.collections.sync.ih.IHDataLoader.IHData;
+import org.gbif.collections.sync.ih.model.IHInstitution;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmarks the IH {@link Matcher}. Each invocation matches the next IH institution. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IHMatcherBenchmark {
+
+  @Param({"10000", "100000"})
+  private int size;
+
+  private Matcher matcher;
+  private List<IHInstitution> ihInstitutions;
+  private int cursor;
+
+  @Setup
+  public void setup() {
+    SyntheticData data = SyntheticData.create(size);
+    ihInstitutions = data.getIhInstitutions();
+    IHProxyClient proxyClient =
+        IHProxyClient.builder()
+            .ihConfig(SyntheticData.ihConfig())
+            .dataLoader(
+                () ->
+                    new IHData(
+                        data.getInstitutions(),
+                        data.getCollections(),
+                        ihInstitutions,
+                        data.getIhStaff(),
+                        data.getCountryNames()))
+            .build();
+    matcher = Matcher.create(proxyClient);
+  }
+
+  @Benchmark
+  public IHMatchResult match() {
+    cursor = cursor + 1 < size ? cursor + 1 : 0;
+    return matcher.match(ihInstitutions.get(cursor));
+  }
+}
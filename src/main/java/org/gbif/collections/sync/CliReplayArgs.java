@@ -0,0 +1,25 @@
+package org.gbif.collections.sync;
+
+import com.beust.jcommander.Parameter;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class CliReplayArgs {
+
+  @Parameter(
+      names = {"--config", "-c"},
+      required = true)
+  private String confPath;
+
+  @Parameter(
+      names = {"--journal", "-j"},
+      required = true)
+  private String journalPath;
+
+  @Parameter(
+      names = {"--dryRun", "-dr"},
+      arity = 1)
+  private Boolean dryRun;
+}
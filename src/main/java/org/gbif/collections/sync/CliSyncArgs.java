@@ -25,6 +25,9 @@ public class CliSyncArgs {
       arity = 1)
   private Boolean sendNotifications;
 
+  @Parameter(names = {"--fullSync", "-fs"})
+  private boolean fullSync;
+
   @Parameter(names = {"--githubAssignees", "-ga"})
   private Set<String> githubAssignees;
 }
@@ -2,6 +2,7 @@ package org.gbif.collections.sync;
 
 import java.nio.file.Paths;
 
+import org.gbif.collections.sync.common.MetricsRegistry;
 import org.gbif.collections.sync.config.IDigBioConfig;
 import org.gbif.collections.sync.idigbio.IDigBioSynchronizer;
 
@@ -24,11 +25,15 @@ public class IDigBioSyncApp {
         IDigBioSynchronizer.builder().iDigBioConfig(iDigBioConfig).build().sync();
 
     // save results to a file
+    MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
     if (iDigBioConfig.getSyncConfig().isSaveResultsToFile()) {
+      long timestamp = System.currentTimeMillis();
       SyncResultExporter.exportResultsToFile(
-          syncResult, Paths.get("idigbio_sync_result_" + System.currentTimeMillis()));
+          syncResult, Paths.get("idigbio_sync_result_" + timestamp), metricsRegistry);
+      metricsRegistry.writeJson(Paths.get("idigbio_sync_metrics_" + timestamp + ".json"));
     } else {
       log.info("Sync result: {}", syncResult);
+      log.info("HTTP calls: {}", metricsRegistry.getCallStats());
     }
   }
 }
@@ -2,6 +2,7 @@ package org.gbif.collections.sync;
 
 import java.nio.file.Paths;
 
+import org.gbif.collections.sync.common.MetricsRegistry;
 import org.gbif.collections.sync.config.IHConfig;
 import org.gbif.collections.sync.ih.IHSynchronizer;
 
@@ -23,11 +24,15 @@ public class IHSyncApp {
     SyncResult ihSyncResult = IHSynchronizer.builder().ihConfig(config).build().sync();
 
     // save results to a file
+    MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
     if (config.getSyncConfig().isSaveResultsToFile()) {
+      long timestamp = System.currentTimeMillis();
       SyncResultExporter.exportResultsToFile(
-          ihSyncResult, Paths.get("ih_sync_result_" + System.currentTimeMillis()));
+          ihSyncResult, Paths.get("ih_sync_result_" + timestamp), metricsRegistry);
+      metricsRegistry.writeJson(Paths.get("ih_sync_metrics_" + timestamp + ".json"));
     } else {
       log.info("Sync result: {}", ihSyncResult);
+      log.info("HTTP calls: {}", metricsRegistry.getCallStats());
     }
   }
 }
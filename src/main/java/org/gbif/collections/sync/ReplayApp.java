@@ -0,0 +1,29 @@
+package org.gbif.collections.sync;
+
+import java.nio.file.Paths;
+
+import org.gbif.collections.sync.config.ReplayConfig;
+import org.gbif.collections.sync.replay.FailedActionReplayer;
+import org.gbif.collections.sync.replay.ReplayResult;
+
+import com.beust.jcommander.JCommander;
+import lombok.extern.slf4j.Slf4j;
+
+/** CLI app to replay the registry writes that failed in a previous sync. */
+@Slf4j
+public class ReplayApp {
+
+  public static void main(String[] args) {
+    // parse args
+    CliReplayArgs cliArgs = new CliReplayArgs();
+    JCommander.newBuilder().addObject(cliArgs).build().parse(args);
+
+    ReplayConfig config = ReplayConfig.fromCliArgs(cliArgs);
+
+    // replay the failed actions
+    ReplayResult result =
+        FailedActionReplayer.create(config).replay(Paths.get(config.getJournalPath()));
+
+    log.info("Replay finished: {}", result);
+  }
+}
@@ -71,6 +71,9 @@ public class SyncResult {
   @Builder
   public static class NoEntityMatch {
     private CollectionChangeSuggestion newChangeSuggestion;
+    // existing institutions similar to the one suggested, they could be duplicates
+    @Singular(value = "duplicateCandidate")
+    private List<Institution> duplicateCandidates;
   }
 
   @Data
@@ -103,6 +106,29 @@ public class SyncResult {
   public static class FailedAction {
     private Object entity;
     private String message;
+    // the fields below are only set for the registry writes that can be replayed
+    private Operation operation;
+    private String targetType;
+    private String targetKey;
+
+    public FailedAction(Object entity, String message) {
+      this.entity = entity;
+      this.message = message;
+    }
+
+    /** Registry write that failed. The entity is the payload of the operation. */
+    public enum Operation {
+      CREATE,
+      UPDATE,
+      ADD_SUB_ENTITIES,
+      ADD_IDENTIFIER,
+      ADD_MACHINE_TAG,
+      ADD_MASTER_SOURCE_METADATA,
+      ADD_CONTACT,
+      UPDATE_CONTACT,
+      REMOVE_CONTACT,
+      CREATE_CHANGE_SUGGESTION
+    }
   }
 
   @Data
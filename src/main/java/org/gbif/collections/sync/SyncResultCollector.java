@@ -0,0 +1,56 @@
+package org.gbif.collections.sync;
+
+import org.gbif.collections.sync.SyncResult.CollectionOnlyMatch;
+import org.gbif.collections.sync.SyncResult.Conflict;
+import org.gbif.collections.sync.SyncResult.FailedAction;
+import org.gbif.collections.sync.SyncResult.InstitutionAndCollectionMatch;
+import org.gbif.collections.sync.SyncResult.InstitutionOnlyMatch;
+import org.gbif.collections.sync.SyncResult.NoEntityMatch;
+
+/**
+ * Thread-safe collector of the results of a sync. It can be used instead of the {@link
+ * SyncResult.SyncResultBuilder} when the results are handled concurrently.
+ */
+public class SyncResultCollector {
+
+  private final SyncResult.SyncResultBuilder builder = SyncResult.builder();
+
+  public synchronized SyncResultCollector collectionOnlyMatch(CollectionOnlyMatch match) {
+    builder.collectionOnlyMatch(match);
+    return this;
+  }
+
+  public synchronized SyncResultCollector institutionOnlyMatch(InstitutionOnlyMatch match) {
+    builder.institutionOnlyMatch(match);
+    return this;
+  }
+
+  public synchronized SyncResultCollector instAndCollMatch(InstitutionAndCollectionMatch match) {
+    builder.instAndCollMatch(match);
+    return this;
+  }
+
+  public synchronized SyncResultCollector noMatch(NoEntityMatch noMatch) {
+    builder.noMatch(noMatch);
+    return this;
+  }
+
+  public synchronized SyncResultCollector conflict(Conflict conflict) {
+    builder.conflict(conflict);
+    return this;
+  }
+
+  public synchronized SyncResultCollector failedAction(FailedAction failedAction) {
+    builder.failedAction(failedAction);
+    return this;
+  }
+
+  public synchronized SyncResultCollector invalidEntity(Object invalidEntity) {
+    builder.invalidEntity(invalidEntity);
+    return this;
+  }
+
+  public synchronized SyncResult build() {
+    return builder.build();
+  }
+}
@@ -3,6 +3,9 @@ package org.gbif.collections.sync;
 import org.gbif.api.model.collections.suggestions.CollectionChangeSuggestion;
 import org.gbif.api.model.collections.CollectionEntity;
 import org.gbif.api.model.collections.Contact;
+import org.gbif.api.model.collections.Institution;
+import org.gbif.collections.sync.common.MetricsRegistry;
+import org.gbif.collections.sync.common.MetricsRegistry.CallStats;
 
 import java.io.BufferedWriter;
 import java.io.IOException;
@@ -12,6 +15,7 @@ import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
 
 import lombok.AccessLevel;
@@ -33,6 +37,12 @@ public class SyncResultExporter {
   private static final String BIG_INDENT = "\t\t\t\t";
 
   public static void exportResultsToFile(SyncResult result, Path filePath) {
+    exportResultsToFile(result, filePath, null);
+  }
+
+  /** Exports the results with a summary of the HTTP calls done during the sync. */
+  public static void exportResultsToFile(
+      SyncResult result, Path filePath, MetricsRegistry metricsRegistry) {
 
     try (BufferedWriter writer = Files.newBufferedWriter(filePath)) {
 
@@ -71,6 +81,11 @@ public class SyncResultExporter {
       printWithNewLineAfter(
           writer, "Contacts conflicts: " + counts.countContactMatch.contactsConflicts);
 
+      if (metricsRegistry != null && !metricsRegistry.isEmpty()) {
+        writer.newLine();
+        printMetrics(writer, metricsRegistry);
+      }
+
       writer.newLine();
       writer.newLine();
 
@@ -120,6 +135,7 @@ public class SyncResultExporter {
               m -> {
                 printMatchTitle(writer, "No Match");
                 printSuggestedEntity(writer, m.getNewChangeSuggestion());
+                printDuplicateCandidates(writer, m.getDuplicateCandidates());
               });
 
       // Conflicts
@@ -135,6 +151,33 @@ public class SyncResultExporter {
     }
   }
 
+  private static void printMetrics(BufferedWriter writer, MetricsRegistry metricsRegistry)
+      throws IOException {
+    printWithNewLineAfter(writer, "HTTP calls:");
+    printWithNewLineAfter(writer, SUBSECTION_SEPARATOR);
+    for (CallStats stats : metricsRegistry.getCallStats()) {
+      printWithNewLineAfter(
+          writer,
+          String.format(
+              "%s %s %s [%d]: %d calls, total %d ms, p50 %d ms, p95 %d ms, p99 %d ms, max %d ms, "
+                  + "%d bytes",
+              stats.getClient(),
+              stats.getMethod(),
+              stats.getEndpoint(),
+              stats.getStatus(),
+              stats.getCount(),
+              stats.getTotalMillis(),
+              stats.getP50Millis(),
+              stats.getP95Millis(),
+              stats.getP99Millis(),
+              stats.getMaxMillis(),
+              stats.getBytes()));
+    }
+    for (Map.Entry<String, Long> gauge : metricsRegistry.getGauges().entrySet()) {
+      printWithNewLineAfter(writer, gauge.getKey() + ": " + gauge.getValue());
+    }
+  }
+
   private static void printSuggestedEntity(BufferedWriter writer, CollectionChangeSuggestion changeSuggestion){
     try {
       writer.write(LINE_STARTER);
@@ -145,6 +188,30 @@ public class SyncResultExporter {
     }
   }
 
+  private static void printDuplicateCandidates(
+      BufferedWriter writer, List<Institution> duplicateCandidates) {
+    if (duplicateCandidates == null) {
+      return;
+    }
+
+    try {
+      for (Institution candidate : duplicateCandidates) {
+        writer.write(LINE_STARTER);
+        writer.write(
+            "Possible Duplicate: "
+                + candidate.getName()
+                + " ("
+                + candidate.getCode()
+                + ", "
+                + candidate.getKey()
+                + ")");
+        writer.newLine();
+      }
+    } catch (IOException e) {
+      log.warn("Couldn't print duplicate candidates {}", duplicateCandidates, e);
+    }
+  }
+
   private static void printMatchTitle(BufferedWriter writer, String title) {
     try {
       writer.write(title);
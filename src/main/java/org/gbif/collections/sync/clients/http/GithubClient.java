@@ -9,12 +9,15 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
+import org.gbif.collections.sync.common.MetricsRegistry;
 import org.gbif.collections.sync.common.notification.Issue;
+import org.gbif.collections.sync.config.SyncConfig.HttpConfig;
 import org.gbif.collections.sync.config.SyncConfig.NotificationConfig;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Data;
+import lombok.Value;
 import okhttp3.OkHttpClient;
 import retrofit2.Call;
 import retrofit2.Retrofit;
@@ -32,12 +35,19 @@ import static org.gbif.collections.sync.ih.IHIssueNotifier.IH_SYNC_LABEL;
 /** Lightweight client for the Github API. */
 public class GithubClient {
 
-  private static final ConcurrentMap<NotificationConfig, GithubClient> clientsMap =
+  private static final ConcurrentMap<ClientKey, GithubClient> clientsMap =
       new ConcurrentHashMap<>();
   private final API api;
   private final Set<String> assignees;
-
-  private GithubClient(String githubWsUrl, String user, String password, Set<String> assignees) {
+  private final RateLimitInterceptor rateLimitInterceptor;
+
+  private GithubClient(
+      String githubWsUrl,
+      String user,
+      String password,
+      Set<String> assignees,
+      double requestsPerSecond,
+      HttpConfig httpConfig) {
     Objects.requireNonNull(githubWsUrl);
     Objects.requireNonNull(user);
     Objects.requireNonNull(password);
@@ -45,9 +55,13 @@ public class GithubClient {
     ObjectMapper mapper =
         new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
+    MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+    rateLimitInterceptor = new RateLimitInterceptor(requestsPerSecond);
     OkHttpClient okHttpClient =
-        new OkHttpClient.Builder()
-            .cache(null)
+        HttpTransport.getInstance(httpConfig)
+            .newBuilder()
+            .addInterceptor(new MetricsInterceptor("github", metricsRegistry))
+            .addInterceptor(rateLimitInterceptor)
             .addInterceptor(new BasicAuthInterceptor(user, password))
             .build();
 
@@ -59,23 +73,32 @@ public class GithubClient {
             .build();
     api = retrofit.create(API.class);
     this.assignees = assignees;
+    metricsRegistry.gauge("github.rateLimitWaitMillis", rateLimitInterceptor::getWaitedMillis);
   }
 
   public static GithubClient getInstance(NotificationConfig notificationConfig) {
+    return getInstance(notificationConfig, null);
+  }
+
+  public static GithubClient getInstance(
+      NotificationConfig notificationConfig, HttpConfig httpConfig) {
     Objects.requireNonNull(notificationConfig);
-    GithubClient client = clientsMap.get(notificationConfig);
-    if (client != null) {
-      return client;
-    } else {
-      GithubClient newClient =
-          new GithubClient(
-              notificationConfig.getGithubWsUrl(),
-              notificationConfig.getGithubUser(),
-              notificationConfig.getGithubPassword(),
-              notificationConfig.getGhIssuesAssignees());
-      clientsMap.put(notificationConfig, newClient);
-      return newClient;
-    }
+    // the clients with different HTTP configs can't be shared
+    return clientsMap.computeIfAbsent(
+        new ClientKey(notificationConfig, httpConfig),
+        k ->
+            new GithubClient(
+                notificationConfig.getGithubWsUrl(),
+                notificationConfig.getGithubUser(),
+                notificationConfig.getGithubPassword(),
+                notificationConfig.getGhIssuesAssignees(),
+                notificationConfig.getGithubRequestsPerSecond(),
+                httpConfig));
+  }
+
+  /** Time that the requests of this client waited because of the rate limit. */
+  public long getRateLimitWaitMillis() {
+    return rateLimitInterceptor.getWaitedMillis();
   }
 
   public void createIssue(Issue issue) {
@@ -178,4 +201,10 @@ public class GithubClient {
       private String login;
     }
   }
+
+  @Value
+  private static class ClientKey {
+    NotificationConfig notificationConfig;
+    HttpConfig httpConfig;
+  }
 }
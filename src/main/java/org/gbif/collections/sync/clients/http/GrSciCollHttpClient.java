@@ -4,6 +4,7 @@ import static org.gbif.collections.sync.clients.http.SyncCall.syncCall;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonDeserializer;
@@ -16,10 +17,13 @@ import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
 import lombok.SneakyThrows;
+import lombok.Value;
 import okhttp3.MultipartBody;
 import okhttp3.OkHttpClient;
 import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
 import org.gbif.api.model.collections.Collection;
 import org.gbif.api.model.collections.Contact;
 import org.gbif.api.model.collections.Institution;
@@ -31,7 +35,12 @@ import org.gbif.api.model.registry.Identifier;
 import org.gbif.api.model.registry.MachineTag;
 import org.gbif.api.vocabulary.Country;
 import org.gbif.api.vocabulary.collections.MasterSourceType;
+import org.gbif.collections.sync.common.MetricsRegistry;
+import org.gbif.collections.sync.common.model.CollectionSummary;
+import org.gbif.collections.sync.common.model.InstitutionSummary;
+import org.gbif.collections.sync.config.SyncConfig.HttpConfig;
 import org.gbif.collections.sync.config.SyncConfig.RegistryConfig;
+import org.gbif.collections.sync.config.SyncConfig.RetryConfig;
 import retrofit2.Call;
 import retrofit2.Retrofit;
 import retrofit2.converter.jackson.JacksonConverterFactory;
@@ -40,14 +49,25 @@ import retrofit2.http.*;
 /** A lightweight GRSciColl client. */
 public class GrSciCollHttpClient {
 
-  private static final ConcurrentMap<RegistryConfig, GrSciCollHttpClient> clientsMap =
+  private static final ConcurrentMap<ClientKey, GrSciCollHttpClient> clientsMap =
       new ConcurrentHashMap<>();
   private final API api;
-
-  private GrSciCollHttpClient(String grSciCollWsUrl, String user, String password) {
+  private final ObjectMapper mapper;
+  private final PagedLoader pagedLoader;
+  private final RetryInterceptor retryInterceptor;
+  private final RateLimitInterceptor rateLimitInterceptor;
+
+  private GrSciCollHttpClient(
+      String grSciCollWsUrl,
+      String user,
+      String password,
+      int pageFetchConcurrency,
+      RetryConfig retryConfig,
+      double requestsPerSecond,
+      HttpConfig httpConfig) {
     Objects.requireNonNull(grSciCollWsUrl);
 
-    ObjectMapper mapper =
+    mapper =
         new ObjectMapper()
             .setSerializationInclusion(JsonInclude.Include.NON_NULL)
             .setSerializationInclusion(JsonInclude.Include.NON_EMPTY)
@@ -59,13 +79,21 @@ public class GrSciCollHttpClient {
     mapper.registerModule(module);
 
     OkHttpClient.Builder okHttpClientBuilder =
-        new OkHttpClient.Builder()
-            .cache(null)
+        HttpTransport.getInstance(httpConfig)
+            .newBuilder()
             .connectTimeout(Duration.ofMinutes(2))
             .readTimeout(Duration.ofMinutes(2));
 
+    MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+    okHttpClientBuilder.addInterceptor(new MetricsInterceptor("grscicoll", metricsRegistry));
+    retryInterceptor = new RetryInterceptor(retryConfig);
+    okHttpClientBuilder.addInterceptor(retryInterceptor);
+    // the retries also have to wait for a permit
+    rateLimitInterceptor = new RateLimitInterceptor(requestsPerSecond);
+    okHttpClientBuilder.addInterceptor(rateLimitInterceptor);
+
     if (user != null && password != null) {
-      okHttpClientBuilder.addInterceptor(new BasicAuthInterceptor(user, password)).build();
+      okHttpClientBuilder.addInterceptor(new BasicAuthInterceptor(user, password));
     }
 
     Retrofit retrofit =
@@ -75,70 +103,93 @@ public class GrSciCollHttpClient {
             .addConverterFactory(JacksonConverterFactory.create(mapper))
             .build();
     api = retrofit.create(API.class);
+    pagedLoader = new PagedLoader(PagedLoader.DEFAULT_PAGE_SIZE, pageFetchConcurrency);
+    metricsRegistry.gauge("grscicoll.retries", retryInterceptor::getRetries);
+    metricsRegistry.gauge("grscicoll.rateLimitWaitMillis", rateLimitInterceptor::getWaitedMillis);
   }
 
   public static GrSciCollHttpClient getInstance(RegistryConfig registryConfig) {
-    GrSciCollHttpClient client = clientsMap.get(registryConfig);
-    if (client != null) {
-      return client;
-    } else {
-      GrSciCollHttpClient newClient =
-          new GrSciCollHttpClient(
-              registryConfig.getWsUrl(),
-              registryConfig.getWsUser(),
-              registryConfig.getWsPassword());
-      clientsMap.put(registryConfig, newClient);
-      return newClient;
-    }
+    return getInstance(registryConfig, null);
+  }
+
+  public static GrSciCollHttpClient getInstance(
+      RegistryConfig registryConfig, HttpConfig httpConfig) {
+    // the clients with different HTTP configs can't be shared
+    return clientsMap.computeIfAbsent(
+        new ClientKey(registryConfig, httpConfig),
+        k ->
+            new GrSciCollHttpClient(
+                registryConfig.getWsUrl(),
+                registryConfig.getWsUser(),
+                registryConfig.getWsPassword(),
+                registryConfig.getPageFetchConcurrency(),
+                registryConfig.getRetry(),
+                registryConfig.getRequestsPerSecond(),
+                httpConfig));
+  }
+
+  /** Number of requests retried by this client. */
+  public long getRetries() {
+    return retryInterceptor.getRetries();
+  }
+
+  /** Time that the requests of this client waited because of the rate limit. */
+  public long getRateLimitWaitMillis() {
+    return rateLimitInterceptor.getWaitedMillis();
   }
 
   /** Returns all institutions in GrSciColl. */
   public List<Institution> getInstitutions() {
-    List<Institution> result = new ArrayList<>();
-
-    boolean endRecords = false;
-    int offset = 0;
-    while (!endRecords) {
-      PagingResponse<Institution> response = syncCall(api.listInstitutions(null, 1000, offset));
-      endRecords = response.isEndOfRecords();
-      offset += response.getLimit();
-      result.addAll(response.getResults());
-    }
-
-    return result;
+    return pagedLoader.loadAll(
+        (limit, offset) -> syncCall(api.listInstitutions(null, limit, offset)));
   }
 
   /** Returns all IH institutions in GrSciColl. */
   public List<Institution> getIhInstitutions() {
-    List<Institution> result = new ArrayList<>();
-
-    boolean endRecords = false;
-    int offset = 0;
-    while (!endRecords) {
-      PagingResponse<Institution> response =
-          syncCall(api.listInstitutions(MasterSourceType.IH, 1000, offset));
-      endRecords = response.isEndOfRecords();
-      offset += response.getLimit();
-      result.addAll(response.getResults());
-    }
+    return pagedLoader.loadAll(
+        (limit, offset) -> syncCall(api.listInstitutions(MasterSourceType.IH, limit, offset)));
+  }
+
+  /**
+   * Streams all the institutions in GrSciColl to the consumer as they are read from the responses,
+   * without materializing the pages.
+   */
+  public void streamInstitutions(Consumer<Institution> consumer) {
+    pagedLoader.streamAll(
+        (limit, offset, c) ->
+            streamPage(api.streamInstitutions(null, limit, offset), Institution.class, c),
+        consumer);
+  }
 
-    return result;
+  /** Streams all the IH institutions in GrSciColl to the consumer. */
+  public void streamIhInstitutions(Consumer<Institution> consumer) {
+    pagedLoader.streamAll(
+        (limit, offset, c) ->
+            streamPage(
+                api.streamInstitutions(MasterSourceType.IH, limit, offset), Institution.class, c),
+        consumer);
+  }
+
+  /**
+   * Streams the summaries of all the institutions in GrSciColl. Only the fields of the {@link
+   * InstitutionSummary} are kept in memory.
+   */
+  public void streamInstitutionSummaries(Consumer<InstitutionSummary> consumer) {
+    pagedLoader.streamAll(
+        (limit, offset, c) ->
+            streamPage(api.streamInstitutions(null, limit, offset), InstitutionSummary.class, c),
+        consumer);
   }
 
   public List<Institution> getInstitutionsByName(String name) {
-    List<Institution> result = new ArrayList<>();
-
-    boolean endRecords = false;
-    int offset = 0;
-    while (!endRecords) {
-      PagingResponse<Institution> response =
-          syncCall(api.listInstitutionsByName(name, 1000, offset));
-      endRecords = response.isEndOfRecords();
-      offset += response.getLimit();
-      result.addAll(response.getResults());
-    }
+    return pagedLoader.loadAll(
+        (limit, offset) -> syncCall(api.listInstitutionsByName(name, limit, offset)));
+  }
 
-    return result;
+  /** Returns all the collection change suggestions in GrSciColl. */
+  public List<CollectionChangeSuggestion> getChangeSuggestions() {
+    return pagedLoader.loadAll(
+        (limit, offset) -> syncCall(api.listChangeSuggestions(limit, offset)));
   }
 
   public List<CollectionChangeSuggestion> getChangeSuggestionsByIhIdentifier(String ihIdentifier) {
@@ -172,35 +223,100 @@ public class GrSciCollHttpClient {
 
   /** Returns all IH institutions in GrSciCol. */
   public List<Collection> getIhCollections() {
-    List<Collection> result = new ArrayList<>();
-
-    boolean endRecords = false;
-    int offset = 0;
-    while (!endRecords) {
-      PagingResponse<Collection> response =
-          syncCall(api.listCollections(MasterSourceType.IH, 1000, offset));
-      endRecords = response.isEndOfRecords();
-      offset += response.getLimit();
-      result.addAll(response.getResults());
-    }
-
-    return result;
+    return pagedLoader.loadAll(
+        (limit, offset) -> syncCall(api.listCollections(MasterSourceType.IH, limit, offset)));
   }
 
   /** Returns all institutions in GrSciCol. */
   public List<Collection> getCollections() {
-    List<Collection> result = new ArrayList<>();
-
-    boolean endRecords = false;
-    int offset = 0;
-    while (!endRecords) {
-      PagingResponse<Collection> response = syncCall(api.listCollections(null, 1000, offset));
-      endRecords = response.isEndOfRecords();
-      offset += response.getLimit();
-      result.addAll(response.getResults());
+    return pagedLoader.loadAll(
+        (limit, offset) -> syncCall(api.listCollections(null, limit, offset)));
+  }
+
+  /** Streams all the collections in GrSciColl to the consumer. */
+  public void streamCollections(Consumer<Collection> consumer) {
+    pagedLoader.streamAll(
+        (limit, offset, c) ->
+            streamPage(api.streamCollections(null, limit, offset), Collection.class, c),
+        consumer);
+  }
+
+  /**
+   * Streams the summaries of all the collections in GrSciColl. Only the fields of the {@link
+   * CollectionSummary} are kept in memory.
+   */
+  public void streamCollectionSummaries(Consumer<CollectionSummary> consumer) {
+    pagedLoader.streamAll(
+        (limit, offset, c) ->
+            streamPage(api.streamCollections(null, limit, offset), CollectionSummary.class, c),
+        consumer);
+  }
+
+  /** Streams all the IH collections in GrSciColl to the consumer. */
+  public void streamIhCollections(Consumer<Collection> consumer) {
+    pagedLoader.streamAll(
+        (limit, offset, c) ->
+            streamPage(
+                api.streamCollections(MasterSourceType.IH, limit, offset), Collection.class, c),
+        consumer);
+  }
+
+  /**
+   * Reads a {@link PagingResponse} token by token and pushes each of the results to the consumer.
+   * Only the paging metadata is returned.
+   */
+  private <T> PagingResponse<T> streamPage(
+      Call<ResponseBody> call, Class<T> resultType, Consumer<T> consumer) {
+    PagingResponse<T> page = new PagingResponse<>();
+    page.setResults(Collections.emptyList());
+
+    try (ResponseBody body = syncCall(call);
+        JsonParser parser = mapper.getFactory().createParser(body.byteStream())) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Paging response expected");
+      }
+
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if (value == JsonToken.VALUE_NULL) {
+          continue;
+        }
+
+        switch (field) {
+          case "offset":
+            page.setOffset(parser.getLongValue());
+            break;
+          case "limit":
+            page.setLimit(parser.getIntValue());
+            break;
+          case "count":
+            page.setCount(parser.getLongValue());
+            break;
+          case "endOfRecords":
+            page.setEndOfRecords(parser.getBooleanValue());
+            break;
+          case "results":
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+              consumer.accept(mapper.readValue(parser, resultType));
+            }
+            break;
+          default:
+            parser.skipChildren();
+        }
+      }
+    } catch (IOException ex) {
+      throw new IllegalStateException("Error streaming call", ex);
     }
 
-    return result;
+    return page;
+  }
+
+  public List<Collection> getCollectionsByInstitutionAndCode(UUID institutionKey, String code) {
+    return pagedLoader.loadAll(
+        (limit, offset) ->
+            syncCall(
+                api.listCollectionsByInstitutionAndCode(institutionKey, code, limit, offset)));
   }
 
   public Collection getCollection(UUID key) {
@@ -323,6 +439,13 @@ public class GrSciCollHttpClient {
         @Query("limit") int limit,
         @Query("offset") int offset);
 
+    @Streaming
+    @GET("institution")
+    Call<ResponseBody> streamInstitutions(
+        @Query("masterSourceType") MasterSourceType masterSourceType,
+        @Query("limit") int limit,
+        @Query("offset") int offset);
+
     @GET("institution")
     Call<PagingResponse<Institution>> listInstitutionsByName(
         @Query("name") String name,
@@ -352,6 +475,20 @@ public class GrSciCollHttpClient {
         @Query("limit") int limit,
         @Query("offset") int offset);
 
+    @Streaming
+    @GET("collection")
+    Call<ResponseBody> streamCollections(
+        @Query("masterSourceType") MasterSourceType masterSourceType,
+        @Query("limit") int limit,
+        @Query("offset") int offset);
+
+    @GET("collection")
+    Call<PagingResponse<Collection>> listCollectionsByInstitutionAndCode(
+        @Query("institution") UUID institutionKey,
+        @Query("code") String code,
+        @Query("limit") int limit,
+        @Query("offset") int offset);
+
     @GET("collection/{key}")
     Call<Collection> getCollection(@Path("key") UUID key);
 
@@ -435,6 +572,10 @@ public class GrSciCollHttpClient {
     Call<PagingResponse<CollectionChangeSuggestion>> listChangeSuggestions(
         @Query("ihIdentifier") String ihIdentifier);
 
+    @GET("collection/changeSuggestion")
+    Call<PagingResponse<CollectionChangeSuggestion>> listChangeSuggestions(
+        @Query("limit") int limit, @Query("offset") int offset);
+
     @Multipart
     @POST("collection/{collectionKey}/descriptorGroup")
     Call<Long> createDescriptorGroup(
@@ -484,4 +625,10 @@ public class GrSciCollHttpClient {
       }
     }
   }
+
+  @Value
+  private static class ClientKey {
+    RegistryConfig registryConfig;
+    HttpConfig httpConfig;
+  }
 }
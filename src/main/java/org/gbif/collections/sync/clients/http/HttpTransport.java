@@ -0,0 +1,53 @@
+package org.gbif.collections.sync.clients.http;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.gbif.collections.sync.config.SyncConfig.HttpConfig;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Provides the {@link OkHttpClient} shared by all the HTTP clients.
+ *
+ * <p>The clients have to derive their own client from it with {@link OkHttpClient#newBuilder()}
+ * so they all share the same connection pool and dispatcher. HTTP/2 is negotiated when the server
+ * supports it and gzip responses are decompressed transparently by OkHttp.
+ */
+public class HttpTransport {
+
+  private static final ConcurrentMap<HttpConfig, OkHttpClient> clientsMap =
+      new ConcurrentHashMap<>();
+
+  private HttpTransport() {}
+
+  public static OkHttpClient getInstance(HttpConfig httpConfig) {
+    HttpConfig config = httpConfig != null ? httpConfig : new HttpConfig();
+    return clientsMap.computeIfAbsent(config, HttpTransport::create);
+  }
+
+  private static OkHttpClient create(HttpConfig config) {
+    // the limits of the dispatcher only apply to the async calls
+    Dispatcher dispatcher = new Dispatcher();
+    dispatcher.setMaxRequests(Math.max(1, config.getMaxRequests()));
+    dispatcher.setMaxRequestsPerHost(Math.max(1, config.getMaxRequestsPerHost()));
+
+    return new OkHttpClient.Builder()
+        .cache(null)
+        .dispatcher(dispatcher)
+        .connectionPool(
+            new ConnectionPool(
+                config.getMaxIdleConnections(), config.getKeepAliveSeconds(), TimeUnit.SECONDS))
+        .protocols(
+            config.isHttp2()
+                ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                : Collections.singletonList(Protocol.HTTP_1_1))
+        .build();
+  }
+}
@@ -7,6 +7,10 @@ import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+import org.gbif.collections.sync.common.MetricsRegistry;
+import org.gbif.collections.sync.config.IHConfig;
+import org.gbif.collections.sync.config.SyncConfig.HttpConfig;
+import org.gbif.collections.sync.config.SyncConfig.RetryConfig;
 import org.gbif.collections.sync.ih.model.IHInstitution;
 import org.gbif.collections.sync.ih.model.IHMetadata;
 import org.gbif.collections.sync.ih.model.IHStaff;
@@ -14,6 +18,7 @@ import org.gbif.collections.sync.ih.model.IHStaff;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Data;
+import lombok.Value;
 import okhttp3.OkHttpClient;
 import retrofit2.Call;
 import retrofit2.Retrofit;
@@ -24,21 +29,32 @@ import retrofit2.http.Query;
 /** Lightweight IndexHerbariorum client. */
 public class IHHttpClient {
 
-  private static final ConcurrentMap<String, IHHttpClient> clientsMap = new ConcurrentHashMap<>();
+  private static final ConcurrentMap<ClientKey, IHHttpClient> clientsMap =
+      new ConcurrentHashMap<>();
   private final API api;
+  private final RateLimitInterceptor rateLimitInterceptor;
 
-  private IHHttpClient(String ihWsUrl) {
+  private IHHttpClient(
+      String ihWsUrl, double requestsPerSecond, RetryConfig retryConfig, HttpConfig httpConfig) {
     Objects.requireNonNull(ihWsUrl);
 
     ObjectMapper mapper =
         new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
     OkHttpClient.Builder okHttpClientBuilder =
-        new OkHttpClient.Builder()
-            .cache(null)
+        HttpTransport.getInstance(httpConfig)
+            .newBuilder()
             .connectTimeout(Duration.ofMinutes(2))
             .readTimeout(Duration.ofMinutes(2));
 
+    MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+    okHttpClientBuilder.addInterceptor(new MetricsInterceptor("ih", metricsRegistry));
+    RetryInterceptor retryInterceptor = new RetryInterceptor(retryConfig);
+    okHttpClientBuilder.addInterceptor(retryInterceptor);
+
+    rateLimitInterceptor = new RateLimitInterceptor(requestsPerSecond);
+    okHttpClientBuilder.addInterceptor(rateLimitInterceptor);
+
     Retrofit retrofit =
         new Retrofit.Builder()
             .client(okHttpClientBuilder.build())
@@ -46,17 +62,34 @@ public class IHHttpClient {
             .addConverterFactory(JacksonConverterFactory.create(mapper))
             .build();
     api = retrofit.create(API.class);
+    metricsRegistry.gauge("ih.retries", retryInterceptor::getRetries);
+    metricsRegistry.gauge("ih.rateLimitWaitMillis", rateLimitInterceptor::getWaitedMillis);
   }
 
   public static IHHttpClient getInstance(String ihWsUrl) {
-    IHHttpClient client = clientsMap.get(ihWsUrl);
-    if (client != null) {
-      return client;
-    } else {
-      IHHttpClient newClient = new IHHttpClient(ihWsUrl);
-      clientsMap.put(ihWsUrl, newClient);
-      return newClient;
-    }
+    return getInstance(ihWsUrl, 0, null, null);
+  }
+
+  public static IHHttpClient getInstance(IHConfig ihConfig) {
+    Objects.requireNonNull(ihConfig);
+    return getInstance(
+        ihConfig.getIhWsUrl(),
+        ihConfig.getIhRequestsPerSecond(),
+        ihConfig.getIhRetry(),
+        ihConfig.getSyncConfig() != null ? ihConfig.getSyncConfig().getHttp() : null);
+  }
+
+  private static IHHttpClient getInstance(
+      String ihWsUrl, double requestsPerSecond, RetryConfig retryConfig, HttpConfig httpConfig) {
+    // the clients with different rate limits, retries or HTTP configs can't be shared
+    return clientsMap.computeIfAbsent(
+        new ClientKey(ihWsUrl, requestsPerSecond, retryConfig, httpConfig),
+        k -> new IHHttpClient(ihWsUrl, requestsPerSecond, retryConfig, httpConfig));
+  }
+
+  /** Time that the requests of this client waited because of the rate limit. */
+  public long getRateLimitWaitMillis() {
+    return rateLimitInterceptor.getWaitedMillis();
   }
 
   public List<IHInstitution> getInstitutions() {
@@ -106,4 +139,12 @@ public class IHHttpClient {
     private IHMetadata meta;
     private List<String> data = new ArrayList<>();
   }
+
+  @Value
+  private static class ClientKey {
+    String ihWsUrl;
+    double requestsPerSecond;
+    RetryConfig retryConfig;
+    HttpConfig httpConfig;
+  }
 }
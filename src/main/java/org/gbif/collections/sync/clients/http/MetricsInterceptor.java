@@ -0,0 +1,170 @@
+package org.gbif.collections.sync.clients.http;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.function.LongConsumer;
+import java.util.regex.Pattern;
+
+import org.gbif.collections.sync.common.MetricsRegistry;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+import retrofit2.Invocation;
+import retrofit2.http.DELETE;
+import retrofit2.http.GET;
+import retrofit2.http.HEAD;
+import retrofit2.http.PATCH;
+import retrofit2.http.POST;
+import retrofit2.http.PUT;
+
+/**
+ * Interceptor for the {@link OkHttpClient} that records the latency and status of every call in
+ * the {@link MetricsRegistry}.
+ *
+ * <p>The calls are grouped by the endpoint template of the Retrofit method, e.g.
+ * institution/{key}/contactPerson, so the calls to different entities are aggregated. It has to
+ * be the first interceptor so the time spent in retries and waiting for the rate limit is
+ * included. For streamed responses the time until the headers are received is recorded.
+ *
+ * <p>The bytes of the response are counted as the body is read, since the content length is
+ * unknown for chunked responses and it's the compressed size for gzipped ones. They are recorded
+ * when the body is exhausted or closed.
+ */
+public class MetricsInterceptor implements Interceptor {
+
+  // UUIDs and numeric keys in the path
+  private static final Pattern KEY_SEGMENT =
+      Pattern.compile("/([0-9a-fA-F]{8}(-[0-9a-fA-F]{4}){3}-[0-9a-fA-F]{12}|\\d+)(?=/|$)");
+
+  private final String client;
+  private final MetricsRegistry registry;
+
+  public MetricsInterceptor(String client, MetricsRegistry registry) {
+    this.client = client;
+    this.registry = registry;
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    Request request = chain.request();
+    String endpoint = endpointTemplate(request);
+    long requestBytes = request.body() != null ? request.body().contentLength() : 0;
+
+    long start = System.nanoTime();
+    Response response;
+    try {
+      response = chain.proceed(request);
+    } catch (IOException e) {
+      registry.recordCall(
+          client, request.method(), endpoint, 0, System.nanoTime() - start, requestBytes);
+      throw e;
+    }
+
+    int status = response.code();
+    registry.recordCall(
+        client, request.method(), endpoint, status, System.nanoTime() - start, requestBytes);
+
+    if (response.body() == null) {
+      return response;
+    }
+    ResponseBody countingBody =
+        new CountingResponseBody(
+            response.body(),
+            bytes -> registry.recordBytes(client, request.method(), endpoint, status, bytes));
+    return response.newBuilder().body(countingBody).build();
+  }
+
+  static String endpointTemplate(Request request) {
+    Invocation invocation = request.tag(Invocation.class);
+    if (invocation != null) {
+      for (Annotation annotation : invocation.method().getAnnotations()) {
+        String value = annotationPath(annotation);
+        if (value != null) {
+          return value;
+        }
+      }
+    }
+    // the keys are replaced so the calls to different entities are grouped
+    return KEY_SEGMENT.matcher(request.url().encodedPath()).replaceAll("/{key}");
+  }
+
+  private static String annotationPath(Annotation annotation) {
+    if (annotation instanceof GET) {
+      return ((GET) annotation).value();
+    } else if (annotation instanceof POST) {
+      return ((POST) annotation).value();
+    } else if (annotation instanceof PUT) {
+      return ((PUT) annotation).value();
+    } else if (annotation instanceof DELETE) {
+      return ((DELETE) annotation).value();
+    } else if (annotation instanceof PATCH) {
+      return ((PATCH) annotation).value();
+    } else if (annotation instanceof HEAD) {
+      return ((HEAD) annotation).value();
+    }
+    return null;
+  }
+
+  /** Response body that counts the bytes read and reports them once. */
+  private static class CountingResponseBody extends ResponseBody {
+
+    private final ResponseBody delegate;
+    private final BufferedSource source;
+    private long bytesRead;
+    private boolean reported;
+
+    CountingResponseBody(ResponseBody delegate, LongConsumer bytesConsumer) {
+      this.delegate = delegate;
+      this.source =
+          Okio.buffer(
+              new ForwardingSource(delegate.source()) {
+                @Override
+                public long read(Buffer sink, long byteCount) throws IOException {
+                  long read = super.read(sink, byteCount);
+                  if (read == -1) {
+                    report(bytesConsumer);
+                  } else {
+                    bytesRead += read;
+                  }
+                  return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                  report(bytesConsumer);
+                  super.close();
+                }
+              });
+    }
+
+    private void report(LongConsumer bytesConsumer) {
+      if (!reported) {
+        reported = true;
+        bytesConsumer.accept(bytesRead);
+      }
+    }
+
+    @Override
+    public MediaType contentType() {
+      return delegate.contentType();
+    }
+
+    @Override
+    public long contentLength() {
+      return delegate.contentLength();
+    }
+
+    @Override
+    public BufferedSource source() {
+      return source;
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package org.gbif.collections.sync.clients.http;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.gbif.api.model.common.paging.PagingResponse;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads all the pages of a paginated registry endpoint.
+ *
+ * <p>The first page is fetched on its own to know the total count of records and the rest of the
+ * offsets are then fetched concurrently in a bounded pool. The results are always returned in
+ * offset order and if any of the pages fails the whole load fails. The pages that are still
+ * running when a page fails stop as soon as they push a record or start, since cancelling their
+ * futures doesn't interrupt them.
+ */
+@Slf4j
+class PagedLoader {
+
+  static final int DEFAULT_PAGE_SIZE = 1000;
+
+  private final int pageSize;
+  private final int concurrency;
+  private final ExecutorService executor;
+
+  PagedLoader(int pageSize, int concurrency) {
+    this.pageSize = pageSize;
+    this.concurrency = Math.max(1, concurrency);
+    this.executor =
+        this.concurrency > 1
+            ? Executors.newFixedThreadPool(
+                this.concurrency,
+                new ThreadFactoryBuilder().setNameFormat("page-loader-%d").setDaemon(true).build())
+            : null;
+  }
+
+  /** Fetches a page of the endpoint. */
+  @FunctionalInterface
+  interface PageFetcher<T> {
+    PagingResponse<T> fetch(int limit, int offset);
+  }
+
+  <T> List<T> loadAll(PageFetcher<T> fetcher) {
+    return loadAll(fetcher, new AtomicReference<>());
+  }
+
+  private <T> List<T> loadAll(PageFetcher<T> fetcher, AtomicReference<RuntimeException> failure) {
+    PagingResponse<T> firstPage = fetcher.fetch(pageSize, 0);
+    List<T> result = new ArrayList<>(firstPage.getResults());
+
+    if (firstPage.isEndOfRecords()) {
+      return result;
+    }
+
+    if (executor == null || firstPage.getCount() == null) {
+      // no need to parallelize or we don't know how many pages there are
+      loadSequentially(fetcher, firstPage.getLimit(), result);
+      return result;
+    }
+
+    // the WS may cap the limit requested so we use the one it returned
+    int limit = firstPage.getLimit();
+    List<CompletableFuture<PagingResponse<T>>> pages = new ArrayList<>();
+    for (long offset = limit; offset < firstPage.getCount(); offset += limit) {
+      int pageOffset = (int) offset;
+      pages.add(
+          CompletableFuture.supplyAsync(
+              () -> fetchPage(fetcher, limit, pageOffset, failure), executor));
+    }
+
+    PagingResponse<T> lastPage = firstPage;
+    try {
+      for (CompletableFuture<PagingResponse<T>> page : pages) {
+        lastPage = page.join();
+        result.addAll(lastPage.getResults());
+      }
+    } catch (CompletionException e) {
+      // cancel the pending pages and propagate the original exception
+      pages.forEach(p -> p.cancel(true));
+      if (failure.get() != null) {
+        throw failure.get();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+
+    // new records could have been added since we read the count
+    if (!lastPage.isEndOfRecords()) {
+      log.info("More records than expected found, continuing sequentially");
+      loadSequentially(fetcher, (int) (lastPage.getOffset() + lastPage.getLimit()), result);
+    }
+
+    return result;
+  }
+
+  /**
+   * Streams all the records of the endpoint to the consumer. The fetcher is expected to push the
+   * records of each page to the consumer it receives and return only the paging metadata.
+   *
+   * <p>The consumer is never called concurrently but, when pages are fetched in parallel, the
+   * records are not guaranteed to arrive in offset order.
+   */
+  <T> void streamAll(PageStreamer<T> streamer, Consumer<T> consumer) {
+    AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    Object lock = new Object();
+    Consumer<T> syncConsumer =
+        t -> {
+          synchronized (lock) {
+            // the pages still running can't push more records once a page failed
+            if (failure.get() != null) {
+              throw new IllegalStateException("Load aborted because another page failed");
+            }
+            consumer.accept(t);
+          }
+        };
+    loadAll((limit, offset) -> streamer.stream(limit, offset, syncConsumer), failure);
+  }
+
+  /** Streams the records of a page to a consumer and returns the paging metadata of the page. */
+  @FunctionalInterface
+  interface PageStreamer<T> {
+    PagingResponse<T> stream(int limit, int offset, Consumer<T> consumer);
+  }
+
+  private static <T> PagingResponse<T> fetchPage(
+      PageFetcher<T> fetcher, int limit, int offset, AtomicReference<RuntimeException> failure) {
+    if (failure.get() != null) {
+      throw new IllegalStateException("Load aborted because another page failed");
+    }
+    try {
+      return fetcher.fetch(limit, offset);
+    } catch (RuntimeException e) {
+      // only the first failure is kept, the rest are caused by it
+      failure.compareAndSet(null, e);
+      throw e;
+    }
+  }
+
+  private <T> void loadSequentially(PageFetcher<T> fetcher, int offset, List<T> result) {
+    boolean endRecords = false;
+    while (!endRecords) {
+      PagingResponse<T> response = fetcher.fetch(pageSize, offset);
+      endRecords = response.isEndOfRecords();
+      offset += response.getLimit();
+      result.addAll(response.getResults());
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package org.gbif.collections.sync.clients.http;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.util.concurrent.RateLimiter;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+
+/**
+ * Interceptor for the {@link OkHttpClient} that limits the number of requests per second sent to a
+ * WS. It uses a token bucket, so short bursts are allowed after idle periods.
+ *
+ * <p>The time that the requests waited for a permit is accumulated so it can be reported.
+ */
+public class RateLimitInterceptor implements Interceptor {
+
+  private final RateLimiter rateLimiter;
+  private final AtomicLong waitedMicros = new AtomicLong();
+
+  /**
+   * @param requestsPerSecond max requests per second. If it's not positive there is no limit.
+   */
+  public RateLimitInterceptor(double requestsPerSecond) {
+    this.rateLimiter = requestsPerSecond > 0 ? RateLimiter.create(requestsPerSecond) : null;
+  }
+
+  /** Total time that the requests waited because of the rate limit. */
+  public long getWaitedMillis() {
+    return TimeUnit.MICROSECONDS.toMillis(waitedMicros.get());
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    if (rateLimiter != null) {
+      double waitedSeconds = rateLimiter.acquire();
+      waitedMicros.addAndGet((long) (waitedSeconds * TimeUnit.SECONDS.toMicros(1)));
+    }
+    return chain.proceed(chain.request());
+  }
+}
@@ -0,0 +1,136 @@
+package org.gbif.collections.sync.clients.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.gbif.collections.sync.config.SyncConfig.RetryConfig;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Interceptor for the {@link OkHttpClient} that retries the idempotent requests that fail because
+ * of IO errors, like connection errors and timeouts, or that get a 429 or 5xx response.
+ *
+ * <p>It waits between attempts using a capped exponential backoff with full jitter. If the
+ * response has a Retry-After header it's honoured as long as it doesn't exceed the max delay.
+ */
+@Slf4j
+public class RetryInterceptor implements Interceptor {
+
+  private static final Set<String> IDEMPOTENT_METHODS =
+      new HashSet<>(Arrays.asList("GET", "HEAD", "PUT", "DELETE", "OPTIONS"));
+
+  private final int maxAttempts;
+  private final long initialDelayMillis;
+  private final long maxDelayMillis;
+  private final AtomicLong retries = new AtomicLong();
+
+  public RetryInterceptor(RetryConfig retryConfig) {
+    RetryConfig config = retryConfig != null ? retryConfig : new RetryConfig();
+    this.maxAttempts = Math.max(1, config.getMaxAttempts());
+    this.initialDelayMillis = config.getInitialDelayMillis();
+    this.maxDelayMillis = config.getMaxDelayMillis();
+  }
+
+  /** Total number of retries done by this interceptor. */
+  public long getRetries() {
+    return retries.get();
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    Request request = chain.request();
+    if (!IDEMPOTENT_METHODS.contains(request.method())) {
+      return chain.proceed(request);
+    }
+
+    for (int attempt = 1; ; attempt++) {
+      Response response;
+      try {
+        response = chain.proceed(request);
+      } catch (IOException e) {
+        if (attempt >= maxAttempts) {
+          throw e;
+        }
+        log.warn(
+            "Attempt {} of {} {} failed: {}",
+            attempt,
+            request.method(),
+            request.url(),
+            e.getMessage());
+        waitBeforeRetry(backoff(attempt));
+        continue;
+      }
+
+      if (!isRetryable(response.code()) || attempt >= maxAttempts) {
+        return response;
+      }
+
+      long delay = retryAfter(response).orElse(backoff(attempt));
+      log.warn(
+          "Attempt {} of {} {} got response code {}",
+          attempt,
+          request.method(),
+          request.url(),
+          response.code());
+      // the connection can't be reused unless the previous response is closed
+      response.close();
+      waitBeforeRetry(delay);
+    }
+  }
+
+  private static boolean isRetryable(int code) {
+    return code == 429 || code >= 500;
+  }
+
+  private long backoff(int attempt) {
+    long exponentialDelay = initialDelayMillis * (1L << Math.min(attempt - 1, 30));
+    long cappedDelay = Math.min(maxDelayMillis, exponentialDelay);
+    return ThreadLocalRandom.current().nextLong(cappedDelay + 1);
+  }
+
+  private OptionalLong retryAfter(Response response) {
+    String retryAfter = response.header("Retry-After");
+    if (retryAfter == null) {
+      return OptionalLong.empty();
+    }
+
+    long delay;
+    try {
+      delay = Duration.ofSeconds(Long.parseLong(retryAfter.trim())).toMillis();
+    } catch (NumberFormatException e) {
+      try {
+        ZonedDateTime date =
+            ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+        delay = Duration.between(ZonedDateTime.now(), date).toMillis();
+      } catch (DateTimeParseException ex) {
+        return OptionalLong.empty();
+      }
+    }
+    return OptionalLong.of(Math.max(0, Math.min(delay, maxDelayMillis)));
+  }
+
+  private void waitBeforeRetry(long delayMillis) throws InterruptedIOException {
+    retries.incrementAndGet();
+    try {
+      Thread.sleep(delayMillis);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to retry");
+    }
+  }
+}
@@ -1,18 +1,30 @@
 package org.gbif.collections.sync.clients.proxy;
 
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import org.gbif.api.model.collections.Collection;
+import org.gbif.api.model.collections.CollectionEntity;
 import org.gbif.api.model.collections.Contact;
 import org.gbif.api.model.collections.Institution;
 import org.gbif.api.model.collections.suggestions.CollectionChangeSuggestion;
+import org.gbif.collections.sync.SyncResult.FailedAction;
 import org.gbif.collections.sync.clients.http.GrSciCollHttpClient;
 import org.gbif.collections.sync.common.handler.ChangeSugesstionHandler;
 import org.gbif.collections.sync.common.converter.ConvertedCollection;
 import org.gbif.collections.sync.common.handler.CollectionHandler;
 import org.gbif.collections.sync.common.handler.InstitutionHandler;
+import org.gbif.collections.sync.common.match.TrigramIndex;
 import org.gbif.collections.sync.config.SyncConfig;
 
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 public abstract class BaseProxyClient implements GrSciCollProxyClient {
 
   protected GrSciCollHttpClient grSciCollHttpClient;
@@ -20,55 +32,165 @@ public abstract class BaseProxyClient implements GrSciCollProxyClient {
   protected CollectionHandler collectionHandler;
   protected InstitutionHandler institutionHandler;
   protected ChangeSugesstionHandler changeSugesstionHandler;
+  // names and codes of the institutions loaded, to find possible duplicates of the new ones
+  protected final TrigramIndex<Institution> institutionsNameIndex;
+  protected final InstitutionNameLookup institutionNameLookup;
+  private final int maxDuplicateCandidates;
+  private final String registryUser;
+  // entities written in this run, their modified dates are fetched for the delta state
+  private final Set<UUID> writtenInstitutionKeys = ConcurrentHashMap.newKeySet();
+  private final Set<UUID> writtenCollectionKeys = ConcurrentHashMap.newKeySet();
 
   public BaseProxyClient(SyncConfig syncConfig) {
     this.callExecutor = CallExecutor.getInstance(syncConfig);
+    SyncConfig config = syncConfig != null ? syncConfig : new SyncConfig();
+    this.institutionsNameIndex = TrigramIndex.create(config.getDuplicateCandidateMinScore());
+    this.maxDuplicateCandidates = config.getMaxDuplicateCandidates();
+    this.registryUser = config.getRegistry() != null ? config.getRegistry().getWsUser() : null;
     if (syncConfig != null
         && syncConfig.getRegistry() != null
         && syncConfig.getRegistry().getWsUrl() != null) {
-      grSciCollHttpClient = GrSciCollHttpClient.getInstance(syncConfig.getRegistry());
+      grSciCollHttpClient =
+          GrSciCollHttpClient.getInstance(syncConfig.getRegistry(), syncConfig.getHttp());
     }
-    this.collectionHandler = CollectionHandler.create(callExecutor, grSciCollHttpClient);
-    this.institutionHandler = InstitutionHandler.create(callExecutor, grSciCollHttpClient);
+    boolean subEntitiesInCreatePayload =
+        syncConfig != null
+            && syncConfig.getRegistry() != null
+            && syncConfig.getRegistry().isCreateWithSubEntities();
+    this.collectionHandler =
+        CollectionHandler.create(callExecutor, grSciCollHttpClient, subEntitiesInCreatePayload);
+    this.institutionHandler =
+        InstitutionHandler.create(callExecutor, grSciCollHttpClient, subEntitiesInCreatePayload);
     this.changeSugesstionHandler = ChangeSugesstionHandler.create(callExecutor,grSciCollHttpClient);
+    this.institutionNameLookup =
+        new InstitutionNameLookup(
+            this::lookUpInstitutionsByName,
+            grSciCollHttpClient != null ? this::fetchAllInstitutionNames : null,
+            config.getRegistry() != null ? config.getRegistry().getNameLookupCacheSize() : 10_000);
   }
 
   @Override
   public Collection createCollection(ConvertedCollection convertedCollection) {
-    return collectionHandler.createConvertedCollection(convertedCollection);
+    Collection createdCollection = collectionHandler.createConvertedCollection(convertedCollection);
+    if (createdCollection != null) {
+      collectionWritten(createdCollection.getKey());
+    }
+    return createdCollection;
   }
 
   @Override
   public boolean updateCollection(Collection oldCollection, ConvertedCollection newCollection) {
+    // the descriptor groups can be written even if the collection didn't change
+    collectionWritten(oldCollection.getKey());
     return collectionHandler.updateConvertedCollection(oldCollection, newCollection);
   }
 
   @Override
   public Institution createInstitution(Institution institution) {
-    return institutionHandler.create(institution);
+    Institution createdInstitution = institutionHandler.create(institution);
+    if (createdInstitution != null) {
+      indexInstitution(createdInstitution);
+      institutionWritten(createdInstitution.getKey());
+    }
+    return createdInstitution;
   }
 
   @Override
   public boolean updateInstitution(Institution oldInstitution, Institution newInstitution) {
-    return institutionHandler.update(oldInstitution, newInstitution);
+    boolean updated = institutionHandler.update(oldInstitution, newInstitution);
+    if (updated) {
+      indexInstitution(newInstitution);
+      institutionWritten(oldInstitution.getKey());
+    }
+    return updated;
   }
 
   public Integer addContactToInstitution(UUID entityKey, Contact contact) {
+    institutionWritten(entityKey);
     return institutionHandler.addContactToEntityCall(entityKey, contact);
   }
 
   public boolean updateContactInInstitution(
       UUID entityKey, Contact oldContact, Contact newContact) {
-    return institutionHandler.updateContactInEntityCall(entityKey, oldContact, newContact);
+    boolean updated =
+        institutionHandler.updateContactInEntityCall(entityKey, oldContact, newContact);
+    if (updated) {
+      institutionWritten(entityKey);
+    }
+    return updated;
   }
 
   public void removeContactFromInstitution(UUID entityKey, int contactKey) {
+    institutionWritten(entityKey);
     institutionHandler.removeContactFromEntityCall(entityKey, contactKey);
   }
 
   @Override
   public List<Institution> findInstitutionByName(String institutionName) {
-    return institutionHandler.listInstitutionsByName(institutionName);
+    return institutionNameLookup.find(institutionName);
+  }
+
+  @Override
+  public List<Institution> findSimilarInstitutions(String name, String code) {
+    return institutionsNameIndex.search(maxDuplicateCandidates, name, code).stream()
+        .map(TrigramIndex.Candidate::getValue)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Indexes the institutions loaded by the sync.
+   *
+   * @param all true if they are all the institutions of the registry
+   */
+  protected void indexInstitutions(List<Institution> institutions, boolean all) {
+    if (institutions != null) {
+      institutions.forEach(
+          i -> institutionsNameIndex.put(i.getKey(), i, i.getName(), i.getCode()));
+    }
+    institutionNameLookup.addAll(institutions, all);
+  }
+
+  /**
+   * Indexes all the institutions of the registry, so the new ones are compared with all of them and
+   * not only with the ones loaded by the sync. Only the summaries of the rest are fetched. If they
+   * can't be fetched only the loaded ones are indexed.
+   */
+  protected void indexAllInstitutions(List<Institution> loadedInstitutions) {
+    if (grSciCollHttpClient != null) {
+      try {
+        List<Institution> summaries =
+            fetchAllInstitutionNames().stream()
+                .filter(i -> i.getDeleted() == null)
+                .collect(Collectors.toList());
+        indexInstitutions(summaries, false);
+        // the loaded institutions replace their summaries since they have all the fields
+        indexInstitutions(loadedInstitutions, true);
+        log.info("Indexed the names of {} institutions", summaries.size());
+        return;
+      } catch (RuntimeException e) {
+        log.warn("Couldn't fetch all the institutions, only the loaded ones are indexed", e);
+      }
+    }
+    indexInstitutions(loadedInstitutions, false);
+  }
+
+  private void indexInstitution(Institution institution) {
+    institutionsNameIndex.put(
+        institution.getKey(), institution, institution.getName(), institution.getCode());
+    institutionNameLookup.put(institution);
+  }
+
+  private List<Institution> lookUpInstitutionsByName(String name) {
+    // the registry is called directly so the errors are thrown instead of returning no institutions
+    return grSciCollHttpClient != null
+        ? grSciCollHttpClient.getInstitutionsByName(name)
+        : new ArrayList<>();
+  }
+
+  private List<Institution> fetchAllInstitutionNames() {
+    List<Institution> institutions = new ArrayList<>();
+    grSciCollHttpClient.streamInstitutionSummaries(s -> institutions.add(s.toInstitution()));
+    return institutions;
   }
 
   @Override
@@ -76,19 +198,97 @@ public abstract class BaseProxyClient implements GrSciCollProxyClient {
     return changeSugesstionHandler.createCollectionChangeSuggestion(createSuggestion);
   }
 
+  /** Waits for the registry calls that are still running in the background. */
+  public void awaitPendingCalls() {
+    callExecutor.awaitPendingCalls();
+  }
+
+  @Override
+  public void addFailedAction(FailedAction failedAction, Throwable cause) {
+    callExecutor.addFailedAction(failedAction, cause);
+  }
+
+  /** Returns the actions that failed since the last call, so they are added to the result. */
+  public List<FailedAction> drainFailedActions() {
+    return callExecutor.drainFailedActions();
+  }
+
+  /** Closes the journal of the failed actions. It's called when the sync finishes. */
+  public void closeFailedActionsJournal() {
+    callExecutor.closeJournal();
+  }
+
+  public boolean hasFailedActions() {
+    return callExecutor.hasFailedActions();
+  }
+
+  public int getFailedActionsCount() {
+    return callExecutor.getFailedActionsCount();
+  }
+
   public List<CollectionChangeSuggestion> getCollectionChangeSuggestion(String ihIdentifier){
     return changeSugesstionHandler.getCall(ihIdentifier);
   }
 
   public Integer addContactToCollection(UUID entityKey, Contact contact) {
+    collectionWritten(entityKey);
     return collectionHandler.addContactToEntityCall(entityKey, contact);
   }
 
   public boolean updateContactInCollection(UUID entityKey, Contact oldContact, Contact newContact) {
-    return collectionHandler.updateContactInEntityCall(entityKey, oldContact, newContact);
+    boolean updated =
+        collectionHandler.updateContactInEntityCall(entityKey, oldContact, newContact);
+    if (updated) {
+      collectionWritten(entityKey);
+    }
+    return updated;
   }
 
   public void removeContactFromCollection(UUID entityKey, int contactKey) {
+    collectionWritten(entityKey);
     collectionHandler.removeContactFromEntityCall(entityKey, contactKey);
   }
+
+  /**
+   * Fetches the entities written in this run as they are in the registry. It has to be called
+   * after the pending calls finished. The entities modified afterwards by another user are left
+   * out, so their changes are synced in the next run.
+   */
+  public List<CollectionEntity> fetchWrittenEntities() {
+    List<CollectionEntity> entities = new ArrayList<>();
+    if (grSciCollHttpClient == null) {
+      return entities;
+    }
+
+    writtenInstitutionKeys.forEach(
+        k -> addWrittenEntity(() -> grSciCollHttpClient.getInstitution(k), entities));
+    writtenCollectionKeys.forEach(
+        k -> addWrittenEntity(() -> grSciCollHttpClient.getCollection(k), entities));
+    return entities;
+  }
+
+  private void addWrittenEntity(
+      Supplier<? extends CollectionEntity> fetch, List<CollectionEntity> entities) {
+    try {
+      CollectionEntity entity = fetch.get();
+      if (entity != null && Objects.equals(registryUser, entity.getModifiedBy())) {
+        entities.add(entity);
+      }
+    } catch (RuntimeException e) {
+      // the entity will be synced again in the next run
+      log.warn("Couldn't fetch a written entity for the delta state", e);
+    }
+  }
+
+  private void institutionWritten(UUID key) {
+    if (key != null) {
+      writtenInstitutionKeys.add(key);
+    }
+  }
+
+  private void collectionWritten(UUID key) {
+    if (key != null) {
+      writtenCollectionKeys.add(key);
+    }
+  }
 }
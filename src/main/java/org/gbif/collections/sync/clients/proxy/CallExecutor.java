@@ -1,20 +1,29 @@
 package org.gbif.collections.sync.clients.proxy;
 
-import java.io.BufferedWriter;
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
 import org.gbif.collections.sync.SyncResult.FailedAction;
 import org.gbif.collections.sync.config.SyncConfig;
+import org.gbif.collections.sync.config.SyncConfig.ExecutorStrategy;
 
+import com.google.common.base.Strings;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
@@ -25,42 +34,105 @@ public class CallExecutor {
 
   private final boolean dryRun;
   private final boolean sendNotifications;
-  private Path failedActionsPath;
+  private final Path failedActionsDir;
+  private volatile FailedActionJournal journal;
+  private final AtomicInteger failedActionsCount = new AtomicInteger();
+  private final Queue<FailedAction> failedActions = new ConcurrentLinkedQueue<>();
+  private final ExecutorService asyncExecutor;
+  // caps the concurrent calls to the registry, which is the only host these calls go to
+  private final Semaphore registryPermits;
+  private final ThreadLocal<Boolean> holdsPermit = ThreadLocal.withInitial(() -> false);
+  private final Set<CompletableFuture<Void>> pendingCalls = ConcurrentHashMap.newKeySet();
+  // last call submitted with each order key, the next call of the key starts when it finishes
+  private final ConcurrentMap<Object, CompletableFuture<Void>> lastCallByKey =
+      new ConcurrentHashMap<>();
 
   private CallExecutor(SyncConfig syncConfig) {
+    ExecutorStrategy strategy = ExecutorStrategy.BLOCKING;
+    int maxConcurrentCalls = Integer.MAX_VALUE;
     if (syncConfig != null) {
       this.dryRun = syncConfig.isDryRun();
       this.sendNotifications = syncConfig.isSendNotifications();
+      this.failedActionsDir =
+          !Strings.isNullOrEmpty(syncConfig.getFailedActionsDir())
+              ? Paths.get(syncConfig.getFailedActionsDir())
+              : Paths.get("");
+      if (syncConfig.getExecutorStrategy() != null) {
+        strategy = syncConfig.getExecutorStrategy();
+      }
+      if (syncConfig.getRegistry() != null
+          && syncConfig.getRegistry().getMaxConcurrentCalls() > 0) {
+        maxConcurrentCalls = syncConfig.getRegistry().getMaxConcurrentCalls();
+      }
     } else {
       this.dryRun = true;
       this.sendNotifications = false;
+      this.failedActionsDir = Paths.get("");
     }
+    this.asyncExecutor = createExecutor(strategy);
+    this.registryPermits = new Semaphore(maxConcurrentCalls);
 
     log.info(
-        "Call Executor created with dryRun {} and sendNotifications {}", dryRun, sendNotifications);
+        "Call Executor created with dryRun {}, sendNotifications {} and executor strategy {}",
+        dryRun,
+        sendNotifications,
+        strategy);
   }
 
   public static CallExecutor getInstance(SyncConfig config) {
-    CallExecutor instance = executorsMap.get(config);
-    if (instance != null) {
-      return instance;
-    } else {
-      CallExecutor newInstance = new CallExecutor(config);
-      executorsMap.put(config, newInstance);
-      return newInstance;
+    if (config == null) {
+      // the map doesn't accept null keys
+      return NoConfigHolder.INSTANCE;
     }
+    return executorsMap.computeIfAbsent(config, CallExecutor::new);
   }
 
+  /**
+   * Executes an action whose result is not needed. Depending on the {@link ExecutorStrategy} the
+   * action is executed in the calling thread or in the background. Use {@link
+   * #awaitPendingCalls()} to wait for the actions running in the background.
+   */
   public void executeOrAddFailAsync(
       Runnable action, Function<Throwable, FailedAction> exceptionHandler) {
-    if (!dryRun) {
-      CompletableFuture.runAsync(action)
-          .whenCompleteAsync(
-              (r, e) -> {
-                if (e != null) {
-                  writeFailedAction(exceptionHandler.apply(e));
-                }
-              });
+    executeOrAddFailAsync(null, action, exceptionHandler);
+  }
+
+  /**
+   * Executes an action whose result is not needed like {@link #executeOrAddFailAsync(Runnable,
+   * Function)}, but the actions with the same order key are executed one after another in the
+   * order they were submitted, e.g. the writes of the sub-entities of the same entity. Use {@link
+   * #awaitPendingCalls(Object)} to wait for the actions of a key.
+   *
+   * @param orderKey key of the actions that have to be executed in order. If null the action is
+   *     not ordered with the others
+   */
+  public void executeOrAddFailAsync(
+      Object orderKey, Runnable action, Function<Throwable, FailedAction> exceptionHandler) {
+    if (dryRun) {
+      return;
+    }
+
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    pendingCalls.add(future);
+    Runnable call =
+        () -> {
+          try {
+            executeOrAddFail(action, exceptionHandler);
+          } finally {
+            if (orderKey != null) {
+              lastCallByKey.remove(orderKey, future);
+            }
+            pendingCalls.remove(future);
+            future.complete(null);
+          }
+        };
+
+    CompletableFuture<Void> previousCall =
+        orderKey != null ? lastCallByKey.put(orderKey, future) : null;
+    if (previousCall == null) {
+      submit(call, future, exceptionHandler);
+    } else {
+      previousCall.whenComplete((r, e) -> submit(call, future, exceptionHandler));
     }
   }
 
@@ -68,9 +140,13 @@ public class CallExecutor {
       Runnable action, Function<Throwable, FailedAction> exceptionHandler) {
     if (!dryRun) {
       try {
-        action.run();
+        withPermit(
+            () -> {
+              action.run();
+              return null;
+            });
       } catch (Exception e) {
-        writeFailedAction(exceptionHandler.apply(e));
+        writeFailedAction(exceptionHandler.apply(e), e);
       }
     }
   }
@@ -86,9 +162,9 @@ public class CallExecutor {
       T defaultReturnValue) {
     if (!dryRun) {
       try {
-        return execution.get();
+        return withPermit(execution);
       } catch (Exception e) {
-        writeFailedAction(exceptionHandler.apply(e));
+        writeFailedAction(exceptionHandler.apply(e), e);
       }
     }
 
@@ -102,25 +178,151 @@ public class CallExecutor {
       try {
         runnable.run();
       } catch (Exception e) {
-        writeFailedAction(exceptionHandler.apply(e));
+        writeFailedAction(exceptionHandler.apply(e), e);
+      }
+    }
+  }
+
+  /** Waits until all the actions running in the background are finished. */
+  public void awaitPendingCalls() {
+    while (!pendingCalls.isEmpty()) {
+      CompletableFuture.allOf(pendingCalls.toArray(new CompletableFuture[0])).join();
+    }
+  }
+
+  /**
+   * Waits until the actions submitted with the order key are finished, e.g. before fetching again
+   * an entity whose sub-entities are being added.
+   */
+  public void awaitPendingCalls(Object orderKey) {
+    CompletableFuture<Void> lastCall;
+    // the last call only finishes after the previous ones, but more calls could be added meanwhile
+    while (orderKey != null && (lastCall = lastCallByKey.get(orderKey)) != null) {
+      lastCall.join();
+    }
+  }
+
+  public boolean hasFailedActions() {
+    return failedActionsCount.get() > 0;
+  }
+
+  public int getFailedActionsCount() {
+    return failedActionsCount.get();
+  }
+
+  /** Records an action that failed outside of this executor, e.g. a lookup needed to sync. */
+  public void addFailedAction(FailedAction failedAction, Throwable cause) {
+    writeFailedAction(failedAction, cause);
+  }
+
+  /**
+   * Returns the actions that failed since the last call and removes them, so they are only added
+   * to the result of one sync.
+   */
+  public List<FailedAction> drainFailedActions() {
+    List<FailedAction> drained = new ArrayList<>();
+    FailedAction failedAction;
+    while ((failedAction = failedActions.poll()) != null) {
+      drained.add(failedAction);
+    }
+    return drained;
+  }
+
+  /**
+   * Writes the failed actions still pending and closes the journal. It has to be called when the
+   * sync finishes, after {@link #awaitPendingCalls()}. A new journal is created if something fails
+   * afterwards.
+   */
+  public synchronized void closeJournal() {
+    if (journal != null) {
+      journal.close();
+      log.info("Failed actions written to {}", journal.getPath());
+      journal = null;
+    }
+  }
+
+  private void writeFailedAction(FailedAction failedAction, Throwable cause) {
+    // the count prevents saving the delta state, so the record is synced again in the next run
+    // even if the action couldn't be written to the journal
+    failedActionsCount.incrementAndGet();
+    failedActions.add(failedAction);
+    try {
+      getJournal().append(failedAction, cause);
+    } catch (RuntimeException e) {
+      log.error("Error persisting a failed action to the journal: {}", failedAction, e);
+    }
+  }
+
+  private FailedActionJournal getJournal() {
+    // the journal is only created if something fails
+    if (journal == null) {
+      synchronized (this) {
+        if (journal == null) {
+          journal =
+              FailedActionJournal.open(
+                  failedActionsDir.resolve(
+                      "failed_actions_" + System.currentTimeMillis() + ".jsonl"));
+        }
       }
     }
+    return journal;
   }
 
-  private void writeFailedAction(FailedAction failedAction) {
-    if (failedActionsPath == null) {
-      failedActionsPath = Paths.get("failed_actions_" + System.currentTimeMillis());
+  private void submit(
+      Runnable call,
+      CompletableFuture<Void> future,
+      Function<Throwable, FailedAction> exceptionHandler) {
+    try {
+      asyncExecutor.execute(call);
+    } catch (RuntimeException e) {
+      // the call is not executed, so it's finished here in order not to block the next ones
+      lastCallByKey.values().remove(future);
+      pendingCalls.remove(future);
+      future.complete(null);
+      writeFailedAction(exceptionHandler.apply(e), e);
+    }
+  }
+
+  private <T> T withPermit(Supplier<T> execution) {
+    // nested calls reuse the permit of the outer call, otherwise they could wait forever
+    if (holdsPermit.get()) {
+      return execution.get();
     }
 
+    registryPermits.acquireUninterruptibly();
+    holdsPermit.set(true);
     try {
-      try (BufferedWriter writer =
-          Files.newBufferedWriter(
-              failedActionsPath, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
-        writer.write(failedAction.toString());
-        writer.newLine();
+      return execution.get();
+    } finally {
+      holdsPermit.set(false);
+      registryPermits.release();
+    }
+  }
+
+  private static ExecutorService createExecutor(ExecutorStrategy strategy) {
+    if (strategy == ExecutorStrategy.VIRTUAL) {
+      try {
+        // virtual threads are only available from Java 21
+        return (ExecutorService)
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      } catch (ReflectiveOperationException e) {
+        log.warn("Virtual threads not supported by this JVM. Using platform threads instead");
+        return newThreadPool();
       }
-    } catch (IOException e) {
-      log.error("Error persisting a failed action to a file: {}", failedAction.toString(), e);
+    } else if (strategy == ExecutorStrategy.CONCURRENT) {
+      return newThreadPool();
     }
+    return MoreExecutors.newDirectExecutorService();
+  }
+
+  private static ExecutorService newThreadPool() {
+    // the concurrency is limited by the registry permits
+    return Executors.newCachedThreadPool(
+        new ThreadFactoryBuilder().setNameFormat("registry-call-%d").setDaemon(true).build());
+  }
+
+  /** Lazily creates the executor used when there is no config, which runs in dry mode. */
+  private static class NoConfigHolder {
+    private static final CallExecutor INSTANCE = new CallExecutor(null);
   }
 }
@@ -0,0 +1,89 @@
+package org.gbif.collections.sync.clients.proxy;
+
+import org.gbif.api.model.collections.CollectionEntity;
+
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Cache of full GrSciColl entities keyed by their key.
+ *
+ * <p>The entities are fetched from the registry the first time they are requested and the least
+ * recently used ones are evicted when the cache is full. Concurrent requests of the same key share
+ * the same fetch and the number of fetches running at the same time is limited.
+ */
+public class EntityCache<T extends CollectionEntity> {
+
+  private final LoadingCache<UUID, T> cache;
+  private final Semaphore fetchPermits;
+
+  public EntityCache(Function<UUID, T> fetcher, long maxSize, int maxConcurrentFetches) {
+    this.fetchPermits = maxConcurrentFetches > 0 ? new Semaphore(maxConcurrentFetches) : null;
+    this.cache =
+        CacheBuilder.newBuilder()
+            .maximumSize(maxSize)
+            .recordStats()
+            .build(
+                new CacheLoader<UUID, T>() {
+                  @Override
+                  public T load(UUID key) throws InterruptedException {
+                    return fetch(fetcher, key);
+                  }
+                });
+  }
+
+  /** Returns the entity with the given key, fetching it if it's not cached. */
+  public T get(UUID key) {
+    try {
+      return cache.getUnchecked(key);
+    } catch (UncheckedExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  /** Replaces the cached entity, e.g. after updating it, so it doesn't have to be fetched. */
+  public void put(T entity) {
+    if (entity != null && entity.getKey() != null) {
+      cache.put(entity.getKey(), entity);
+    }
+  }
+
+  public void invalidate(UUID key) {
+    cache.invalidate(key);
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  private T fetch(Function<UUID, T> fetcher, UUID key) throws InterruptedException {
+    if (fetchPermits != null) {
+      fetchPermits.acquire();
+    }
+    try {
+      T entity = fetcher.apply(key);
+      if (entity == null) {
+        throw new IllegalStateException("Entity " + key + " not found");
+      }
+      return entity;
+    } finally {
+      if (fetchPermits != null) {
+        fetchPermits.release();
+      }
+    }
+  }
+}
@@ -0,0 +1,264 @@
+package org.gbif.collections.sync.clients.proxy;
+
+import org.gbif.api.model.collections.CollectionEntity;
+import org.gbif.api.model.collections.Contact;
+import org.gbif.collections.sync.SyncResult.FailedAction;
+import org.gbif.collections.sync.SyncResult.FailedAction.Operation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import retrofit2.HttpException;
+
+/**
+ * Append-only journal of the actions that failed during a sync.
+ *
+ * <p>The failed actions are added to a lock-free queue and a single writer thread appends them to
+ * the file as JSON lines. The file is flushed and synced to disk periodically and when the
+ * journal is closed. The journal has to be closed when the sync finishes, the shutdown hook only
+ * covers the runs that end abruptly.
+ *
+ * <p>If the file can't be written the actions appended afterwards are rejected with an exception,
+ * so the failed actions are never lost silently.
+ */
+@Slf4j
+public class FailedActionJournal implements AutoCloseable {
+
+  public static final ObjectMapper MAPPER =
+      new ObjectMapper()
+          .registerModule(new JavaTimeModule())
+          .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+          .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  private static final long SYNC_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final Path path;
+  private final Queue<FailedActionRecord> queue = new ConcurrentLinkedQueue<>();
+  private final FileChannel channel;
+  private final BufferedWriter writer;
+  private final Thread writerThread;
+  private final Thread shutdownHook = new Thread(this::close);
+  private volatile boolean closed;
+  private volatile IOException writeError;
+
+  private FailedActionJournal(Path path) {
+    this.path = path;
+    try {
+      channel =
+          FileChannel.open(
+              path,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE,
+              StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Couldn't open failed actions journal " + path, e);
+    }
+    writer =
+        new BufferedWriter(
+            Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1));
+
+    writerThread = new Thread(this::writeLoop, "failed-actions-journal");
+    writerThread.setDaemon(true);
+    writerThread.start();
+    Runtime.getRuntime().addShutdownHook(shutdownHook);
+  }
+
+  public static FailedActionJournal open(Path path) {
+    return new FailedActionJournal(path);
+  }
+
+  public Path getPath() {
+    return path;
+  }
+
+  /** Adds a failed action to the journal. It doesn't wait for the action to be written. */
+  public void append(FailedAction failedAction, Throwable cause) {
+    append(FailedActionRecord.from(failedAction, cause));
+  }
+
+  /**
+   * Adds a record to the journal. It doesn't wait for the record to be written.
+   *
+   * @throws UncheckedIOException if the journal couldn't be written
+   * @throws IllegalStateException if the journal is closed
+   */
+  public void append(FailedActionRecord record) {
+    // the checks and the enqueue are atomic with the close and the write errors, otherwise the
+    // writer could exit after the checks and the record would be lost
+    synchronized (this) {
+      if (writeError == null && !closed) {
+        queue.add(record);
+        LockSupport.unpark(writerThread);
+        return;
+      }
+    }
+
+    if (writeError != null) {
+      log.error("Failed action not written to the journal {}: {}", path, record);
+      throw new UncheckedIOException("Couldn't write failed actions journal " + path, writeError);
+    }
+    log.error("Failed action not written to the closed journal {}: {}", path, record);
+    throw new IllegalStateException("Failed actions journal " + path + " is closed");
+  }
+
+  /** Writes all the pending actions and closes the file. */
+  @Override
+  public void close() {
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+    }
+    LockSupport.unpark(writerThread);
+    try {
+      writerThread.join(TimeUnit.SECONDS.toMillis(10));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    try {
+      Runtime.getRuntime().removeShutdownHook(shutdownHook);
+    } catch (IllegalStateException e) {
+      // it's being closed by the shutdown hook
+    }
+  }
+
+  private void writeLoop() {
+    long lastSync = System.nanoTime();
+    try {
+      while (!closed || !queue.isEmpty()) {
+        boolean written = drainQueue();
+
+        if (written && System.nanoTime() - lastSync >= SYNC_INTERVAL_NANOS) {
+          sync();
+          lastSync = System.nanoTime();
+        } else if (!written) {
+          // it's woken up when new actions are added
+          LockSupport.parkNanos(SYNC_INTERVAL_NANOS);
+        }
+      }
+      sync();
+    } catch (IOException e) {
+      synchronized (this) {
+        writeError = e;
+      }
+      log.error("Error writing the failed actions journal {}", path, e);
+      FailedActionRecord record;
+      while ((record = queue.poll()) != null) {
+        log.error("Failed action not written to the journal {}: {}", path, record);
+      }
+    } finally {
+      try {
+        writer.close();
+      } catch (IOException e) {
+        log.warn("Couldn't close the failed actions journal {}", path, e);
+      }
+    }
+  }
+
+  private boolean drainQueue() throws IOException {
+    boolean written = false;
+    FailedActionRecord record;
+    while ((record = queue.poll()) != null) {
+      writer.write(MAPPER.writeValueAsString(record));
+      writer.newLine();
+      written = true;
+    }
+    return written;
+  }
+
+  private void sync() throws IOException {
+    writer.flush();
+    channel.force(false);
+  }
+
+  /** Line of the journal. */
+  @Data
+  public static class FailedActionRecord {
+    private Instant timestamp;
+    private String entityType;
+    private String entityKey;
+    private String request;
+    private Integer httpStatus;
+    private String message;
+    // only set for the actions that can be replayed
+    private Operation operation;
+    private String targetType;
+    private String targetKey;
+    private JsonNode payload;
+
+    static FailedActionRecord from(FailedAction failedAction, Throwable cause) {
+      FailedActionRecord record = new FailedActionRecord();
+      record.setTimestamp(Instant.now());
+      record.setMessage(failedAction.getMessage());
+
+      if (failedAction.getOperation() != null) {
+        record.setOperation(failedAction.getOperation());
+        record.setTargetType(failedAction.getTargetType());
+        record.setTargetKey(failedAction.getTargetKey());
+        record.setPayload(MAPPER.valueToTree(failedAction.getEntity()));
+      }
+
+      Object entity = failedAction.getEntity();
+      if (entity != null) {
+        record.setEntityType(entity.getClass().getSimpleName());
+        record.setEntityKey(getKey(entity));
+      }
+
+      HttpException httpException = findHttpException(cause);
+      if (httpException != null) {
+        record.setHttpStatus(httpException.code());
+        if (httpException.response() != null) {
+          okhttp3.Request request = httpException.response().raw().request();
+          record.setRequest(request.method() + " " + request.url().encodedPath());
+        }
+      }
+      return record;
+    }
+
+    private static String getKey(Object entity) {
+      if (entity instanceof CollectionEntity) {
+        UUID key = ((CollectionEntity) entity).getKey();
+        return key != null ? key.toString() : null;
+      } else if (entity instanceof Contact) {
+        Integer key = ((Contact) entity).getKey();
+        return key != null ? key.toString() : null;
+      } else if (entity instanceof Number || entity instanceof UUID || entity instanceof String) {
+        return entity.toString();
+      }
+      return null;
+    }
+
+    private static HttpException findHttpException(Throwable throwable) {
+      while (throwable != null) {
+        if (throwable instanceof HttpException) {
+          return (HttpException) throwable;
+        }
+        throwable = throwable.getCause();
+      }
+      return null;
+    }
+  }
+}
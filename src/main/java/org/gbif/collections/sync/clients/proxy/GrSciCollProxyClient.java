@@ -3,6 +3,7 @@ package org.gbif.collections.sync.clients.proxy;
 import java.util.List;
 import org.gbif.api.model.collections.Collection;
 import org.gbif.api.model.collections.Institution;
+import org.gbif.collections.sync.SyncResult.FailedAction;
 import org.gbif.collections.sync.common.converter.ConvertedCollection;
 import org.gbif.api.model.collections.suggestions.CollectionChangeSuggestion;
 
@@ -17,9 +18,15 @@ public interface GrSciCollProxyClient {
 
   List<Institution> findInstitutionByName(String institutionName);
 
+  /** Returns the institutions with a name or code similar to the ones given, most similar first. */
+  List<Institution> findSimilarInstitutions(String name, String code);
+
   int createCollectionChangeSuggestion(CollectionChangeSuggestion createSuggestion);
 
   List<CollectionChangeSuggestion> getCollectionChangeSuggestion(String ihIdentifier);
 
   boolean updateCollection(Collection oldCollection, ConvertedCollection newCollection);
+
+  /** Records an action that failed, so the record is reported and synced again in the next run. */
+  void addFailedAction(FailedAction failedAction, Throwable cause);
 }
@@ -7,11 +7,17 @@ import java.util.stream.Collectors;
 import lombok.Builder;
 import lombok.Getter;
 import org.gbif.api.model.collections.Collection;
+import org.gbif.api.model.collections.CollectionEntity;
 import org.gbif.api.model.collections.Institution;
 import org.gbif.collections.sync.common.DataLoader;
+import org.gbif.collections.sync.common.RunProfiler;
 import org.gbif.collections.sync.common.converter.ConvertedCollection;
+import org.gbif.collections.sync.common.model.CollectionSummary;
+import org.gbif.collections.sync.common.model.InstitutionSummary;
 import org.gbif.collections.sync.config.IDigBioConfig;
+import org.gbif.collections.sync.config.SyncConfig.RegistryConfig;
 import org.gbif.collections.sync.idigbio.IDigBioDataLoader.IDigBioData;
+import org.gbif.collections.sync.idigbio.match.IDigBioMatchIndex;
 import org.gbif.collections.sync.idigbio.model.IDigBioRecord;
 
 @Getter
@@ -19,38 +25,61 @@ public class IDigBioProxyClient extends BaseProxyClient {
 
   private final IDigBioConfig iDigBioConfig;
   private final DataLoader<IDigBioData> dataLoader;
+  private final RunProfiler profiler;
   private List<IDigBioRecord> iDigBioRecords = new ArrayList<>();
   private Map<UUID, Institution> institutionsByKey = new HashMap<>();
   private Map<UUID, Collection> collectionsByKey = new HashMap<>();
-  private Map<UUID, Set<Collection>> collectionsByInstitution = new HashMap<>();
-  // institutions created when an IDigBio record has no match. We need to store them in order not to
-  // duplicate them. For example, the institution with code CCBER has no match and it's present
-  // multiple times because it has multiple collections.
-  private final Set<Institution> newlyCreatedIDigBioInstitutions = new HashSet<>();
+  // collections that can be matched and institutions created when an IDigBio record has no match.
+  // We need to store the institutions in order not to duplicate them. For example, the institution
+  // with code CCBER has no match and it's present multiple times because it has multiple
+  // collections.
+  private IDigBioMatchIndex matchIndex = IDigBioMatchIndex.create(null, null);
   private final Map<String, Collection> collectionsByIDigBioUuid = new HashMap<>();
+  // full entities, only used when the data was loaded as summaries
+  private EntityCache<Institution> institutionCache;
+  private EntityCache<Collection> collectionCache;
 
   @Builder
-  public IDigBioProxyClient(IDigBioConfig iDigBioConfig, DataLoader<IDigBioData> dataLoader) {
+  public IDigBioProxyClient(
+      IDigBioConfig iDigBioConfig, DataLoader<IDigBioData> dataLoader, RunProfiler profiler) {
     super(iDigBioConfig.getSyncConfig());
     this.iDigBioConfig = iDigBioConfig;
     this.dataLoader = dataLoader;
+    this.profiler = profiler != null ? profiler : RunProfiler.create("iDigBio sync");
     loadData();
   }
 
   private void loadData() {
-    IDigBioData data = dataLoader.loadData();
+    IDigBioData data = profiler.time("data load", dataLoader::loadData);
+    profiler.time("index build", () -> buildIndexes(data));
+  }
+
+  private void buildIndexes(IDigBioData data) {
     institutionsByKey =
         data.getInstitutions().stream().collect(Collectors.toMap(Institution::getKey, i -> i));
+    indexInstitutions(data.getInstitutions(), true);
     collectionsByKey =
         data.getCollections().stream().collect(Collectors.toMap(Collection::getKey, c -> c));
-    collectionsByInstitution =
-        data.getCollections().stream()
-            .filter(c -> c.getInstitutionKey() != null)
-            .collect(
-                Collectors.groupingBy(
-                    Collection::getInstitutionKey, HashMap::new, Collectors.toSet()));
+    RegistryConfig registry = iDigBioConfig.getSyncConfig().getRegistry();
+    matchIndex =
+        IDigBioMatchIndex.create(
+            data.getCollections(), registry != null ? registry.getWsUser() : null);
     this.iDigBioRecords = data.getIDigBioRecords();
 
+    if (data.isProjected() && grSciCollHttpClient != null) {
+      RegistryConfig registryConfig = iDigBioConfig.getSyncConfig().getRegistry();
+      institutionCache =
+          new EntityCache<>(
+              grSciCollHttpClient::getInstitution,
+              registryConfig.getEntityCacheSize(),
+              registryConfig.getMaxConcurrentCalls());
+      collectionCache =
+          new EntityCache<>(
+              grSciCollHttpClient::getCollection,
+              registryConfig.getEntityCacheSize(),
+              registryConfig.getMaxConcurrentCalls());
+    }
+
     // map collections by the iDigBio UUID machine tag
     data.getCollections().stream()
         .filter(o -> o.getMachineTags() != null)
@@ -69,6 +98,30 @@ public class IDigBioProxyClient extends BaseProxyClient {
                         }));
   }
 
+  /**
+   * Returns the full institution. If it was loaded as a summary it's fetched from the registry the
+   * first time it's requested.
+   */
+  public Institution getFullInstitution(Institution institution) {
+    Institution loaded = institutionsByKey.get(institution.getKey());
+    if (loaded == null) {
+      return institution;
+    }
+    return institutionCache != null ? institutionCache.get(institution.getKey()) : loaded;
+  }
+
+  /**
+   * Returns the full collection. If it was loaded as a summary it's fetched from the registry the
+   * first time it's requested.
+   */
+  public Collection getFullCollection(Collection collection) {
+    Collection loaded = collectionsByKey.get(collection.getKey());
+    if (loaded == null) {
+      return collection;
+    }
+    return collectionCache != null ? collectionCache.get(collection.getKey()) : loaded;
+  }
+
   @Override
   public boolean updateCollection(Collection oldCollection, ConvertedCollection newCollection) {
     boolean updated = super.updateCollection(oldCollection, newCollection);
@@ -95,30 +148,60 @@ public class IDigBioProxyClient extends BaseProxyClient {
   }
 
   private void updateCollectionInMemory(Collection oldCollection, Collection newCollection) {
-    Collection updatedCollection = collectionHandler.get(newCollection);
+    Collection updatedCollection;
+    if (collectionCache != null) {
+      // the written entity replaces the cached one instead of fetching it again
+      refreshCache(collectionCache, oldCollection.getKey(), newCollection);
+      updatedCollection = CollectionSummary.from(newCollection).toCollection();
+    } else {
+      callExecutor.awaitPendingCalls(newCollection.getKey());
+      updatedCollection = collectionHandler.get(newCollection);
+    }
+
     if (updatedCollection != null && updatedCollection.getKey() != null) {
       collectionsByKey.put(oldCollection.getKey(), updatedCollection);
-
-      if (updatedCollection.getInstitutionKey() != null
-          && collectionsByInstitution.containsKey(oldCollection.getInstitutionKey())) {
-        Set<Collection> collectionsInInstitution =
-            collectionsByInstitution.get(updatedCollection.getInstitutionKey());
-        collectionsInInstitution.removeIf(c -> c.getKey().equals(oldCollection.getKey()));
-        collectionsInInstitution.add(updatedCollection);
-      }
+      matchIndex.updateCollection(oldCollection.getKey(), updatedCollection);
     }
   }
 
   public void updateInstitutionInMemory(Institution newInstitution) {
-    Institution institution = institutionHandler.get(newInstitution);
+    Institution institution;
+    if (institutionCache != null) {
+      refreshCache(institutionCache, newInstitution.getKey(), newInstitution);
+      institution = InstitutionSummary.from(newInstitution).toInstitution();
+    } else {
+      callExecutor.awaitPendingCalls(newInstitution.getKey());
+      institution = institutionHandler.get(newInstitution);
+    }
+
     if (institution != null && institution.getKey() != null) {
       institutionsByKey.put(institution.getKey(), institution);
     }
   }
 
+  private <T extends CollectionEntity> void refreshCache(
+      EntityCache<T> cache, UUID key, T newEntity) {
+    if (key == null) {
+      return;
+    }
+
+    // the identifiers and machine tags just added have no key yet, so the entity has to be fetched
+    // again if it's needed. Otherwise they would be added again in the next update
+    boolean hasNewSubEntities =
+        newEntity.getIdentifiers().stream().anyMatch(i -> i.getKey() == null)
+            || newEntity.getMachineTags().stream().anyMatch(mt -> mt.getKey() == null);
+    if (hasNewSubEntities || !key.equals(newEntity.getKey())) {
+      // the sub-entities are added in the background, the entity is fetched when they are added
+      callExecutor.awaitPendingCalls(newEntity.getKey());
+      cache.invalidate(key);
+    } else {
+      cache.put(newEntity);
+    }
+  }
+
   public void addNewlyCreatedIDigBioInstitution(Institution institution) {
     if (institution != null) {
-      newlyCreatedIDigBioInstitutions.add(institution);
+      matchIndex.addNewInstitution(institution);
     }
   }
 }
@@ -2,15 +2,21 @@ package org.gbif.collections.sync.clients.proxy;
 
 import org.gbif.api.model.collections.Collection;
 import org.gbif.api.model.collections.Institution;
+import org.gbif.api.model.collections.suggestions.CollectionChangeSuggestion;
 import org.gbif.collections.sync.common.DataLoader;
+import org.gbif.collections.sync.common.RunProfiler;
 import org.gbif.collections.sync.config.IHConfig;
 import org.gbif.collections.sync.ih.IHDataLoader.IHData;
 import org.gbif.collections.sync.ih.model.IHInstitution;
 import org.gbif.collections.sync.ih.model.IHStaff;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
 import lombok.Builder;
@@ -23,25 +29,36 @@ public class IHProxyClient extends BaseProxyClient {
 
   private final DataLoader<IHData> dataLoader;
   private final IHConfig ihConfig;
+  private final RunProfiler profiler;
   private List<IHInstitution> ihInstitutions;
   private Map<String, List<IHInstitution>> ihInstitutionsMapByIrn;
   private Map<String, Set<Institution>> institutionsMapByIrn;
   private Map<String, Set<Collection>> collectionsMapByIrn;
   private Map<String, List<IHStaff>> ihStaffMapByCode;
   private List<String> countries;
+  // null if the change suggestions weren't loaded
+  private Map<String, List<CollectionChangeSuggestion>> changeSuggestionsByIhIdentifier;
 
   @Builder
-  private IHProxyClient(IHConfig ihConfig, DataLoader<IHData> dataLoader) {
+  private IHProxyClient(
+      IHConfig ihConfig, DataLoader<IHData> dataLoader, RunProfiler profiler) {
     super(ihConfig.getSyncConfig());
     this.ihConfig = ihConfig;
     this.dataLoader = dataLoader;
+    this.profiler = profiler != null ? profiler : RunProfiler.create("IH sync");
     loadData();
   }
 
   private void loadData() {
-    IHData data = dataLoader.loadData();
+    IHData data = profiler.time("data load", dataLoader::loadData);
+    profiler.time("index build", () -> buildIndexes(data));
+  }
+
+  private void buildIndexes(IHData data) {
     ihInstitutions = data.getIhInstitutions();
     institutionsMapByIrn = mapByIrn(data.getInstitutions());
+    // only the IH institutions are loaded, the rest are also needed to find duplicates
+    indexAllInstitutions(data.getInstitutions());
     collectionsMapByIrn = mapByIrn(data.getCollections());
     ihStaffMapByCode =
         data.getIhStaff().stream()
@@ -50,5 +67,37 @@ public class IHProxyClient extends BaseProxyClient {
     countries = data.getCountries();
     ihInstitutionsMapByIrn =
         ihInstitutions.stream().collect(Collectors.groupingBy(IHInstitution::getIrn));
+    if (data.getChangeSuggestions() != null) {
+      changeSuggestionsByIhIdentifier = new ConcurrentHashMap<>();
+      data.getChangeSuggestions().stream()
+          .filter(s -> s.getIhIdentifier() != null)
+          .forEach(this::addChangeSuggestionInMemory);
+    }
+  }
+
+  @Override
+  public List<CollectionChangeSuggestion> getCollectionChangeSuggestion(String ihIdentifier) {
+    if (changeSuggestionsByIhIdentifier == null) {
+      return super.getCollectionChangeSuggestion(ihIdentifier);
+    }
+    return new ArrayList<>(
+        changeSuggestionsByIhIdentifier.getOrDefault(ihIdentifier, Collections.emptyList()));
+  }
+
+  @Override
+  public int createCollectionChangeSuggestion(CollectionChangeSuggestion createSuggestion) {
+    int key = super.createCollectionChangeSuggestion(createSuggestion);
+    // a failed creation is journaled to be replayed later, so it's also kept in order not to
+    // create it again in this run
+    if (changeSuggestionsByIhIdentifier != null && createSuggestion.getIhIdentifier() != null) {
+      addChangeSuggestionInMemory(createSuggestion);
+    }
+    return key;
+  }
+
+  private void addChangeSuggestionInMemory(CollectionChangeSuggestion suggestion) {
+    changeSuggestionsByIhIdentifier
+        .computeIfAbsent(suggestion.getIhIdentifier(), k -> new CopyOnWriteArrayList<>())
+        .add(suggestion);
   }
 }
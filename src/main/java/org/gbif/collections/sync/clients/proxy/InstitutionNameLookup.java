@@ -0,0 +1,141 @@
+package org.gbif.collections.sync.clients.proxy;
+
+import org.gbif.api.model.collections.Institution;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Finds the institutions by name without querying the registry for each name.
+ *
+ * <p>The names are normalized and looked up in the institutions loaded by the sync. If they aren't
+ * all the institutions of GrSciColl, the names of all of them are fetched in bulk the first time a
+ * name is not found. If that fetch fails the registry is queried by name and the responses are kept
+ * in a bounded cache. The errors of these queries are thrown and never cached, otherwise a failed
+ * query would be taken as a name that doesn't exist and the institution would be duplicated.
+ */
+@Slf4j
+public class InstitutionNameLookup {
+
+  private final Map<String, List<Institution>> institutionsByName = new HashMap<>();
+  private final Map<UUID, String> namesByKey = new HashMap<>();
+  private final Function<String, List<Institution>> remoteLookup;
+  private final Supplier<List<Institution>> bulkFetcher;
+  private final Cache<String, List<Institution>> remoteLookupCache;
+  private boolean complete;
+  private boolean bulkFetchAttempted;
+
+  /**
+   * @param remoteLookup lookup of the institutions with a name in the registry. It has to throw an
+   *     exception if the lookup fails
+   * @param bulkFetcher fetches all the institutions of the registry. It can be null
+   * @param cacheSize max number of names whose remote lookups are cached
+   */
+  public InstitutionNameLookup(
+      Function<String, List<Institution>> remoteLookup,
+      Supplier<List<Institution>> bulkFetcher,
+      long cacheSize) {
+    this.remoteLookup = remoteLookup;
+    this.bulkFetcher = bulkFetcher;
+    this.remoteLookupCache = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+  }
+
+  /**
+   * Adds the institutions loaded by the sync.
+   *
+   * @param complete true if they are all the institutions of the registry, so the names not found
+   *     don't need to be looked up remotely
+   */
+  public synchronized void addAll(
+      java.util.Collection<Institution> institutions, boolean complete) {
+    if (institutions != null) {
+      institutions.forEach(this::put);
+    }
+    this.complete |= complete;
+  }
+
+  /** Adds or replaces an institution, e.g. after the sync creates or updates it. */
+  public synchronized void put(Institution institution) {
+    String name = normalize(institution.getName());
+    if (institution.getKey() != null) {
+      String previousName = namesByKey.remove(institution.getKey());
+      if (previousName != null) {
+        List<Institution> sameName = institutionsByName.get(previousName);
+        sameName.removeIf(i -> institution.getKey().equals(i.getKey()));
+        if (sameName.isEmpty()) {
+          institutionsByName.remove(previousName);
+        }
+      }
+      if (name != null) {
+        namesByKey.put(institution.getKey(), name);
+      }
+    }
+
+    if (name != null) {
+      institutionsByName.computeIfAbsent(name, k -> new ArrayList<>()).add(institution);
+      // the remote lookup of the name is outdated now
+      remoteLookupCache.invalidate(name);
+    }
+  }
+
+  public List<Institution> find(String name) {
+    String normalizedName = normalize(name);
+    if (normalizedName == null) {
+      return new ArrayList<>();
+    }
+
+    synchronized (this) {
+      if (!complete && !bulkFetchAttempted && bulkFetcher != null) {
+        fetchAll();
+      }
+
+      List<Institution> institutions = institutionsByName.get(normalizedName);
+      if (institutions != null) {
+        return new ArrayList<>(institutions);
+      }
+      if (complete) {
+        return new ArrayList<>();
+      }
+    }
+
+    List<Institution> cached = remoteLookupCache.getIfPresent(normalizedName);
+    if (cached != null) {
+      return new ArrayList<>(cached);
+    }
+
+    List<Institution> institutions = remoteLookup.apply(name);
+    if (institutions == null) {
+      institutions = new ArrayList<>();
+    }
+    remoteLookupCache.put(normalizedName, institutions);
+    return new ArrayList<>(institutions);
+  }
+
+  /** Lower case name with the spaces normalized. Null if the name is blank. */
+  static String normalize(String name) {
+    return StringUtils.isBlank(name) ? null : StringUtils.normalizeSpace(name).toLowerCase();
+  }
+
+  private void fetchAll() {
+    bulkFetchAttempted = true;
+    try {
+      List<Institution> institutions = bulkFetcher.get();
+      // the institutions already loaded are kept since they can have more fields
+      institutions.stream().filter(i -> !namesByKey.containsKey(i.getKey())).forEach(this::put);
+      complete = true;
+      log.info("Fetched the names of {} institutions", institutions.size());
+    } catch (Exception e) {
+      log.warn("Couldn't fetch the names of all the institutions, they'll be looked up by name", e);
+    }
+  }
+}
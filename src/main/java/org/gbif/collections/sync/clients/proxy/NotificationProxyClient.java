@@ -13,7 +13,7 @@ public class NotificationProxyClient {
   private NotificationProxyClient(SyncConfig config) {
     this.callExecutor = CallExecutor.getInstance(config);
     if (config != null && config.isSendNotifications()) {
-      githubClient = GithubClient.getInstance(config.getNotification());
+      githubClient = GithubClient.getInstance(config.getNotification(), config.getHttp());
     }
   }
 
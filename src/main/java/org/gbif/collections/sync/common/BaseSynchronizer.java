@@ -4,6 +4,7 @@ import com.google.common.annotations.VisibleForTesting;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
 import org.gbif.api.model.collections.Collection;
 import org.gbif.api.model.collections.Contact;
 import org.gbif.api.model.collections.Institution;
@@ -18,6 +19,9 @@ import org.gbif.collections.sync.common.converter.EntityConverter;
 import org.gbif.collections.sync.common.match.MatchResult;
 import org.gbif.collections.sync.common.match.StaffResultHandler;
 
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 public abstract class BaseSynchronizer<S, R> {
 
   protected final GrSciCollProxyClient proxyClient;
@@ -139,15 +143,45 @@ public abstract class BaseSynchronizer<S, R> {
     if (!proxyClient.getCollectionChangeSuggestion(ihIdentifiers.get(0)).isEmpty()) {
       return NoEntityMatch.builder().build();
     }
-    //Check if there is another institution with the same name
-    List<Institution> institutionWithSameName = proxyClient.findInstitutionByName(newInstitution.getName());
+    //Look for possible duplicates among the institutions loaded
+    List<Institution> similarInstitutions =
+        proxyClient.findSimilarInstitutions(newInstitution.getName(), newInstitution.getCode());
+    //Check if there is another institution with the same name. The registry is only queried if
+    //none of the similar ones has it
+    List<Institution> institutionWithSameName = similarInstitutions.stream()
+        .filter(i -> hasSameName(i, newInstitution))
+        .collect(Collectors.toList());
+    if (institutionWithSameName.isEmpty()) {
+      try {
+        institutionWithSameName = proxyClient.findInstitutionByName(newInstitution.getName());
+      } catch (RuntimeException e) {
+        //Without knowing if the name exists the suggestion could duplicate an institution, so it's
+        //skipped and the record is synced again in the next run
+        log.warn("Couldn't look up the institutions with name {}", newInstitution.getName(), e);
+        proxyClient.addFailedAction(
+            new FailedAction(
+                newInstitution, "Failed to look up institutions by name: " + e.getMessage()),
+            e);
+        return NoEntityMatch.builder().build();
+      }
+    }
     //If not, we should create a suggestion with the option of creating an institution suggestion
+    NoEntityMatch noEntityMatch;
     if (institutionWithSameName.isEmpty()) {
-      return createAndSuggestCollection(matchResult, newInstitution, ihIdentifiers, true);
+      noEntityMatch = createAndSuggestCollection(matchResult, newInstitution, ihIdentifiers, true);
+      noEntityMatch.setDuplicateCandidates(similarInstitutions);
     }
     else {
-      return createAndSuggestCollection(matchResult, institutionWithSameName.get(0), ihIdentifiers, false);
+      noEntityMatch = createAndSuggestCollection(matchResult, institutionWithSameName.get(0), ihIdentifiers, false);
     }
+    return noEntityMatch;
+  }
+
+  private static boolean hasSameName(Institution institution, Institution other) {
+    return institution.getName() != null
+        && other.getName() != null
+        && StringUtils.normalizeSpace(institution.getName())
+            .equalsIgnoreCase(StringUtils.normalizeSpace(other.getName()));
   }
 
   @VisibleForTesting
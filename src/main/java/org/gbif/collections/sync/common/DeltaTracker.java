@@ -0,0 +1,208 @@
+package org.gbif.collections.sync.common;
+
+import org.gbif.api.model.collections.CollectionEntity;
+import org.gbif.collections.sync.config.SyncConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.common.base.Strings;
+import com.google.common.hash.Hashing;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps track of the source records that changed since the last successful sync.
+ *
+ * <p>A state file stores a watermark, a hash of the content of every source record synced and the
+ * modified dates that the writes of the sync left in the GrSciColl entities. The watermark is the
+ * latest modified date of the GrSciColl entities loaded in the last successful run, so it comes
+ * from the registry clock and not from the local one. A record has to be synced again if its hash
+ * changed or if any of the GrSciColl entities linked to it was modified after the watermark by
+ * someone else than the sync. If there is no state file configured, there is no previous state or
+ * a full sync was requested all the records are synced.
+ */
+@Slf4j
+public class DeltaTracker {
+
+  private static final ObjectMapper MAPPER =
+      new ObjectMapper()
+          .registerModule(new JavaTimeModule())
+          .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+          .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  private final Path stateFile;
+  private final boolean dryRun;
+  private final DeltaState previousState;
+  private final Instant runStart = Instant.now();
+  private final Map<String, String> currentHashes = new ConcurrentHashMap<>();
+  // modified dates of the GrSciColl entities loaded, before the sync writes them
+  private final Map<UUID, Instant> loadedModified = new ConcurrentHashMap<>();
+
+  private DeltaTracker(SyncConfig syncConfig) {
+    this.stateFile =
+        syncConfig != null && !Strings.isNullOrEmpty(syncConfig.getDeltaStateFile())
+            ? Paths.get(syncConfig.getDeltaStateFile())
+            : null;
+    this.dryRun = syncConfig == null || syncConfig.isDryRun();
+
+    if (stateFile != null && !syncConfig.isFullSync()) {
+      previousState = readState(stateFile);
+    } else {
+      previousState = null;
+    }
+
+    if (previousState != null) {
+      log.info("Incremental sync of the changes since {}", previousState.getWatermark());
+    } else {
+      log.info("Full sync of all the records");
+    }
+  }
+
+  public static DeltaTracker create(SyncConfig syncConfig) {
+    return new DeltaTracker(syncConfig);
+  }
+
+  /**
+   * Checks if a source record has to be synced.
+   *
+   * @param key unique key of the source record
+   * @param source content of the source record. It has to be serializable to JSON.
+   * @param linkedEntities GrSciColl entities linked to the source record
+   * @return true if the record changed since the last sync or there is no previous state
+   */
+  public boolean hasChanged(
+      String key, Object source, Collection<? extends CollectionEntity> linkedEntities) {
+    String hash = hash(source);
+    currentHashes.put(key, hash);
+    if (linkedEntities != null) {
+      linkedEntities.stream()
+          .filter(e -> e.getKey() != null && e.getModified() != null)
+          .forEach(e -> loadedModified.putIfAbsent(e.getKey(), e.getModified().toInstant()));
+    }
+
+    if (previousState == null) {
+      return true;
+    }
+
+    if (!Objects.equals(hash, previousState.getHashes().get(key))) {
+      return true;
+    }
+
+    Date watermark = Date.from(previousState.getWatermark());
+    return linkedEntities != null
+        && linkedEntities.stream()
+            .anyMatch(
+                e ->
+                    e.getModified() == null
+                        || (e.getModified().after(watermark)
+                            && !e.getModified()
+                                .toInstant()
+                                .equals(previousState.getSyncedModified().get(e.getKey()))));
+  }
+
+  /**
+   * Stores the new state so the next run only syncs the changes since this one. Nothing is stored
+   * in dry runs.
+   */
+  public void save() {
+    save(Collections::emptyList);
+  }
+
+  /**
+   * Stores the new state so the next run only syncs the changes since this one. Nothing is stored
+   * in dry runs.
+   *
+   * @param writtenEntities supplies the GrSciColl entities written by the sync as they are in the
+   *     registry after the writes. They are only fetched if the state is stored.
+   */
+  public void save(Supplier<Collection<? extends CollectionEntity>> writtenEntities) {
+    if (stateFile == null || dryRun) {
+      return;
+    }
+
+    Map<UUID, Instant> syncedModified = new HashMap<>();
+    writtenEntities.get().stream()
+        .filter(e -> e.getKey() != null && e.getModified() != null)
+        .forEach(e -> syncedModified.put(e.getKey(), e.getModified().toInstant()));
+
+    DeltaState state = new DeltaState();
+    state.setWatermark(watermark(syncedModified));
+    state.setHashes(new HashMap<>(currentHashes));
+    state.setSyncedModified(syncedModified);
+
+    try {
+      Path parent = stateFile.toAbsolutePath().getParent();
+      Files.createDirectories(parent);
+      Path tmpFile = Files.createTempFile(parent, stateFile.getFileName().toString(), ".tmp");
+      MAPPER.writeValue(tmpFile.toFile(), state);
+      Files.move(tmpFile, stateFile, StandardCopyOption.REPLACE_EXISTING);
+      log.info("Delta state saved with watermark {}", state.getWatermark());
+    } catch (IOException e) {
+      // the next run will do a full sync
+      log.error("Couldn't save the delta state to {}", stateFile, e);
+    }
+  }
+
+  /**
+   * The watermark is the latest modified date of the entities loaded, which comes from the registry
+   * clock. The entities written by the sync are left out because they can be seen after the
+   * writes, e.g. the IDigBio sync refreshes them in its cache. If no entities were loaded the
+   * previous watermark is kept.
+   */
+  private Instant watermark(Map<UUID, Instant> syncedModified) {
+    return loadedModified.entrySet().stream()
+        .filter(e -> !syncedModified.containsKey(e.getKey()))
+        .map(Map.Entry::getValue)
+        .max(Instant::compareTo)
+        .orElse(previousState != null ? previousState.getWatermark() : runStart);
+  }
+
+  private static DeltaState readState(Path stateFile) {
+    if (!Files.exists(stateFile)) {
+      return null;
+    }
+
+    try {
+      DeltaState state = MAPPER.readValue(stateFile.toFile(), DeltaState.class);
+      return state != null && state.getWatermark() != null ? state : null;
+    } catch (IOException e) {
+      log.warn("Couldn't read the delta state from {}. Doing a full sync", stateFile, e);
+      return null;
+    }
+  }
+
+  private static String hash(Object source) {
+    try {
+      return Hashing.murmur3_128().hashBytes(MAPPER.writeValueAsBytes(source)).toString();
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Couldn't serialize the source record", e);
+    }
+  }
+
+  @Data
+  static class DeltaState {
+    private Instant watermark;
+    private Map<String, String> hashes = new HashMap<>();
+    private Map<UUID, Instant> syncedModified = new HashMap<>();
+  }
+}
@@ -0,0 +1,208 @@
+package org.gbif.collections.sync.common;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.Data;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Collects the latency and outcome of the HTTP calls of a run, keyed by client, method, endpoint
+ * template and response status. It also keeps gauges for other values of the run, like the
+ * number of retries.
+ */
+@Slf4j
+public class MetricsRegistry {
+
+  private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+  private static final ObjectMapper MAPPER =
+      new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+  private final ConcurrentMap<CallKey, Timer> timers = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+  MetricsRegistry() {}
+
+  /** Registry shared by all the clients of the run. */
+  public static MetricsRegistry getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Records a call.
+   *
+   * @param status response status, 0 if the call failed with an IO error
+   * @param bytes bytes sent and received, if known
+   */
+  public void recordCall(
+      String client, String method, String endpoint, int status, long durationNanos, long bytes) {
+    timers
+        .computeIfAbsent(new CallKey(client, method, endpoint, status), k -> new Timer())
+        .record(durationNanos, bytes);
+  }
+
+  /**
+   * Adds bytes to a call already recorded, e.g. the bytes of a response body, which are only known
+   * once it's read.
+   */
+  public void recordBytes(String client, String method, String endpoint, int status, long bytes) {
+    timers
+        .computeIfAbsent(new CallKey(client, method, endpoint, status), k -> new Timer())
+        .addBytes(bytes);
+  }
+
+  /** Registers a value that is read when the metrics are reported. */
+  public void gauge(String name, LongSupplier supplier) {
+    gauges.put(name, supplier);
+  }
+
+  /** Returns the stats of the calls sorted by total time, the most expensive first. */
+  public List<CallStats> getCallStats() {
+    List<CallStats> stats = new ArrayList<>();
+    timers.forEach((k, t) -> stats.add(t.snapshot(k)));
+    stats.sort(Comparator.comparingLong(CallStats::getTotalMillis).reversed());
+    return stats;
+  }
+
+  public Map<String, Long> getGauges() {
+    Map<String, Long> values = new TreeMap<>();
+    gauges.forEach((k, v) -> values.put(k, v.getAsLong()));
+    return values;
+  }
+
+  public boolean isEmpty() {
+    return timers.isEmpty() && gauges.isEmpty();
+  }
+
+  /** Writes the metrics as JSON to the given file. */
+  public void writeJson(Path path) {
+    Report report = new Report();
+    report.setCalls(getCallStats());
+    report.setGauges(getGauges());
+    try {
+      MAPPER.writeValue(path.toFile(), report);
+      log.info("Metrics written to {}", path);
+    } catch (IOException e) {
+      log.warn("Couldn't write the metrics to {}", path, e);
+    }
+  }
+
+  public void clear() {
+    timers.clear();
+    gauges.clear();
+  }
+
+  @Value
+  private static class CallKey {
+    String client;
+    String method;
+    String endpoint;
+    int status;
+  }
+
+  /**
+   * Keeps a uniform sample of the durations in a reservoir of fixed size, so the memory doesn't
+   * grow with the number of calls. The percentiles are exact until the reservoir is full and
+   * estimated from the sample afterwards. The count, total and max are always exact.
+   */
+  private static class Timer {
+    private static final int RESERVOIR_SIZE = 1024;
+
+    private final long[] reservoir = new long[RESERVOIR_SIZE];
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+    private long bytes;
+
+    synchronized void record(long durationNanos, long bytes) {
+      if (count < RESERVOIR_SIZE) {
+        reservoir[(int) count] = durationNanos;
+      } else {
+        // each duration is kept with probability size/count
+        long index = ThreadLocalRandom.current().nextLong(count + 1);
+        if (index < RESERVOIR_SIZE) {
+          reservoir[(int) index] = durationNanos;
+        }
+      }
+      count++;
+      totalNanos += durationNanos;
+      maxNanos = Math.max(maxNanos, durationNanos);
+      addBytes(bytes);
+    }
+
+    synchronized void addBytes(long bytes) {
+      if (bytes > 0) {
+        this.bytes += bytes;
+      }
+    }
+
+    synchronized CallStats snapshot(CallKey key) {
+      long[] sorted = Arrays.copyOf(reservoir, (int) Math.min(count, RESERVOIR_SIZE));
+      Arrays.sort(sorted);
+
+      CallStats stats = new CallStats();
+      stats.setClient(key.getClient());
+      stats.setMethod(key.getMethod());
+      stats.setEndpoint(key.getEndpoint());
+      stats.setStatus(key.getStatus());
+      stats.setCount(count);
+      stats.setTotalMillis(toMillis(totalNanos));
+      stats.setMeanMillis(count > 0 ? toMillis(totalNanos / count) : 0);
+      stats.setP50Millis(toMillis(percentile(sorted, 0.5)));
+      stats.setP95Millis(toMillis(percentile(sorted, 0.95)));
+      stats.setP99Millis(toMillis(percentile(sorted, 0.99)));
+      stats.setMaxMillis(toMillis(maxNanos));
+      stats.setBytes(bytes);
+      return stats;
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+      if (sorted.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(percentile * sorted.length) - 1;
+      return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static long toMillis(long nanos) {
+      return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+  }
+
+  /** Stats of the calls of an endpoint with the same response status. */
+  @Data
+  public static class CallStats {
+    private String client;
+    private String method;
+    private String endpoint;
+    private int status;
+    private long count;
+    private long totalMillis;
+    private long meanMillis;
+    private long p50Millis;
+    private long p95Millis;
+    private long p99Millis;
+    private long maxMillis;
+    private long bytes;
+  }
+
+  @Data
+  private static class Report {
+    private List<CallStats> calls;
+    private Map<String, Long> gauges;
+  }
+}
@@ -0,0 +1,92 @@
+package org.gbif.collections.sync.common;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Logs periodically the progress of a run: processed records, rate, estimated time left and
+ * failures so far. The last line is logged when it's closed.
+ */
+@Slf4j
+public class ProgressReporter implements AutoCloseable {
+
+  private final String name;
+  private final long total;
+  private final LongSupplier failures;
+  private final AtomicLong processed = new AtomicLong();
+  private final long startNanos = System.nanoTime();
+  private final ScheduledExecutorService scheduler;
+
+  private ProgressReporter(String name, long total, Duration interval, LongSupplier failures) {
+    this.name = name;
+    this.total = total;
+    this.failures = failures;
+
+    if (interval != null && !interval.isZero() && !interval.isNegative()) {
+      scheduler =
+          Executors.newSingleThreadScheduledExecutor(
+              new ThreadFactoryBuilder().setNameFormat(name + "-progress").setDaemon(true).build());
+      scheduler.scheduleAtFixedRate(
+          this::logProgress, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    } else {
+      scheduler = null;
+    }
+  }
+
+  /**
+   * Creates a reporter that logs every interval. A null or zero interval only logs when it's
+   * closed.
+   */
+  public static ProgressReporter start(
+      String name, long total, Duration interval, LongSupplier failures) {
+    return new ProgressReporter(name, total, interval, failures);
+  }
+
+  public void increment() {
+    processed.incrementAndGet();
+  }
+
+  public long getProcessed() {
+    return processed.get();
+  }
+
+  String progressLine() {
+    long done = processed.get();
+    double elapsedSeconds = Math.max(System.nanoTime() - startNanos, 1) / 1e9;
+    double rate = done / elapsedSeconds;
+    String eta = rate > 0 ? formatSeconds((long) ((total - done) / rate)) : "unknown";
+    return String.format(
+        "%s progress: %d/%d (%.1f%%), %.2f records/s, ETA %s, %d failures",
+        name,
+        done,
+        total,
+        total > 0 ? done * 100.0 / total : 100.0,
+        rate,
+        eta,
+        failures.getAsLong());
+  }
+
+  private void logProgress() {
+    log.info(progressLine());
+  }
+
+  private static String formatSeconds(long seconds) {
+    return String.format("%d:%02d:%02d", seconds / 3600, (seconds % 3600) / 60, seconds % 60);
+  }
+
+  @Override
+  public void close() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+    logProgress();
+  }
+}
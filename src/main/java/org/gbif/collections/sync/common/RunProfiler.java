@@ -0,0 +1,103 @@
+package org.gbif.collections.sync.common;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Times the phases of a sync run. A phase can be timed several times, e.g. the matching of each
+ * record, and its durations are accumulated, so phases run in parallel can add up to more than
+ * the wall time of the run. The durations are accumulated in nanoseconds so the phases timed many
+ * times in less than a millisecond don't add up to 0.
+ */
+@Slf4j
+public class RunProfiler {
+
+  private final String name;
+  private final long startNanos = System.nanoTime();
+  private final Map<String, PhaseStats> phases = new LinkedHashMap<>();
+
+  private RunProfiler(String name) {
+    this.name = name;
+  }
+
+  public static RunProfiler create(String name) {
+    return new RunProfiler(name);
+  }
+
+  public <T> T time(String phase, Supplier<T> execution) {
+    long start = System.nanoTime();
+    try {
+      return execution.get();
+    } finally {
+      record(phase, System.nanoTime() - start);
+    }
+  }
+
+  public void time(String phase, Runnable execution) {
+    time(
+        phase,
+        () -> {
+          execution.run();
+          return null;
+        });
+  }
+
+  public synchronized void record(String phase, long durationNanos) {
+    PhaseStats stats = phases.computeIfAbsent(phase, PhaseStats::new);
+    stats.setCount(stats.getCount() + 1);
+    stats.setTotalNanos(stats.getTotalNanos() + durationNanos);
+  }
+
+  /** Returns the phases in the order they were first timed. */
+  public synchronized List<PhaseStats> getPhases() {
+    List<PhaseStats> copy = new ArrayList<>();
+    phases.values().forEach(p -> copy.add(new PhaseStats(p.getPhase(), p.count, p.totalNanos)));
+    return copy;
+  }
+
+  public long getElapsedMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+  }
+
+  /** Logs the breakdown of the phases and adds it to the gauges of the metrics registry. */
+  public void report(MetricsRegistry metricsRegistry) {
+    long elapsed = getElapsedMillis();
+    StringBuilder sb = new StringBuilder();
+    sb.append(name).append(" phases (total ").append(elapsed).append(" ms):");
+    for (PhaseStats p : getPhases()) {
+      long totalMillis = p.getTotalMillis();
+      sb.append(String.format("%n  %-40s %10d ms %8d times", p.getPhase(), totalMillis, p.count));
+      metricsRegistry.gauge("phase." + p.getPhase() + ".millis", () -> totalMillis);
+    }
+    metricsRegistry.gauge("phase.total.millis", () -> elapsed);
+    log.info(sb.toString());
+  }
+
+  @Data
+  public static class PhaseStats {
+    private final String phase;
+    private long count;
+    private long totalNanos;
+
+    PhaseStats(String phase) {
+      this.phase = phase;
+    }
+
+    PhaseStats(String phase, long count, long totalNanos) {
+      this.phase = phase;
+      this.count = count;
+      this.totalNanos = totalNanos;
+    }
+
+    public long getTotalMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(totalNanos);
+    }
+  }
+}
@@ -0,0 +1,216 @@
+package org.gbif.collections.sync.common;
+
+import org.gbif.api.vocabulary.Country;
+import org.gbif.collections.sync.config.SyncConfig.SnapshotConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.google.common.base.Strings;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Disk-backed store of the data downloaded from the source WSs.
+ *
+ * <p>Each source is stored in its own gzipped JSON file and a manifest keeps when each of them was
+ * fetched. If a snapshot is younger than the max age configured it's reused instead of calling the
+ * WS. Neither the registry nor IH return validators (ETag or Last-Modified) in their list
+ * endpoints, so the freshness is based on the fetch time. A frozen store never refreshes the
+ * snapshots, which allows to replay a run against the same data.
+ *
+ * <p>The data of the registry is the target of the sync, so its snapshots are only reused in dry
+ * runs or when the store is frozen. Otherwise a run repeated after another one that wrote to the
+ * registry would match against stale data and create the same entities again.
+ */
+@Slf4j
+public class SnapshotStore {
+
+  private static final String MANIFEST_FILE = "manifest.json";
+  private static final String SNAPSHOT_EXTENSION = ".json.gz";
+
+  private static final ObjectMapper MAPPER = createMapper();
+
+  private final Path directory;
+  private final Duration maxAge;
+  private final boolean frozen;
+  private final boolean dryRun;
+
+  private SnapshotStore(SnapshotConfig config, boolean dryRun) {
+    this.directory =
+        config != null && !Strings.isNullOrEmpty(config.getDirectory())
+            ? Paths.get(config.getDirectory())
+            : null;
+    this.maxAge = config != null ? Duration.ofHours(config.getMaxAgeHours()) : Duration.ZERO;
+    this.frozen = config != null && config.isFrozen();
+    this.dryRun = dryRun;
+  }
+
+  public static SnapshotStore create(SnapshotConfig config) {
+    return create(config, false);
+  }
+
+  /**
+   * Creates a store.
+   *
+   * @param dryRun true if the sync doesn't write to the registry, then its snapshots can be reused
+   */
+  public static SnapshotStore create(SnapshotConfig config, boolean dryRun) {
+    return new SnapshotStore(config, dryRun);
+  }
+
+  /**
+   * Loads data of the registry. The snapshot is only reused in dry runs or if the store is frozen,
+   * otherwise the data is fetched again and the snapshot is refreshed.
+   */
+  public <T> List<T> loadTargetState(String source, Class<T> type, Supplier<List<T>> fetcher) {
+    if (directory == null || dryRun || frozen) {
+      return load(source, type, fetcher);
+    }
+
+    List<T> data = fetcher.get();
+    writeSnapshot(source, directory.resolve(source + SNAPSHOT_EXTENSION), data);
+    return data;
+  }
+
+  /**
+   * Returns the snapshot of the source if it's still valid. Otherwise, it uses the fetcher to get
+   * the data from the WS and stores it in a new snapshot.
+   */
+  public <T> List<T> load(String source, Class<T> type, Supplier<List<T>> fetcher) {
+    if (directory == null) {
+      return fetcher.get();
+    }
+
+    ManifestEntry entry = readManifest().get(source);
+    Path snapshotFile = directory.resolve(source + SNAPSHOT_EXTENSION);
+    if (entry != null && Files.exists(snapshotFile) && (frozen || !isExpired(entry))) {
+      log.info("Using snapshot of {} fetched at {}", source, entry.getFetchedAt());
+      return readSnapshot(snapshotFile, type);
+    }
+
+    if (frozen) {
+      throw new IllegalStateException("Frozen snapshot store has no snapshot for " + source);
+    }
+
+    List<T> data = fetcher.get();
+    writeSnapshot(source, snapshotFile, data);
+    return data;
+  }
+
+  private boolean isExpired(ManifestEntry entry) {
+    return entry.getFetchedAt() == null
+        || entry.getFetchedAt().plus(maxAge).isBefore(Instant.now());
+  }
+
+  private <T> List<T> readSnapshot(Path snapshotFile, Class<T> type) {
+    try (InputStream in = new GZIPInputStream(Files.newInputStream(snapshotFile))) {
+      return MAPPER.readValue(
+          in, MAPPER.getTypeFactory().constructCollectionType(List.class, type));
+    } catch (IOException e) {
+      throw new IllegalStateException("Couldn't read snapshot " + snapshotFile, e);
+    }
+  }
+
+  private synchronized <T> void writeSnapshot(String source, Path snapshotFile, List<T> data) {
+    try {
+      Files.createDirectories(directory);
+
+      // we write to a temp file first so a failed run never leaves a truncated snapshot
+      Path tmpFile = Files.createTempFile(directory, source, ".tmp");
+      try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmpFile))) {
+        MAPPER.writeValue(out, data);
+      }
+      Files.move(tmpFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+
+      ManifestEntry entry = new ManifestEntry();
+      entry.setFetchedAt(Instant.now());
+      entry.setRecords(data.size());
+      entry.setFile(snapshotFile.getFileName().toString());
+
+      Map<String, ManifestEntry> manifest = readManifest();
+      manifest.put(source, entry);
+      MAPPER.writeValue(directory.resolve(MANIFEST_FILE).toFile(), manifest);
+    } catch (IOException e) {
+      // the snapshot is only an optimization, the sync can go on without it
+      log.warn("Couldn't write snapshot of {}", source, e);
+    }
+  }
+
+  private synchronized Map<String, ManifestEntry> readManifest() {
+    Path manifestFile = directory.resolve(MANIFEST_FILE);
+    if (!Files.exists(manifestFile)) {
+      return new TreeMap<>();
+    }
+
+    try {
+      return MAPPER.readValue(
+          manifestFile.toFile(), new TypeReference<TreeMap<String, ManifestEntry>>() {});
+    } catch (IOException e) {
+      log.warn("Couldn't read snapshots manifest {}", manifestFile, e);
+      return new TreeMap<>();
+    }
+  }
+
+  private static ObjectMapper createMapper() {
+    SimpleModule module = new SimpleModule();
+    module.addSerializer(Country.class, new CountryIsoSerializer());
+    module.addDeserializer(Country.class, new CountryIsoDeserializer());
+
+    return new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .registerModule(module)
+        .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+  }
+
+  @Data
+  static class ManifestEntry {
+    private Instant fetchedAt;
+    private int records;
+    private String file;
+  }
+
+  private static class CountryIsoSerializer extends JsonSerializer<Country> {
+    @Override
+    public void serialize(Country value, JsonGenerator gen, SerializerProvider serializers)
+        throws IOException {
+      gen.writeString(value.getIso2LetterCode());
+    }
+  }
+
+  private static class CountryIsoDeserializer extends JsonDeserializer<Country> {
+    @Override
+    public Country deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+      String value = p.getText();
+      return Strings.isNullOrEmpty(value) ? Country.UNKNOWN : Country.fromIsoCode(value);
+    }
+  }
+}
@@ -3,11 +3,13 @@ package org.gbif.collections.sync.common;
 import org.gbif.api.model.collections.CollectionEntity;
 import org.gbif.api.model.registry.Identifiable;
 import org.gbif.api.model.registry.Identifier;
+import org.gbif.api.model.registry.MachineTag;
 import org.gbif.api.model.registry.MachineTaggable;
 import org.gbif.api.vocabulary.IdentifierType;
 import org.gbif.api.vocabulary.collections.Source;
 
 import java.util.*;
+import java.util.function.Consumer;
 
 import com.google.common.base.Strings;
 import lombok.AccessLevel;
@@ -44,6 +46,16 @@ public class Utils {
                         && i.getIdentifier().equals(identifier.getIdentifier()));
   }
 
+  public static boolean containsMachineTag(MachineTaggable entity, MachineTag machineTag) {
+    return entity.getMachineTags() != null
+        && entity.getMachineTags().stream()
+            .anyMatch(
+                mt ->
+                    Objects.equals(mt.getNamespace(), machineTag.getNamespace())
+                        && Objects.equals(mt.getName(), machineTag.getName())
+                        && Objects.equals(mt.getValue(), machineTag.getValue()));
+  }
+
   public static <T extends CollectionEntity & MachineTaggable> Map<String, Set<T>> mapByIrn(
       java.util.Collection<T> entities) {
     Map<String, Set<T>> mapByIrn = new HashMap<>();
@@ -66,6 +78,13 @@ public class Utils {
     return mapByIrn;
   }
 
+  /** Collects in a list all the elements that a streaming source pushes to its consumer. */
+  public static <T> List<T> streamToList(Consumer<Consumer<T>> source) {
+    List<T> result = new ArrayList<>();
+    source.accept(result::add);
+    return result;
+  }
+
   public static String removeUuidNamespace(String identifier) {
     if (Strings.isNullOrEmpty(identifier)) {
       return identifier;
@@ -3,8 +3,10 @@ package org.gbif.collections.sync.common.handler;
 import org.gbif.api.model.collections.CollectionEntity;
 import org.gbif.api.model.registry.*;
 import org.gbif.collections.sync.SyncResult.FailedAction;
+import org.gbif.collections.sync.SyncResult.FailedAction.Operation;
 import org.gbif.collections.sync.clients.http.GrSciCollHttpClient;
 import org.gbif.collections.sync.clients.proxy.CallExecutor;
+import org.gbif.collections.sync.common.Utils;
 
 import java.util.UUID;
 import java.util.function.Function;
@@ -15,10 +17,20 @@ public abstract class BaseEntityHandler<
 
   protected final CallExecutor callExecutor;
   protected GrSciCollHttpClient grSciCollHttpClient;
+  // if true the identifiers and machine tags sent in the create request are persisted by the WS
+  protected final boolean subEntitiesInCreatePayload;
 
   public BaseEntityHandler(CallExecutor callExecutor, GrSciCollHttpClient grSciCollHttpClient) {
+    this(callExecutor, grSciCollHttpClient, false);
+  }
+
+  public BaseEntityHandler(
+      CallExecutor callExecutor,
+      GrSciCollHttpClient grSciCollHttpClient,
+      boolean subEntitiesInCreatePayload) {
     this.callExecutor = callExecutor;
     this.grSciCollHttpClient = grSciCollHttpClient;
+    this.subEntitiesInCreatePayload = subEntitiesInCreatePayload;
   }
 
   @Override
@@ -27,12 +39,12 @@ public abstract class BaseEntityHandler<
       // check if we need to update the entity
       if (!newEntity.lenientEquals(oldEntity)) {
         callExecutor.executeOrAddFail(
-            () -> updateCall(newEntity), exceptionHandler(newEntity, "Failed to update entity"));
+            () -> updateCall(newEntity),
+            exceptionHandler(
+                newEntity, "Failed to update entity", Operation.UPDATE, newEntity.getKey()));
       }
-      // create subentities if needed
-      callExecutor.executeOrAddFail(
-          () -> addSubEntities(newEntity),
-          exceptionHandler(newEntity, "Failed to add identifiers and machine tags of entity"));
+      // create subentities if needed. They don't depend on the update of the entity
+      addSubEntities(newEntity, oldEntity);
 
       return true;
     }
@@ -41,24 +53,20 @@ public abstract class BaseEntityHandler<
 
   @Override
   public T create(T newEntity) {
-    T entity =
+    UUID createdKey =
         callExecutor.executeAndReturnOrAddFail(
-            () -> {
-              UUID createdKey = createCall(newEntity);
-              return getCall(createdKey);
-            },
-            exceptionHandler(newEntity, "Failed to create entity"),
-            newEntity);
-
-    // create subentities if needed
-    if (entity.getKey() != null) {
-      newEntity.setKey(entity.getKey());
-      callExecutor.executeOrAddFail(
-          () -> addSubEntities(newEntity),
-          exceptionHandler(entity, "Failed to add identifiers and machine tags of entity"));
+            () -> createCall(newEntity),
+            exceptionHandler(newEntity, "Failed to create entity", Operation.CREATE, null));
+
+    if (createdKey == null) {
+      return newEntity;
     }
 
-    return entity;
+    // the created entity is not fetched, the request plus the new key is enough for the sync
+    newEntity.setKey(createdKey);
+    addSubEntitiesAfterCreate(newEntity);
+
+    return newEntity;
   }
 
   @Override
@@ -70,12 +78,59 @@ public abstract class BaseEntityHandler<
   }
 
   protected void addSubEntities(T entity) {
+    addSubEntities(entity, null);
+  }
+
+  /**
+   * Adds the identifiers and machine tags of the entity that have no key and are not in the
+   * existing entity. Each of them is added in a separate call, so a failure only affects that
+   * sub-entity. The calls of the same entity run in order in the background, use {@link
+   * CallExecutor#awaitPendingCalls(Object)} with the entity key before fetching it again.
+   */
+  protected void addSubEntities(T entity, T existing) {
     entity.getIdentifiers().stream()
         .filter(i -> i.getKey() == null)
-        .forEach(i -> addIdentifierToEntityCall(entity.getKey(), i));
+        .filter(i -> existing == null || !Utils.containsIdentifier(existing, i))
+        .forEach(
+            i ->
+                addSubEntity(
+                    entity,
+                    i,
+                    () -> addIdentifierToEntityCall(entity.getKey(), i),
+                    "Failed to add identifier to entity",
+                    Operation.ADD_IDENTIFIER));
     entity.getMachineTags().stream()
         .filter(mt -> mt.getKey() == null)
-        .forEach(mt -> addMachineTagToEntityCall(entity.getKey(), mt));
+        .filter(mt -> existing == null || !Utils.containsMachineTag(existing, mt))
+        .forEach(
+            mt ->
+                addSubEntity(
+                    entity,
+                    mt,
+                    () -> addMachineTagToEntityCall(entity.getKey(), mt),
+                    "Failed to add machine tag to entity",
+                    Operation.ADD_MACHINE_TAG));
+  }
+
+  protected void addSubEntity(
+      T entity, Object subEntity, Runnable call, String msg, Operation operation) {
+    // the entity would be fetched without them if they were still running concurrently
+    callExecutor.executeOrAddFailAsync(
+        entity.getKey(),
+        call,
+        exceptionHandler(
+            subEntity,
+            msg + " " + entity.getKey(),
+            operation,
+            entity.getClass().getSimpleName(),
+            entity.getKey()));
+  }
+
+  /** Adds the sub-entities of a newly created entity that weren't persisted by the create call. */
+  protected void addSubEntitiesAfterCreate(T entity) {
+    if (!subEntitiesInCreatePayload) {
+      addSubEntities(entity);
+    }
   }
 
   protected abstract T getCall(UUID key);
@@ -91,4 +146,21 @@ public abstract class BaseEntityHandler<
   public Function<Throwable, FailedAction> exceptionHandler(Object obj, String msg) {
     return e -> new FailedAction(obj, msg + ": " + e.getMessage());
   }
+
+  /** Exception handler for the writes that can be replayed later. */
+  public Function<Throwable, FailedAction> exceptionHandler(
+      T entity, String msg, Operation operation, UUID targetKey) {
+    return exceptionHandler(entity, msg, operation, entity.getClass().getSimpleName(), targetKey);
+  }
+
+  protected Function<Throwable, FailedAction> exceptionHandler(
+      Object obj, String msg, Operation operation, String targetType, UUID targetKey) {
+    return e ->
+        new FailedAction(
+            obj,
+            msg + ": " + e.getMessage(),
+            operation,
+            targetType,
+            targetKey != null ? targetKey.toString() : null);
+  }
 }
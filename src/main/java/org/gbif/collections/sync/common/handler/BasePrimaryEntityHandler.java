@@ -5,6 +5,7 @@ import org.gbif.api.model.collections.MasterSourceMetadata;
 import org.gbif.api.model.registry.Identifiable;
 import org.gbif.api.model.registry.LenientEquals;
 import org.gbif.api.model.registry.MachineTaggable;
+import org.gbif.collections.sync.SyncResult.FailedAction.Operation;
 import org.gbif.collections.sync.clients.http.GrSciCollHttpClient;
 import org.gbif.collections.sync.clients.proxy.CallExecutor;
 
@@ -19,17 +20,41 @@ public abstract class BasePrimaryEntityHandler<
     super(callExecutor, grSciCollHttpClient);
   }
 
+  public BasePrimaryEntityHandler(
+      CallExecutor callExecutor,
+      GrSciCollHttpClient grSciCollHttpClient,
+      boolean subEntitiesInCreatePayload) {
+    super(callExecutor, grSciCollHttpClient, subEntitiesInCreatePayload);
+  }
+
+  @Override
+  protected void addSubEntities(T entity, T existing) {
+    super.addSubEntities(entity, existing);
+    if (existing == null || existing.getMasterSourceMetadata() == null) {
+      addMasterSourceMetadata(entity);
+    }
+  }
+
   @Override
-  protected void addSubEntities(T entity) {
-    entity.getIdentifiers().stream()
-        .filter(i -> i.getKey() == null)
-        .forEach(i -> addIdentifierToEntityCall(entity.getKey(), i));
-    entity.getMachineTags().stream()
-        .filter(mt -> mt.getKey() == null)
-        .forEach(mt -> addMachineTagToEntityCall(entity.getKey(), mt));
+  protected void addSubEntitiesAfterCreate(T entity) {
+    super.addSubEntitiesAfterCreate(entity);
+    // the master source metadata is never persisted in the create call
+    if (subEntitiesInCreatePayload) {
+      addMasterSourceMetadata(entity);
+    }
+  }
+
+  private void addMasterSourceMetadata(T entity) {
     if (entity.getMasterSourceMetadata() != null
         && entity.getMasterSourceMetadata().getKey() == null) {
-      addMasterSourceMetadataToEntityCall(entity.getKey(), entity.getMasterSourceMetadata());
+      addSubEntity(
+          entity,
+          entity.getMasterSourceMetadata(),
+          () ->
+              addMasterSourceMetadataToEntityCall(
+                  entity.getKey(), entity.getMasterSourceMetadata()),
+          "Failed to add master source metadata to entity",
+          Operation.ADD_MASTER_SOURCE_METADATA);
     }
   }
 
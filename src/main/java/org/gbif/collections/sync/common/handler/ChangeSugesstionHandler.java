@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.function.Function;
 import org.gbif.api.model.collections.suggestions.CollectionChangeSuggestion;
 import org.gbif.collections.sync.SyncResult.FailedAction;
+import org.gbif.collections.sync.SyncResult.FailedAction.Operation;
 import org.gbif.collections.sync.clients.http.GrSciCollHttpClient;
 import org.gbif.collections.sync.clients.proxy.CallExecutor;
 
@@ -33,7 +34,13 @@ public class ChangeSugesstionHandler {
   public int createCollectionChangeSuggestion(CollectionChangeSuggestion changeSuggestion) {
     return callExecutor.executeAndReturnOrAddFail(
         () -> grSciCollHttpClient.createCollectionChangeSuggestion(changeSuggestion),
-        exceptionHandler(changeSuggestion, "Failed to create change suggestion"),
+        e ->
+            new FailedAction(
+                changeSuggestion,
+                "Failed to create change suggestion: " + e.getMessage(),
+                Operation.CREATE_CHANGE_SUGGESTION,
+                CollectionChangeSuggestion.class.getSimpleName(),
+                null),
         1);
   }
 
@@ -14,19 +14,30 @@ import org.gbif.api.model.collections.MasterSourceMetadata;
 import org.gbif.api.model.collections.descriptors.DescriptorGroup;
 import org.gbif.api.model.registry.Identifier;
 import org.gbif.api.model.registry.MachineTag;
+import org.gbif.collections.sync.SyncResult.FailedAction.Operation;
 import org.gbif.collections.sync.clients.http.GrSciCollHttpClient;
 import org.gbif.collections.sync.clients.proxy.CallExecutor;
 import org.gbif.collections.sync.common.converter.ConvertedCollection;
 
 public class CollectionHandler extends BasePrimaryEntityHandler<Collection> {
 
-  private CollectionHandler(CallExecutor callExecutor, GrSciCollHttpClient grSciCollHttpClient) {
-    super(callExecutor, grSciCollHttpClient);
+  private CollectionHandler(
+      CallExecutor callExecutor,
+      GrSciCollHttpClient grSciCollHttpClient,
+      boolean subEntitiesInCreatePayload) {
+    super(callExecutor, grSciCollHttpClient, subEntitiesInCreatePayload);
   }
 
   public static CollectionHandler create(
       CallExecutor callExecutor, GrSciCollHttpClient grSciCollHttpClient) {
-    return new CollectionHandler(callExecutor, grSciCollHttpClient);
+    return new CollectionHandler(callExecutor, grSciCollHttpClient, false);
+  }
+
+  public static CollectionHandler create(
+      CallExecutor callExecutor,
+      GrSciCollHttpClient grSciCollHttpClient,
+      boolean subEntitiesInCreatePayload) {
+    return new CollectionHandler(callExecutor, grSciCollHttpClient, subEntitiesInCreatePayload);
   }
 
   @Override
@@ -122,7 +133,7 @@ public class CollectionHandler extends BasePrimaryEntityHandler<Collection> {
       DescriptorGroup descriptorGroup,
       Path descriptorFile,
       long descriptorGroupKey) {
-    callExecutor.executeOrAddFail(
+    callExecutor.executeOrAddFailAsync(
         () ->
             grSciCollHttpClient.updateCollectionDescriptorGroup(
                 collectionKey,
@@ -143,32 +154,38 @@ public class CollectionHandler extends BasePrimaryEntityHandler<Collection> {
       DescriptorGroup descriptorGroup,
       Path descriptorFile,
       String machineTagName) {
-    Long descriptorGroupKey =
-        callExecutor.executeAndReturnOrAddFail(
-            () ->
-                grSciCollHttpClient.createCollectionDescriptorGroup(
-                    collectionKey,
-                    descriptorGroup.getTitle(),
-                    descriptorGroup.getDescription(),
-                    descriptorFile),
-            exceptionHandler(
-                descriptorGroup,
-                "Couldn't create descriptor group for collection " + collectionKey),
-            null);
-
-    if (descriptorGroupKey != null) {
-      callExecutor.executeOrAddFail(
-          () ->
-              grSciCollHttpClient.addMachineTagToCollection(
-                  collectionKey,
-                  new MachineTag(IH_NS, machineTagName, String.valueOf(descriptorGroupKey))),
-          exceptionHandler(
-              descriptorGroupKey,
-              "Couldn't add machine tag for descriptor group "
-                  + descriptorGroupKey
-                  + " and collection "
-                  + collectionKey));
-    }
+    // the descriptor groups don't depend on each other so they are created concurrently
+    callExecutor.executeOrAddFailAsync(
+        () -> {
+          Long descriptorGroupKey =
+              callExecutor.executeAndReturnOrAddFail(
+                  () ->
+                      grSciCollHttpClient.createCollectionDescriptorGroup(
+                          collectionKey,
+                          descriptorGroup.getTitle(),
+                          descriptorGroup.getDescription(),
+                          descriptorFile),
+                  exceptionHandler(
+                      descriptorGroup,
+                      "Couldn't create descriptor group for collection " + collectionKey),
+                  null);
+
+          if (descriptorGroupKey != null) {
+            callExecutor.executeOrAddFail(
+                () ->
+                    grSciCollHttpClient.addMachineTagToCollection(
+                        collectionKey,
+                        new MachineTag(IH_NS, machineTagName, String.valueOf(descriptorGroupKey))),
+                exceptionHandler(
+                    descriptorGroupKey,
+                    "Couldn't add machine tag for descriptor group "
+                        + descriptorGroupKey
+                        + " and collection "
+                        + collectionKey));
+          }
+        },
+        exceptionHandler(
+            descriptorGroup, "Couldn't create descriptor group for collection " + collectionKey));
   }
 
   @Override
@@ -190,15 +207,25 @@ public class CollectionHandler extends BasePrimaryEntityHandler<Collection> {
   public Integer addContactToEntityCall(UUID entityKey, Contact contact) {
     return callExecutor.executeAndReturnOrAddFail(
         () -> grSciCollHttpClient.addContactToCollection(entityKey, contact),
-        exceptionHandler(contact, "Failed to create contact to collection " + entityKey));
+        exceptionHandler(
+            contact,
+            "Failed to create contact to collection " + entityKey,
+            Operation.ADD_CONTACT,
+            Collection.class.getSimpleName(),
+            entityKey));
   }
 
   public boolean updateContactInEntityCall(UUID entityKey, Contact oldContact, Contact newContact) {
     // check if we need to update the contact
     if (!newContact.lenientEquals(oldContact)) {
-      callExecutor.executeOrAddFail(
+      callExecutor.executeOrAddFailAsync(
           () -> grSciCollHttpClient.updateContactInCollection(entityKey, newContact),
-          exceptionHandler(newContact, "Failed to update contact in collection " + entityKey));
+          exceptionHandler(
+              newContact,
+              "Failed to update contact in collection " + entityKey,
+              Operation.UPDATE_CONTACT,
+              Collection.class.getSimpleName(),
+              entityKey));
 
       return true;
     }
@@ -206,8 +233,13 @@ public class CollectionHandler extends BasePrimaryEntityHandler<Collection> {
   }
 
   public void removeContactFromEntityCall(UUID entityKey, int contactKey) {
-    callExecutor.executeOrAddFail(
+    callExecutor.executeOrAddFailAsync(
         () -> grSciCollHttpClient.removeContactFromCollection(entityKey, contactKey),
-        exceptionHandler(contactKey, "Failed to remove contact from collection " + entityKey));
+        exceptionHandler(
+            contactKey,
+            "Failed to remove contact from collection " + entityKey,
+            Operation.REMOVE_CONTACT,
+            Collection.class.getSimpleName(),
+            entityKey));
   }
 }
@@ -7,6 +7,7 @@ import org.gbif.api.model.collections.Institution;
 import org.gbif.api.model.collections.MasterSourceMetadata;
 import org.gbif.api.model.registry.Identifier;
 import org.gbif.api.model.registry.MachineTag;
+import org.gbif.collections.sync.SyncResult.FailedAction.Operation;
 import org.gbif.collections.sync.clients.http.GrSciCollHttpClient;
 import org.gbif.collections.sync.clients.proxy.CallExecutor;
 
@@ -14,13 +15,23 @@ import java.util.UUID;
 
 public class InstitutionHandler extends BasePrimaryEntityHandler<Institution> {
 
-  private InstitutionHandler(CallExecutor callExecutor, GrSciCollHttpClient grSciCollHttpClient) {
-    super(callExecutor, grSciCollHttpClient);
+  private InstitutionHandler(
+      CallExecutor callExecutor,
+      GrSciCollHttpClient grSciCollHttpClient,
+      boolean subEntitiesInCreatePayload) {
+    super(callExecutor, grSciCollHttpClient, subEntitiesInCreatePayload);
   }
 
   public static InstitutionHandler create(
       CallExecutor callExecutor, GrSciCollHttpClient grSciCollHttpClient) {
-    return new InstitutionHandler(callExecutor, grSciCollHttpClient);
+    return new InstitutionHandler(callExecutor, grSciCollHttpClient, false);
+  }
+
+  public static InstitutionHandler create(
+      CallExecutor callExecutor,
+      GrSciCollHttpClient grSciCollHttpClient,
+      boolean subEntitiesInCreatePayload) {
+    return new InstitutionHandler(callExecutor, grSciCollHttpClient, subEntitiesInCreatePayload);
   }
 
   @Override
@@ -57,15 +68,25 @@ public class InstitutionHandler extends BasePrimaryEntityHandler<Institution> {
   public Integer addContactToEntityCall(UUID entityKey, Contact contact) {
     return callExecutor.executeAndReturnOrAddFail(
         () -> grSciCollHttpClient.addContactToInstitution(entityKey, contact),
-        exceptionHandler(contact, "Failed to create contact to institution " + entityKey));
+        exceptionHandler(
+            contact,
+            "Failed to create contact to institution " + entityKey,
+            Operation.ADD_CONTACT,
+            Institution.class.getSimpleName(),
+            entityKey));
   }
 
   public boolean updateContactInEntityCall(UUID entityKey, Contact oldContact, Contact newContact) {
     // check if we need to update the contact
     if (!newContact.lenientEquals(oldContact)) {
-      callExecutor.executeOrAddFail(
+      callExecutor.executeOrAddFailAsync(
           () -> grSciCollHttpClient.updateContactInInstitution(entityKey, newContact),
-          exceptionHandler(newContact, "Failed to update contact in institution " + entityKey));
+          exceptionHandler(
+              newContact,
+              "Failed to update contact in institution " + entityKey,
+              Operation.UPDATE_CONTACT,
+              Institution.class.getSimpleName(),
+              entityKey));
 
       return true;
     }
@@ -73,9 +94,14 @@ public class InstitutionHandler extends BasePrimaryEntityHandler<Institution> {
   }
 
   public void removeContactFromEntityCall(UUID entityKey, int contactKey) {
-    callExecutor.executeOrAddFail(
+    callExecutor.executeOrAddFailAsync(
         () -> grSciCollHttpClient.removeContactFromInstitution(entityKey, contactKey),
-        exceptionHandler(contactKey, "Failed to remove contact from institution " + entityKey));
+        exceptionHandler(
+            contactKey,
+            "Failed to remove contact from institution " + entityKey,
+            Operation.REMOVE_CONTACT,
+            Institution.class.getSimpleName(),
+            entityKey));
   }
 
   public List<Institution> listInstitutionsByName(String name) {
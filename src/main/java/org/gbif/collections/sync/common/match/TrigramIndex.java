@@ -0,0 +1,174 @@
+package org.gbif.collections.sync.common.match;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * In-memory index that finds the entities with texts similar to the ones searched. The texts are
+ * split in trigrams and compared with the Dice coefficient, so the candidates are found in memory
+ * without scanning all the entities.
+ *
+ * <p>Each entity is indexed with a list of fields, e.g. name and code, and a search only compares
+ * the fields in the same position. The score of an entity is the highest of its fields.
+ */
+public class TrigramIndex<T> {
+
+  private final double minScore;
+  private final Map<UUID, Entry<T>> entries = new HashMap<>();
+  private final Map<String, List<Posting>> postingsByTrigram = new HashMap<>();
+
+  private TrigramIndex(double minScore) {
+    this.minScore = minScore;
+  }
+
+  /**
+   * Creates an empty index.
+   *
+   * @param minScore minimum score, between 0 and 1, of the candidates returned
+   */
+  public static <T> TrigramIndex<T> create(double minScore) {
+    return new TrigramIndex<>(minScore);
+  }
+
+  /** Indexes the fields of the entity. It replaces the entity if it was already indexed. */
+  public synchronized void put(UUID key, T value, String... fields) {
+    if (key == null) {
+      return;
+    }
+    remove(key);
+
+    List<Set<String>> trigramsByField = new ArrayList<>();
+    for (int i = 0; i < fields.length; i++) {
+      Set<String> trigrams = trigrams(fields[i]);
+      trigramsByField.add(trigrams);
+      Posting posting = new Posting(key, i, trigrams.size());
+      trigrams.forEach(
+          t -> postingsByTrigram.computeIfAbsent(t, k -> new ArrayList<>()).add(posting));
+    }
+    entries.put(key, new Entry<>(value, trigramsByField));
+  }
+
+  public synchronized void remove(UUID key) {
+    Entry<T> entry = entries.remove(key);
+    if (entry == null) {
+      return;
+    }
+
+    entry.getTrigramsByField().stream()
+        .flatMap(Set::stream)
+        .distinct()
+        .forEach(
+            t -> {
+              List<Posting> postings = postingsByTrigram.get(t);
+              if (postings != null) {
+                postings.removeIf(p -> p.getKey().equals(key));
+                if (postings.isEmpty()) {
+                  postingsByTrigram.remove(t);
+                }
+              }
+            });
+  }
+
+  /**
+   * Returns the entities whose fields are similar to the ones searched, sorted by score.
+   *
+   * @param limit maximum number of candidates returned
+   * @param fields fields to search, in the same order they were indexed. Null fields are ignored
+   */
+  public synchronized List<Candidate<T>> search(int limit, String... fields) {
+    Map<UUID, Double> scores = new HashMap<>();
+    for (int i = 0; i < fields.length; i++) {
+      Set<String> query = trigrams(fields[i]);
+      if (query.isEmpty()) {
+        continue;
+      }
+
+      // counts the trigrams shared with the same field of each entity
+      Map<UUID, Integer> sharedTrigrams = new HashMap<>();
+      Map<UUID, Integer> fieldSizes = new HashMap<>();
+      for (String trigram : query) {
+        for (Posting posting : postingsByTrigram.getOrDefault(trigram, Collections.emptyList())) {
+          if (posting.getField() == i) {
+            sharedTrigrams.merge(posting.getKey(), 1, Integer::sum);
+            fieldSizes.put(posting.getKey(), posting.getSize());
+          }
+        }
+      }
+
+      sharedTrigrams.forEach(
+          (key, shared) -> {
+            double score = 2d * shared / (query.size() + fieldSizes.get(key));
+            scores.merge(key, score, Math::max);
+          });
+    }
+
+    return scores.entrySet().stream()
+        .filter(e -> e.getValue() >= minScore)
+        .sorted(Map.Entry.<UUID, Double>comparingByValue(Comparator.reverseOrder()))
+        .limit(limit)
+        .map(e -> new Candidate<>(entries.get(e.getKey()).getValue(), e.getValue()))
+        .collect(Collectors.toList());
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /** Lower case trigrams of the text without accents and punctuation, padded with spaces. */
+  static Set<String> trigrams(String text) {
+    Set<String> trigrams = new HashSet<>();
+    if (StringUtils.isBlank(text)) {
+      return trigrams;
+    }
+
+    String normalized =
+        " "
+            + StringUtils.stripAccents(text.toLowerCase())
+                .replaceAll("[^\\p{L}\\p{N}]+", " ")
+                .trim()
+            + " ";
+    if (normalized.trim().isEmpty()) {
+      return trigrams;
+    }
+
+    for (int i = 0; i + 3 <= normalized.length(); i++) {
+      trigrams.add(normalized.substring(i, i + 3));
+    }
+    return trigrams;
+  }
+
+  /** Entity found in a search and its score, between 0 and 1. */
+  @Data
+  @AllArgsConstructor
+  public static class Candidate<T> {
+    private T value;
+    private double score;
+  }
+
+  @Data
+  @AllArgsConstructor
+  private static class Entry<T> {
+    private T value;
+    private List<Set<String>> trigramsByField;
+  }
+
+  @Data
+  @AllArgsConstructor
+  private static class Posting {
+    private UUID key;
+    private int field;
+    private int size;
+  }
+}
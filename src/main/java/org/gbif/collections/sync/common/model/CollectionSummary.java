@@ -0,0 +1,64 @@
+package org.gbif.collections.sync.common.model;
+
+import org.gbif.api.model.collections.Collection;
+import org.gbif.api.model.collections.MasterSourceMetadata;
+import org.gbif.api.model.registry.Identifier;
+import org.gbif.api.model.registry.MachineTag;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import lombok.Data;
+
+/**
+ * Projection of a GrSciColl {@link Collection} with only the fields needed to match it. The rest of
+ * the fields are skipped when the responses are parsed.
+ */
+@Data
+public class CollectionSummary {
+
+  private UUID key;
+  private String code;
+  private String name;
+  private UUID institutionKey;
+  private List<Identifier> identifiers = new ArrayList<>();
+  private List<MachineTag> machineTags = new ArrayList<>();
+  private MasterSourceMetadata masterSourceMetadata;
+  private String createdBy;
+  private Date modified;
+  private Date deleted;
+
+  /** Creates a summary of the collection. */
+  public static CollectionSummary from(Collection collection) {
+    CollectionSummary summary = new CollectionSummary();
+    summary.setKey(collection.getKey());
+    summary.setCode(collection.getCode());
+    summary.setName(collection.getName());
+    summary.setInstitutionKey(collection.getInstitutionKey());
+    summary.setIdentifiers(collection.getIdentifiers());
+    summary.setMachineTags(collection.getMachineTags());
+    summary.setMasterSourceMetadata(collection.getMasterSourceMetadata());
+    summary.setCreatedBy(collection.getCreatedBy());
+    summary.setModified(collection.getModified());
+    summary.setDeleted(collection.getDeleted());
+    return summary;
+  }
+
+  /** Creates a collection with only the fields of the summary set. */
+  public Collection toCollection() {
+    Collection collection = new Collection();
+    collection.setKey(key);
+    collection.setCode(code);
+    collection.setName(name);
+    collection.setInstitutionKey(institutionKey);
+    collection.setIdentifiers(identifiers);
+    collection.setMachineTags(machineTags);
+    collection.setMasterSourceMetadata(masterSourceMetadata);
+    collection.setCreatedBy(createdBy);
+    collection.setModified(modified);
+    collection.setDeleted(deleted);
+    return collection;
+  }
+}
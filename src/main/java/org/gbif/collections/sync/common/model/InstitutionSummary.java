@@ -0,0 +1,61 @@
+package org.gbif.collections.sync.common.model;
+
+import org.gbif.api.model.collections.Institution;
+import org.gbif.api.model.collections.MasterSourceMetadata;
+import org.gbif.api.model.registry.Identifier;
+import org.gbif.api.model.registry.MachineTag;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import lombok.Data;
+
+/**
+ * Projection of a GrSciColl {@link Institution} with only the fields needed to match it. The rest
+ * of the fields are skipped when the responses are parsed.
+ */
+@Data
+public class InstitutionSummary {
+
+  private UUID key;
+  private String code;
+  private String name;
+  private List<Identifier> identifiers = new ArrayList<>();
+  private List<MachineTag> machineTags = new ArrayList<>();
+  private MasterSourceMetadata masterSourceMetadata;
+  private String createdBy;
+  private Date modified;
+  private Date deleted;
+
+  /** Creates a summary of the institution. */
+  public static InstitutionSummary from(Institution institution) {
+    InstitutionSummary summary = new InstitutionSummary();
+    summary.setKey(institution.getKey());
+    summary.setCode(institution.getCode());
+    summary.setName(institution.getName());
+    summary.setIdentifiers(institution.getIdentifiers());
+    summary.setMachineTags(institution.getMachineTags());
+    summary.setMasterSourceMetadata(institution.getMasterSourceMetadata());
+    summary.setCreatedBy(institution.getCreatedBy());
+    summary.setModified(institution.getModified());
+    summary.setDeleted(institution.getDeleted());
+    return summary;
+  }
+
+  /** Creates an institution with only the fields of the summary set. */
+  public Institution toInstitution() {
+    Institution institution = new Institution();
+    institution.setKey(key);
+    institution.setCode(code);
+    institution.setName(name);
+    institution.setIdentifiers(identifiers);
+    institution.setMachineTags(machineTags);
+    institution.setMasterSourceMetadata(masterSourceMetadata);
+    institution.setCreatedBy(createdBy);
+    institution.setModified(modified);
+    institution.setDeleted(deleted);
+    return institution;
+  }
+}
@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.Objects;
 
 import org.gbif.collections.sync.CliSyncArgs;
+import org.gbif.collections.sync.config.SyncConfig.RetryConfig;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
@@ -35,6 +36,9 @@ public class IHConfig {
   private String ihWsUrl;
   private String ihPortalUrl;
   private List<String> ihSkippedEntries = new ArrayList<>();
+  // max requests per second sent to the IH WS. 0 means no limit
+  private double ihRequestsPerSecond;
+  private RetryConfig ihRetry = new RetryConfig();
 
   public static IHConfig fromFileName(String configFileName) {
     Preconditions.checkArgument(
@@ -0,0 +1,77 @@
+package org.gbif.collections.sync.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Objects;
+
+import org.gbif.collections.sync.CliReplayArgs;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import static org.gbif.collections.sync.config.SyncConfig.validateSyncConfig;
+
+/**
+ * Config to replay the failed actions of a sync. It only uses the sync config, so the config file
+ * of the original sync can be used.
+ */
+@Getter
+@Setter
+@EqualsAndHashCode
+@Slf4j
+public class ReplayConfig {
+
+  protected static final ObjectMapper YAML_MAPPER =
+      new ObjectMapper(new YAMLFactory())
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+  protected static final ObjectReader YAML_READER = YAML_MAPPER.readerFor(ReplayConfig.class);
+
+  private SyncConfig syncConfig;
+  private String journalPath;
+
+  public static ReplayConfig fromFileName(String configFileName) {
+    Preconditions.checkArgument(
+        !Strings.isNullOrEmpty(configFileName), "Config file path is required");
+
+    File configFile = Paths.get(configFileName).toFile();
+    ReplayConfig replayConfig;
+    try {
+      replayConfig = YAML_READER.readValue(configFile);
+    } catch (IOException e) {
+      log.error("Couldn't load config from file {}", configFileName, e);
+      throw new IllegalArgumentException("Couldn't load config file");
+    }
+
+    if (replayConfig == null) {
+      throw new IllegalArgumentException("Replay Config is empty");
+    }
+
+    validateSyncConfig(replayConfig.getSyncConfig());
+
+    return replayConfig;
+  }
+
+  public static ReplayConfig fromCliArgs(CliReplayArgs args) {
+    Objects.requireNonNull(args);
+    ReplayConfig config = fromFileName(args.getConfPath());
+    if (args.getDryRun() != null) {
+      config.getSyncConfig().setDryRun(args.getDryRun());
+    }
+    config.setJournalPath(args.getJournalPath());
+
+    if (Strings.isNullOrEmpty(config.getJournalPath())) {
+      throw new IllegalArgumentException("Failed actions journal is required");
+    }
+
+    return config;
+  }
+}
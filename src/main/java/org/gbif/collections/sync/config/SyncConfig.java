@@ -21,9 +21,27 @@ public class SyncConfig {
 
   private RegistryConfig registry;
   private NotificationConfig notification;
+  private SnapshotConfig snapshot;
+  private HttpConfig http = new HttpConfig();
+  // file where the state of the last successful sync is stored. Needed for incremental syncs
+  private String deltaStateFile;
+  // if true all the records are synced even if they didn't change since the last sync
+  private boolean fullSync;
+  // number of source records whose results are handled concurrently. 1 means sequentially
+  private int parallelism = 1;
+  private ExecutorStrategy executorStrategy = ExecutorStrategy.BLOCKING;
+  // min similarity, between 0 and 1, of the institutions reported as possible duplicates of a new
+  // one
+  private double duplicateCandidateMinScore = 0.6;
+  // max number of possible duplicates reported for each new institution
+  private int maxDuplicateCandidates = 5;
+  // seconds between the progress logs of a sync. 0 only logs the progress at the end
+  private long progressIntervalSeconds = 60;
   private boolean saveResultsToFile;
   private boolean dryRun = true;
   private boolean sendNotifications;
+  // directory where the journal of the failed actions is written. The working directory if not set
+  private String failedActionsDir;
 
   @Getter
   @Setter
@@ -32,6 +50,30 @@ public class SyncConfig {
     private String wsUrl;
     private String wsUser;
     private String wsPassword;
+    // number of pages fetched at the same time when listing entities
+    private int pageFetchConcurrency = 4;
+    // max number of concurrent calls to the registry. 0 means no limit
+    private int maxConcurrentCalls = 16;
+    // max number of full entities kept in memory when only their summaries are loaded
+    private long entityCacheSize = 5_000;
+    // max number of institution names whose lookups in the registry are cached
+    private long nameLookupCacheSize = 10_000;
+    // if true the identifiers and machine tags are only sent in the create requests. Only for
+    // registries that persist them
+    private boolean createWithSubEntities;
+    // max requests per second sent to the registry. 0 means no limit
+    private double requestsPerSecond;
+    private RetryConfig retry = new RetryConfig();
+  }
+
+  @Getter
+  @Setter
+  @EqualsAndHashCode
+  public static class RetryConfig {
+    // max number of attempts of an idempotent request, including the first one
+    private int maxAttempts = 4;
+    private long initialDelayMillis = 500;
+    private long maxDelayMillis = 30_000;
   }
 
   @Getter
@@ -43,6 +85,43 @@ public class SyncConfig {
     private String githubPassword;
     private String registryPortalUrl;
     private Set<String> ghIssuesAssignees = new HashSet<>();
+    // max requests per second sent to Github, which has secondary rate limits. 0 means no limit
+    private double githubRequestsPerSecond = 1;
+  }
+
+  @Getter
+  @Setter
+  @EqualsAndHashCode
+  public static class SnapshotConfig {
+    // directory where the snapshots of the source data are stored. Disabled if not set
+    private String directory;
+    private long maxAgeHours = 24;
+    // if true the snapshots are never refreshed, useful to replay a run against the same data
+    private boolean frozen;
+  }
+
+  @Getter
+  @Setter
+  @EqualsAndHashCode
+  public static class HttpConfig {
+    // max number of idle connections kept in the pool shared by all the clients
+    private int maxIdleConnections = 32;
+    private long keepAliveSeconds = 300;
+    // max number of async requests in flight, in total and per host
+    private int maxRequests = 64;
+    private int maxRequestsPerHost = 16;
+    // if false only HTTP/1.1 is used
+    private boolean http2 = true;
+  }
+
+  /** Strategy used to execute the registry calls whose result is not needed. */
+  public enum ExecutorStrategy {
+    // the calls are executed in the calling thread
+    BLOCKING,
+    // the calls are executed in a pool of platform threads
+    CONCURRENT,
+    // the calls are executed in virtual threads if the JVM supports them
+    VIRTUAL
   }
 
   public static void processCliArgs(CliSyncArgs args, SyncConfig syncConfig) {
@@ -52,6 +131,10 @@ public class SyncConfig {
       syncConfig.setDryRun(args.getDryRun());
     }
 
+    if (args.isFullSync()) {
+      syncConfig.setFullSync(true);
+    }
+
     if (args.getSendNotifications() != null) {
       syncConfig.setSendNotifications(args.getSendNotifications());
     }
@@ -4,6 +4,10 @@ import org.gbif.api.model.collections.Collection;
 import org.gbif.api.model.collections.Institution;
 import org.gbif.collections.sync.clients.http.GrSciCollHttpClient;
 import org.gbif.collections.sync.common.DataLoader;
+import org.gbif.collections.sync.common.RunProfiler;
+import org.gbif.collections.sync.common.SnapshotStore;
+import org.gbif.collections.sync.common.model.CollectionSummary;
+import org.gbif.collections.sync.common.model.InstitutionSummary;
 import org.gbif.collections.sync.config.IDigBioConfig;
 import org.gbif.collections.sync.idigbio.IDigBioDataLoader.IDigBioData;
 import org.gbif.collections.sync.idigbio.model.IDigBioRecord;
@@ -13,6 +17,8 @@ import java.nio.file.Paths;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JavaType;
@@ -23,37 +29,75 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import static org.gbif.collections.sync.common.Utils.streamToList;
+
 @Slf4j
 public class IDigBioDataLoader implements DataLoader<IDigBioData> {
 
   private final IDigBioConfig iDigBioConfig;
   private final GrSciCollHttpClient grSciCollHttpClient;
+  private final SnapshotStore snapshotStore;
+  private final RunProfiler profiler;
 
-  private IDigBioDataLoader(IDigBioConfig iDigBioConfig) {
+  private IDigBioDataLoader(IDigBioConfig iDigBioConfig, RunProfiler profiler) {
     this.iDigBioConfig = iDigBioConfig;
     grSciCollHttpClient =
-        GrSciCollHttpClient.getInstance(iDigBioConfig.getSyncConfig().getRegistry());
+        GrSciCollHttpClient.getInstance(
+            iDigBioConfig.getSyncConfig().getRegistry(), iDigBioConfig.getSyncConfig().getHttp());
+    snapshotStore =
+        SnapshotStore.create(
+            iDigBioConfig.getSyncConfig().getSnapshot(), iDigBioConfig.getSyncConfig().isDryRun());
+    this.profiler = profiler;
   }
 
   public static IDigBioDataLoader create(IDigBioConfig iDigBioConfig) {
-    return new IDigBioDataLoader(iDigBioConfig);
+    return create(iDigBioConfig, RunProfiler.create("iDigBio data load"));
+  }
+
+  /** Creates a loader that times the load of each source in the given profiler. */
+  public static IDigBioDataLoader create(IDigBioConfig iDigBioConfig, RunProfiler profiler) {
+    return new IDigBioDataLoader(iDigBioConfig, profiler);
   }
 
   public IDigBioData loadData() {
     Objects.requireNonNull(grSciCollHttpClient);
 
+    // only the summaries are loaded, the full entities are fetched when they are matched
     CompletableFuture<List<Institution>> institutionsFuture =
-        CompletableFuture.supplyAsync(grSciCollHttpClient::getInstitutions);
+        CompletableFuture.supplyAsync(
+            () ->
+                loadTargetState(
+                        "grscicoll-institution-summaries",
+                        InstitutionSummary.class,
+                        () -> streamToList(grSciCollHttpClient::streamInstitutionSummaries))
+                    .stream()
+                    .map(InstitutionSummary::toInstitution)
+                    .collect(Collectors.toList()));
     CompletableFuture<List<Collection>> collectionsFuture =
-        CompletableFuture.supplyAsync(grSciCollHttpClient::getCollections);
+        CompletableFuture.supplyAsync(
+            () ->
+                loadTargetState(
+                        "grscicoll-collection-summaries",
+                        CollectionSummary.class,
+                        () -> streamToList(grSciCollHttpClient::streamCollectionSummaries))
+                    .stream()
+                    .map(CollectionSummary::toCollection)
+                    .collect(Collectors.toList()));
     CompletableFuture<List<IDigBioRecord>> iDigBioRecordsFuture =
-        CompletableFuture.supplyAsync(() -> readIDigBioRecords(iDigBioConfig));
+        CompletableFuture.supplyAsync(
+            () -> profiler.time("load idigbio-export", () -> readIDigBioRecords(iDigBioConfig)));
 
     log.info("Loading data from WSs");
     CompletableFuture.allOf(institutionsFuture, collectionsFuture, iDigBioRecordsFuture).join();
 
     return new IDigBioData(
-        institutionsFuture.join(), collectionsFuture.join(), iDigBioRecordsFuture.join());
+        institutionsFuture.join(), collectionsFuture.join(), iDigBioRecordsFuture.join(), true);
+  }
+
+  private <T> List<T> loadTargetState(
+      String source, Class<T> type, Supplier<List<T>> fetcher) {
+    return profiler.time(
+        "load " + source, () -> snapshotStore.loadTargetState(source, type, fetcher));
   }
 
   private List<IDigBioRecord> readIDigBioRecords(IDigBioConfig config) {
@@ -81,5 +125,14 @@ public class IDigBioDataLoader implements DataLoader<IDigBioData> {
     List<Institution> institutions;
     List<Collection> collections;
     List<IDigBioRecord> iDigBioRecords;
+    // true if the entities only have the fields of their summaries
+    boolean projected;
+
+    public IDigBioData(
+        List<Institution> institutions,
+        List<Collection> collections,
+        List<IDigBioRecord> iDigBioRecords) {
+      this(institutions, collections, iDigBioRecords, false);
+    }
   }
 }
@@ -1,12 +1,19 @@
 package org.gbif.collections.sync.idigbio;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import org.gbif.collections.sync.SyncResult;
 import org.gbif.collections.sync.clients.proxy.IDigBioProxyClient;
 import org.gbif.collections.sync.common.BaseSynchronizer;
 import org.gbif.collections.sync.common.DataLoader;
+import org.gbif.collections.sync.common.DeltaTracker;
+import org.gbif.collections.sync.common.MetricsRegistry;
+import org.gbif.collections.sync.common.ProgressReporter;
+import org.gbif.collections.sync.common.RunProfiler;
 import org.gbif.collections.sync.config.IDigBioConfig;
+import org.gbif.collections.sync.config.SyncConfig;
 import org.gbif.collections.sync.idigbio.IDigBioDataLoader.IDigBioData;
 import org.gbif.collections.sync.idigbio.match.IDigBioMatchResult;
 import org.gbif.collections.sync.idigbio.match.IDigBioStaffMatchResultHandler;
@@ -22,6 +29,8 @@ public class IDigBioSynchronizer extends BaseSynchronizer<IDigBioRecord, IDigBio
 
   private final IDigBioProxyClient iDigBioPoxyClient;
   private final IDigBioIssueNotifier issueNotifier;
+  private final DeltaTracker deltaTracker;
+  private final RunProfiler profiler;
 
   private IDigBioSynchronizer(
       IDigBioProxyClient proxyClient,
@@ -30,16 +39,23 @@ public class IDigBioSynchronizer extends BaseSynchronizer<IDigBioRecord, IDigBio
     super(proxyClient, staffResultHandler, entityConverter);
     this.iDigBioPoxyClient = proxyClient;
     this.issueNotifier = IDigBioIssueNotifier.getInstance(proxyClient.getIDigBioConfig());
+    this.deltaTracker = DeltaTracker.create(proxyClient.getIDigBioConfig().getSyncConfig());
+    this.profiler = proxyClient.getProfiler();
   }
 
   @Builder
   public static IDigBioSynchronizer create(
       IDigBioConfig iDigBioConfig, DataLoader<IDigBioData> dataLoader) {
+    RunProfiler profiler = RunProfiler.create("iDigBio sync");
     if (dataLoader == null) {
-      dataLoader = IDigBioDataLoader.create(iDigBioConfig);
+      dataLoader = IDigBioDataLoader.create(iDigBioConfig, profiler);
     }
     IDigBioProxyClient proxyClient =
-        IDigBioProxyClient.builder().dataLoader(dataLoader).iDigBioConfig(iDigBioConfig).build();
+        IDigBioProxyClient.builder()
+            .dataLoader(dataLoader)
+            .iDigBioConfig(iDigBioConfig)
+            .profiler(profiler)
+            .build();
 
     return new IDigBioSynchronizer(
         proxyClient,
@@ -49,23 +65,74 @@ public class IDigBioSynchronizer extends BaseSynchronizer<IDigBioRecord, IDigBio
 
   public SyncResult sync() {
     log.info("Starting the sync");
-    List<IDigBioRecord> records = iDigBioPoxyClient.getIDigBioRecords();
+    List<IDigBioRecord> records =
+        iDigBioPoxyClient.getIDigBioRecords().stream()
+            .filter(r -> !isInvalidRecord(r))
+            .collect(Collectors.toList());
     Matcher matcher = new Matcher(iDigBioPoxyClient);
     SyncResult.SyncResultBuilder resultBuilder = SyncResult.builder();
-    records.stream()
-        .filter(r -> !isInvalidRecord(r))
-        .map(matcher::match)
-        .forEach(m -> handleResult(m, resultBuilder));
 
+    try (ProgressReporter progress =
+        ProgressReporter.start(
+            "iDigBio sync",
+            records.size(),
+            progressInterval(iDigBioPoxyClient.getIDigBioConfig().getSyncConfig()),
+            iDigBioPoxyClient::getFailedActionsCount)) {
+      for (IDigBioRecord record : records) {
+        IDigBioMatchResult match = profiler.time("match", () -> matcher.match(record));
+        boolean changed =
+            profiler.time(
+                "delta check",
+                () ->
+                    deltaTracker.hasChanged(
+                        getKey(match.getSource()), match.getSource(), match.getLoadedMatches()));
+        if (changed) {
+          profiler.time("apply", () -> handleResult(match, resultBuilder));
+        }
+        progress.increment();
+      }
+
+      profiler.time("await pending calls", iDigBioPoxyClient::awaitPendingCalls);
+    }
+    iDigBioPoxyClient.drainFailedActions().forEach(resultBuilder::failedAction);
     SyncResult syncResult = resultBuilder.build();
 
     if (syncResult.getInvalidEntities() != null && !syncResult.getInvalidEntities().isEmpty()) {
-      issueNotifier.createInvalidEntitiesIssue(syncResult.getInvalidEntities());
+      profiler.time(
+          "notifications",
+          () -> issueNotifier.createInvalidEntitiesIssue(syncResult.getInvalidEntities()));
+    }
+    iDigBioPoxyClient.closeFailedActionsJournal();
+
+    // the failed records have to be synced again in the next run
+    if (iDigBioPoxyClient.hasFailedActions()) {
+      log.warn("Delta state not saved because there were failed actions");
+    } else {
+      profiler.time(
+          "delta save", () -> deltaTracker.save(iDigBioPoxyClient::fetchWrittenEntities));
     }
 
+    profiler.report(MetricsRegistry.getInstance());
     return syncResult;
   }
 
+  private static Duration progressInterval(SyncConfig syncConfig) {
+    return syncConfig != null ? Duration.ofSeconds(syncConfig.getProgressIntervalSeconds()) : null;
+  }
+
+  private static String getKey(IDigBioRecord record) {
+    if (!Strings.isNullOrEmpty(record.getCollectionUuid())) {
+      return record.getCollectionUuid();
+    }
+    // some records don't have UUID so we use all the fields that identify them
+    return String.join(
+        "|",
+        String.valueOf(record.getInstitutionCode()),
+        String.valueOf(record.getInstitution()),
+        String.valueOf(record.getCollectionCode()),
+        String.valueOf(record.getCollection()));
+  }
+
   private void handleResult(
       IDigBioMatchResult matchResult, SyncResult.SyncResultBuilder syncResultBuilder) {
     if (matchResult.onlyOneCollectionMatch()) {
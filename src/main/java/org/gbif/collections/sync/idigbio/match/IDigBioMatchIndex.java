@@ -0,0 +1,141 @@
+package org.gbif.collections.sync.idigbio.match;
+
+import org.gbif.api.model.collections.Collection;
+import org.gbif.api.model.collections.Institution;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import com.google.common.base.Strings;
+
+/**
+ * In-memory index of the GrSciColl entities that the iDigBio records can be matched to. It's built
+ * once when the data is loaded and updated as the sync creates and updates entities, so the
+ * candidates of a record are found by lookups instead of scanning all the entities.
+ *
+ * <p>Only the collections that weren't created by the sync user can be matched. The name
+ * signatures of the collections are computed once and reused for all the records.
+ */
+public class IDigBioMatchIndex {
+
+  private final String syncUser;
+  // matchable collections by institution key and code
+  private final Map<UUID, Map<String, List<Collection>>> collectionsByInstitutionAndCode =
+      new HashMap<>();
+  private final Map<UUID, Collection> collectionsByKey = new HashMap<>();
+  private final Map<UUID, NameSignature> nameSignaturesByCollection = new HashMap<>();
+  // institutions created by the sync, by code
+  private final Map<String, List<Institution>> newInstitutionsByCode = new HashMap<>();
+
+  private IDigBioMatchIndex(String syncUser) {
+    this.syncUser = syncUser;
+  }
+
+  /**
+   * Creates the index of the collections.
+   *
+   * @param syncUser user of the sync, the collections created by it are not indexed
+   */
+  public static IDigBioMatchIndex create(
+      java.util.Collection<Collection> collections, String syncUser) {
+    IDigBioMatchIndex index = new IDigBioMatchIndex(syncUser);
+    if (collections != null) {
+      collections.forEach(index::addCollection);
+    }
+    return index;
+  }
+
+  public synchronized void addCollection(Collection collection) {
+    if (collection == null || collection.getKey() == null || !isMatchable(collection)) {
+      return;
+    }
+
+    removeCollection(collection.getKey());
+    collectionsByKey.put(collection.getKey(), collection);
+    collectionsByInstitutionAndCode
+        .computeIfAbsent(collection.getInstitutionKey(), k -> new HashMap<>())
+        .computeIfAbsent(Strings.nullToEmpty(collection.getCode()), k -> new ArrayList<>())
+        .add(collection);
+  }
+
+  /** Replaces the indexed version of a collection. */
+  public synchronized void updateCollection(UUID key, Collection updatedCollection) {
+    removeCollection(key);
+    addCollection(updatedCollection);
+  }
+
+  public synchronized void addNewInstitution(Institution institution) {
+    if (institution != null && institution.getCode() != null) {
+      newInstitutionsByCode
+          .computeIfAbsent(institution.getCode(), k -> new ArrayList<>())
+          .add(institution);
+    }
+  }
+
+  /** Returns the institutions created by the sync with any of the codes. */
+  public synchronized List<Institution> getNewInstitutions(List<String> codes) {
+    return codes.stream()
+        .distinct()
+        .flatMap(c -> newInstitutionsByCode.getOrDefault(c, Collections.emptyList()).stream())
+        .collect(Collectors.toList());
+  }
+
+  /** Returns the matchable collections of the institution. */
+  public synchronized List<Collection> getCollections(UUID institutionKey) {
+    return collectionsByInstitutionAndCode
+        .getOrDefault(institutionKey, Collections.emptyMap())
+        .values()
+        .stream()
+        .flatMap(List::stream)
+        .collect(Collectors.toList());
+  }
+
+  /** Returns the matchable collections of the institution with any of the codes. */
+  public synchronized List<Collection> getCollections(UUID institutionKey, List<String> codes) {
+    Map<String, List<Collection>> collectionsByCode =
+        collectionsByInstitutionAndCode.getOrDefault(institutionKey, Collections.emptyMap());
+    return codes.stream()
+        .distinct()
+        .flatMap(c -> collectionsByCode.getOrDefault(c, Collections.emptyList()).stream())
+        .collect(Collectors.toList());
+  }
+
+  public synchronized NameSignature getNameSignature(Collection collection) {
+    if (collection.getKey() == null) {
+      return NameSignature.of(collection.getName());
+    }
+    return nameSignaturesByCollection.computeIfAbsent(
+        collection.getKey(), k -> NameSignature.of(collection.getName()));
+  }
+
+  private void removeCollection(UUID key) {
+    Collection indexed = collectionsByKey.remove(key);
+    nameSignaturesByCollection.remove(key);
+    if (indexed == null) {
+      return;
+    }
+
+    Map<String, List<Collection>> collectionsByCode =
+        collectionsByInstitutionAndCode.get(indexed.getInstitutionKey());
+    if (collectionsByCode != null) {
+      String code = Strings.nullToEmpty(indexed.getCode());
+      List<Collection> collections = collectionsByCode.get(code);
+      if (collections != null) {
+        collections.removeIf(c -> key.equals(c.getKey()));
+        if (collections.isEmpty()) {
+          collectionsByCode.remove(code);
+        }
+      }
+    }
+  }
+
+  private boolean isMatchable(Collection collection) {
+    // createdBy is needed for dryRun, where the created collections have no creator
+    return collection.getCreatedBy() != null && !collection.getCreatedBy().equals(syncUser);
+  }
+}
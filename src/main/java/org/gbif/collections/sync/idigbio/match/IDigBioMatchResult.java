@@ -1,12 +1,15 @@
 package org.gbif.collections.sync.idigbio.match;
 
 import org.gbif.api.model.collections.Collection;
+import org.gbif.api.model.collections.CollectionEntity;
 import org.gbif.api.model.collections.Institution;
 import org.gbif.collections.sync.clients.proxy.IDigBioProxyClient;
 import org.gbif.collections.sync.common.match.MatchResult;
 import org.gbif.collections.sync.idigbio.model.IDigBioRecord;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import lombok.Builder;
@@ -39,10 +42,7 @@ public class IDigBioMatchResult implements MatchResult<IDigBioRecord, IDigBioRec
       return Collections.singleton(institutionMatched);
     }
 
-    return Collections.singleton(
-        proxyClient
-            .getInstitutionsByKey()
-            .getOrDefault(institutionMatched.getKey(), institutionMatched));
+    return Collections.singleton(proxyClient.getFullInstitution(institutionMatched));
   }
 
   @Override
@@ -55,9 +55,21 @@ public class IDigBioMatchResult implements MatchResult<IDigBioRecord, IDigBioRec
       return Collections.singleton(collectionMatched);
     }
 
-    return Collections.singleton(
-        proxyClient
-            .getCollectionsByKey()
-            .getOrDefault(collectionMatched.getKey(), collectionMatched));
+    return Collections.singleton(proxyClient.getFullCollection(collectionMatched));
+  }
+
+  /**
+   * Returns the matches as they were loaded, without fetching the full entities. They can be used
+   * to check when they were modified.
+   */
+  public List<CollectionEntity> getLoadedMatches() {
+    List<CollectionEntity> matches = new ArrayList<>();
+    if (institutionMatched != null) {
+      matches.add(institutionMatched);
+    }
+    if (collectionMatched != null) {
+      matches.add(collectionMatched);
+    }
+    return matches;
   }
 }
@@ -14,7 +14,6 @@ import java.util.stream.Collectors;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.StringUtils;
 
 import static org.gbif.collections.sync.idigbio.IDigBioUtils.IDIGBIO_NO_CODE;
 import static org.gbif.collections.sync.idigbio.IDigBioUtils.IS_IDIGBIO_COLLECTION_UUID_MT;
@@ -24,9 +23,11 @@ import static org.gbif.collections.sync.idigbio.IDigBioUtils.getIdigbioCodes;
 public class Matcher {
 
   private final IDigBioProxyClient proxyClient;
+  private final IDigBioMatchIndex matchIndex;
 
   public Matcher(IDigBioProxyClient proxyClient) {
     this.proxyClient = proxyClient;
+    this.matchIndex = proxyClient.getMatchIndex();
   }
 
   public IDigBioMatchResult match(IDigBioRecord iDigBioRecord) {
@@ -61,11 +62,10 @@ public class Matcher {
                     .anyMatch(identifier -> identifier.getIdentifier().equals(instUniqueNameUuid));
 
     List<Institution> institutionsMatched =
-        proxyClient.getNewlyCreatedIDigBioInstitutions().stream()
+        matchIndex.getNewInstitutions(iDigBioCodes).stream()
             .filter(
                 i ->
-                    iDigBioCodes.contains(i.getCode())
-                        && i.getName().equals(iDigBioRecord.getInstitution())
+                    i.getName().equals(iDigBioRecord.getInstitution())
                         && containsIdentifier.test(i.getIdentifiers()))
             .collect(Collectors.toList());
 
@@ -87,27 +87,9 @@ public class Matcher {
       }
     }
 
-    // if no machine tags found, we try with the collections of the institution matched
-    Set<Collection> collections = proxyClient.getCollectionsByInstitution().get(institutionKey);
-    if (collections == null) {
-      return Optional.empty();
-    }
-
-    // filter the ones created by this import, we only want to match with existing ones
-    collections =
-        collections.stream()
-            .filter(
-                c ->
-                    c.getCreatedBy() != null // needed for dryRun
-                        && !c.getCreatedBy()
-                            .equals(
-                                proxyClient
-                                    .getIDigBioConfig()
-                                    .getSyncConfig()
-                                    .getRegistry()
-                                    .getWsUser()))
-            .collect(Collectors.toSet());
-
+    // if no machine tags found, we try with the collections of the institution matched. The
+    // collections created by this import are not in the index, we only want to match with existing
+    // ones
     List<String> iDigBioCodes = getIdigbioCodes(iDigBioRecord.getCollectionCode());
 
     List<Collection> matches = null;
@@ -125,10 +107,13 @@ public class Matcher {
       }
 
       String irn = iDigBioRecord.getSameAs().split("irn=")[1];
+      List<Collection> candidates =
+          iDigBioCodes.isEmpty()
+              ? matchIndex.getCollections(institutionKey)
+              : matchIndex.getCollections(institutionKey, iDigBioCodes);
       matches =
-          collections.stream()
+          candidates.stream()
               .filter(c -> countIdentifierMatches(Utils.encodeIRN(irn), c) > 0)
-              .filter(c -> iDigBioCodes.isEmpty() || iDigBioCodes.contains(c.getCode()))
               .filter(c -> c.getMachineTags().stream().noneMatch(IS_IDIGBIO_COLLECTION_UUID_MT))
               .collect(Collectors.toList());
     } else {
@@ -138,16 +123,15 @@ public class Matcher {
 
       iDigBioCodes.removeAll(getIdigbioCodes(iDigBioRecord.getInstitutionCode()));
 
+      // the identifiers are matched by containment, so they are only checked for the candidates
+      NameSignature nameSignature = NameSignature.of(iDigBioRecord.getCollection());
       Predicate<Collection> hasSomeSimilarity =
-          c -> {
-            long score = stringSimilarity(iDigBioRecord.getCollection(), c.getName());
-            score += countIdentifierMatches(iDigBioRecord.getCollectionLsid(), c);
-            return score > 0;
-          };
+          c ->
+              NameSignature.similar(nameSignature, matchIndex.getNameSignature(c))
+                  || countIdentifierMatches(iDigBioRecord.getCollectionLsid(), c) > 0;
 
       matches =
-          collections.stream()
-              .filter(c -> iDigBioCodes.contains(c.getCode()))
+          matchIndex.getCollections(institutionKey, iDigBioCodes).stream()
               .filter(hasSomeSimilarity)
               .collect(Collectors.toList());
     }
@@ -172,21 +156,7 @@ public class Matcher {
 
   @VisibleForTesting
   static long stringSimilarity(String n1, String n2) {
-    String n1Normalized = StringUtils.normalizeSpace(n1.toLowerCase());
-    String n2Normalized = StringUtils.normalizeSpace(n2.toLowerCase());
-
-    n1Normalized =
-        Arrays.stream(n1Normalized.split(" "))
-            .filter(v -> v.length() > 3)
-            .sorted()
-            .collect(Collectors.joining(" "));
-    n2Normalized =
-        Arrays.stream(n2Normalized.split(" "))
-            .filter(v -> v.length() > 3)
-            .sorted()
-            .collect(Collectors.joining(" "));
-
-    return n1Normalized.contains(n2Normalized) || n2Normalized.contains(n1Normalized) ? 1 : 0;
+    return NameSignature.similar(NameSignature.of(n1), NameSignature.of(n2)) ? 1 : 0;
   }
 
   @VisibleForTesting
@@ -0,0 +1,116 @@
+package org.gbif.collections.sync.idigbio.match;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import lombok.EqualsAndHashCode;
+
+/**
+ * Signature used to compare names: the lower case words longer than 3 characters, sorted and
+ * separated by a space. It's computed once per name so it can be reused in all the comparisons.
+ *
+ * <p>The words are located by their offsets in the name and copied once into the signature, so no
+ * string is created per word. Two signatures are compared by containment of the whole signature,
+ * not of its words, so a word can match part of another one, e.g. "phrases test" contains
+ * "phrase".
+ */
+@EqualsAndHashCode(of = "value")
+public final class NameSignature {
+
+  private static final int MIN_TOKEN_LENGTH = 4;
+
+  private final String value;
+
+  private NameSignature(String value) {
+    this.value = value;
+  }
+
+  /** Creates the signature of a name. Returns null if the name is null. */
+  public static NameSignature of(String name) {
+    if (name == null) {
+      return null;
+    }
+
+    // tokenizes in one pass instead of normalizing the spaces and splitting with a regex
+    String lowerCaseName = name.toLowerCase();
+    int[] starts = new int[lowerCaseName.length() / (MIN_TOKEN_LENGTH + 1) + 1];
+    int[] ends = new int[starts.length];
+    int count = 0;
+    int start = -1;
+    for (int i = 0; i <= lowerCaseName.length(); i++) {
+      if (i == lowerCaseName.length() || isSeparator(lowerCaseName.charAt(i))) {
+        if (start >= 0 && i - start >= MIN_TOKEN_LENGTH) {
+          // insertion sort, the names only have a few words
+          int j = count++;
+          while (j > 0 && compare(lowerCaseName, starts[j - 1], ends[j - 1], start, i) > 0) {
+            starts[j] = starts[j - 1];
+            ends[j] = ends[j - 1];
+            j--;
+          }
+          starts[j] = start;
+          ends[j] = i;
+        }
+        start = -1;
+      } else if (start < 0) {
+        start = i;
+      }
+    }
+
+    StringBuilder value = new StringBuilder(lowerCaseName.length());
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        value.append(' ');
+      }
+      value.append(lowerCaseName, starts[i], ends[i]);
+    }
+    return new NameSignature(value.toString());
+  }
+
+  /** Two names are similar if the signature of one of them contains the other. */
+  public static boolean similar(NameSignature s1, NameSignature s2) {
+    return s1 != null && s2 != null && (s1.contains(s2) || s2.contains(s1));
+  }
+
+  /**
+   * Checks if this signature contains the other one. Tokens are compared as part of the
+   * signature, so "phrases test" contains "phrase".
+   */
+  public boolean contains(NameSignature other) {
+    return value.contains(other.value);
+  }
+
+  public List<String> getTokens() {
+    return value.isEmpty()
+        ? Collections.emptyList()
+        : Collections.unmodifiableList(Arrays.asList(value.split(" ")));
+  }
+
+  public boolean isEmpty() {
+    return value.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return value;
+  }
+
+  private static boolean isSeparator(char c) {
+    // the non-breaking space is also replaced by StringUtils#normalizeSpace
+    return Character.isWhitespace(c) || c == '\u00A0';
+  }
+
+  /** Compares two regions of a string like {@link String#compareTo(String)} does. */
+  private static int compare(String s, int start1, int end1, int start2, int end2) {
+    int length1 = end1 - start1;
+    int length2 = end2 - start2;
+    for (int i = 0; i < Math.min(length1, length2); i++) {
+      char c1 = s.charAt(start1 + i);
+      char c2 = s.charAt(start2 + i);
+      if (c1 != c2) {
+        return c1 - c2;
+      }
+    }
+    return length1 - length2;
+  }
+}
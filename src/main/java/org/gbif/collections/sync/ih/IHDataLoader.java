@@ -2,9 +2,12 @@ package org.gbif.collections.sync.ih;
 
 import org.gbif.api.model.collections.Collection;
 import org.gbif.api.model.collections.Institution;
+import org.gbif.api.model.collections.suggestions.CollectionChangeSuggestion;
 import org.gbif.collections.sync.clients.http.GrSciCollHttpClient;
 import org.gbif.collections.sync.clients.http.IHHttpClient;
 import org.gbif.collections.sync.common.DataLoader;
+import org.gbif.collections.sync.common.RunProfiler;
+import org.gbif.collections.sync.common.SnapshotStore;
 import org.gbif.collections.sync.config.IHConfig;
 import org.gbif.collections.sync.ih.IHDataLoader.IHData;
 import org.gbif.collections.sync.ih.model.IHInstitution;
@@ -13,24 +16,40 @@ import org.gbif.collections.sync.ih.model.IHStaff;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import static org.gbif.collections.sync.common.Utils.streamToList;
+
 @Slf4j
 public class IHDataLoader implements DataLoader<IHData> {
 
   private final GrSciCollHttpClient grSciCollHttpClient;
   private final IHHttpClient ihHttpClient;
+  private final SnapshotStore snapshotStore;
+  private final RunProfiler profiler;
 
-  private IHDataLoader(IHConfig ihConfig) {
-    grSciCollHttpClient = GrSciCollHttpClient.getInstance(ihConfig.getSyncConfig().getRegistry());
-    ihHttpClient = IHHttpClient.getInstance(ihConfig.getIhWsUrl());
+  private IHDataLoader(IHConfig ihConfig, RunProfiler profiler) {
+    grSciCollHttpClient =
+        GrSciCollHttpClient.getInstance(
+            ihConfig.getSyncConfig().getRegistry(), ihConfig.getSyncConfig().getHttp());
+    ihHttpClient = IHHttpClient.getInstance(ihConfig);
+    snapshotStore =
+        SnapshotStore.create(
+            ihConfig.getSyncConfig().getSnapshot(), ihConfig.getSyncConfig().isDryRun());
+    this.profiler = profiler;
   }
 
   public static IHDataLoader create(IHConfig ihConfig) {
-    return new IHDataLoader(ihConfig);
+    return create(ihConfig, RunProfiler.create("IH data load"));
+  }
+
+  /** Creates a loader that times the load of each source in the given profiler. */
+  public static IHDataLoader create(IHConfig ihConfig, RunProfiler profiler) {
+    return new IHDataLoader(ihConfig, profiler);
   }
 
   public IHData loadData() {
@@ -38,15 +57,35 @@ public class IHDataLoader implements DataLoader<IHData> {
     Objects.requireNonNull(ihHttpClient);
 
     CompletableFuture<List<IHInstitution>> ihInstitutionsFuture =
-        CompletableFuture.supplyAsync(ihHttpClient::getInstitutions);
+        CompletableFuture.supplyAsync(
+            () -> load("ih-institutions", IHInstitution.class, ihHttpClient::getInstitutions));
     CompletableFuture<List<IHStaff>> ihStaffFuture =
-        CompletableFuture.supplyAsync(ihHttpClient::getStaff);
+        CompletableFuture.supplyAsync(
+            () -> load("ih-staff", IHStaff.class, ihHttpClient::getStaff));
     CompletableFuture<List<String>> countriesFuture =
-        CompletableFuture.supplyAsync(ihHttpClient::getCountries);
+        CompletableFuture.supplyAsync(
+            () -> load("ih-countries", String.class, ihHttpClient::getCountries));
     CompletableFuture<List<Institution>> institutionsFuture =
-        CompletableFuture.supplyAsync(grSciCollHttpClient::getIhInstitutions);
+        CompletableFuture.supplyAsync(
+            () ->
+                loadTargetState(
+                    "grscicoll-ih-institutions",
+                    Institution.class,
+                    () -> streamToList(grSciCollHttpClient::streamIhInstitutions)));
     CompletableFuture<List<Collection>> collectionsFuture =
-        CompletableFuture.supplyAsync(grSciCollHttpClient::getIhCollections);
+        CompletableFuture.supplyAsync(
+            () ->
+                loadTargetState(
+                    "grscicoll-ih-collections",
+                    Collection.class,
+                    () -> streamToList(grSciCollHttpClient::streamIhCollections)));
+    // the change suggestions are not snapshotted, a stale list would duplicate the suggestions
+    CompletableFuture<List<CollectionChangeSuggestion>> changeSuggestionsFuture =
+        CompletableFuture.supplyAsync(
+            () ->
+                profiler.time(
+                    "load grscicoll-change-suggestions",
+                    grSciCollHttpClient::getChangeSuggestions));
 
     log.info("Loading data from WSs");
     CompletableFuture.allOf(
@@ -54,7 +93,8 @@ public class IHDataLoader implements DataLoader<IHData> {
             ihStaffFuture,
             institutionsFuture,
             collectionsFuture,
-            countriesFuture)
+            countriesFuture,
+            changeSuggestionsFuture)
         .join();
 
     return new IHData(
@@ -62,7 +102,18 @@ public class IHDataLoader implements DataLoader<IHData> {
         collectionsFuture.join(),
         ihInstitutionsFuture.join(),
         ihStaffFuture.join(),
-        countriesFuture.join());
+        countriesFuture.join(),
+        changeSuggestionsFuture.join());
+  }
+
+  private <T> List<T> load(String source, Class<T> type, Supplier<List<T>> fetcher) {
+    return profiler.time("load " + source, () -> snapshotStore.load(source, type, fetcher));
+  }
+
+  private <T> List<T> loadTargetState(
+      String source, Class<T> type, Supplier<List<T>> fetcher) {
+    return profiler.time(
+        "load " + source, () -> snapshotStore.loadTargetState(source, type, fetcher));
   }
 
   @AllArgsConstructor
@@ -73,5 +124,16 @@ public class IHDataLoader implements DataLoader<IHData> {
     List<IHInstitution> ihInstitutions;
     List<IHStaff> ihStaff;
     List<String> countries;
+    // null if they weren't loaded, then they're requested to the registry when needed
+    List<CollectionChangeSuggestion> changeSuggestions;
+
+    public IHData(
+        List<Institution> institutions,
+        List<Collection> collections,
+        List<IHInstitution> ihInstitutions,
+        List<IHStaff> ihStaff,
+        List<String> countries) {
+      this(institutions, collections, ihInstitutions, ihStaff, countries, null);
+    }
   }
 }
@@ -87,7 +87,7 @@ public class IHEntityConverter implements EntityConverter<IHInstitution, IHStaff
 
   public static IHEntityConverter create(IHConfig config) {
     return new IHEntityConverter(
-        CountryParser.from(IHHttpClient.getInstance(config.getIhWsUrl()).getCountries()),
+        CountryParser.from(IHHttpClient.getInstance(config).getCountries()),
         IHIssueNotifier.getInstance(config));
   }
 
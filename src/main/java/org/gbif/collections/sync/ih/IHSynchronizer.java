@@ -3,9 +3,14 @@ package org.gbif.collections.sync.ih;
 import java.util.stream.Collectors;
 import org.gbif.api.model.collections.CollectionEntity;
 import org.gbif.collections.sync.SyncResult;
+import org.gbif.collections.sync.SyncResultCollector;
 import org.gbif.collections.sync.clients.proxy.IHProxyClient;
 import org.gbif.collections.sync.common.BaseSynchronizer;
 import org.gbif.collections.sync.common.DataLoader;
+import org.gbif.collections.sync.common.DeltaTracker;
+import org.gbif.collections.sync.common.MetricsRegistry;
+import org.gbif.collections.sync.common.ProgressReporter;
+import org.gbif.collections.sync.common.RunProfiler;
 import org.gbif.collections.sync.common.parsers.CountryParser;
 import org.gbif.collections.sync.common.parsers.DataParser;
 import org.gbif.collections.sync.config.IHConfig;
@@ -16,13 +21,25 @@ import org.gbif.collections.sync.ih.match.Matcher;
 import org.gbif.collections.sync.ih.model.IHInstitution;
 import org.gbif.collections.sync.ih.model.IHStaff;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.google.common.base.Strings;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
@@ -34,7 +51,10 @@ public class IHSynchronizer extends BaseSynchronizer<IHInstitution, IHStaff> {
 
   private final IHIssueNotifier issueNotifier;
   private final IHProxyClient ihProxyClient;
+  private final IHStaffMatchResultHandler staffMatchResultHandler;
   private final List<String> skippedEntries;
+  private final DeltaTracker deltaTracker;
+  private final RunProfiler profiler;
 
   private IHSynchronizer(
       IHProxyClient proxyClient,
@@ -42,18 +62,26 @@ public class IHSynchronizer extends BaseSynchronizer<IHInstitution, IHStaff> {
       IHEntityConverter entityConverter) {
     super(proxyClient, staffResultHandler, entityConverter);
     this.ihProxyClient = proxyClient;
+    this.staffMatchResultHandler = staffResultHandler;
     this.issueNotifier = IHIssueNotifier.getInstance(proxyClient.getIhConfig());
     skippedEntries = proxyClient.getIhConfig().getIhSkippedEntries();
+    deltaTracker = DeltaTracker.create(proxyClient.getIhConfig().getSyncConfig());
+    profiler = proxyClient.getProfiler();
   }
 
   @Builder
   public static IHSynchronizer create(IHConfig ihConfig, DataLoader<IHData> dataLoader) {
+    RunProfiler profiler = RunProfiler.create("IH sync");
     if (dataLoader == null) {
-      dataLoader = IHDataLoader.create(ihConfig);
+      dataLoader = IHDataLoader.create(ihConfig, profiler);
     }
 
     IHProxyClient proxyClient =
-        IHProxyClient.builder().dataLoader(dataLoader).ihConfig(ihConfig).build();
+        IHProxyClient.builder()
+            .dataLoader(dataLoader)
+            .ihConfig(ihConfig)
+            .profiler(profiler)
+            .build();
     IHEntityConverter entityConverter =
         IHEntityConverter.create(
             CountryParser.from(proxyClient.getCountries()), IHIssueNotifier.getInstance(ihConfig));
@@ -64,38 +92,151 @@ public class IHSynchronizer extends BaseSynchronizer<IHInstitution, IHStaff> {
   }
 
   public SyncResult sync() {
-    Matcher matcher = Matcher.create(ihProxyClient);
-    SyncResult.SyncResultBuilder resultBuilder = SyncResult.builder();
+    Matcher matcher = Matcher.create(ihProxyClient, staffMatchResultHandler);
+    SyncResultCollector resultCollector = new SyncResultCollector();
 
-    detectDeletedIHInstitutions();
+    profiler.time("detect deleted IH institutions", this::detectDeletedIHInstitutions);
+
+    List<IHInstitution> ihInstitutions = new ArrayList<>();
+    profiler.time(
+        "delta check",
+        () ->
+            ihProxyClient.getIhInstitutions().stream()
+                .filter(i -> !skippedEntries.contains(i.getIrn()))
+                .forEach(
+                    i -> {
+                      // validated before the delta check so the invalid institutions are reported
+                      // in every run and not only when they change
+                      if (!isValidIhInstitution(i, issueNotifier)) {
+                        resultCollector.invalidEntity(i);
+                        return;
+                      }
+
+                      // the invalid emails are also reported in every run. They are removed
+                      // before hashing the content
+                      handleInvalidEmails(i, issueNotifier);
+                      if (hasChanged(i)) {
+                        ihInstitutions.add(i);
+                      }
+                    }));
+
+    // the matching is done in memory in this thread and only the handling of the results, which
+    // calls the registry, is done in the pool
+    ExecutorService executor = createExecutor();
+    Map<UUID, CompletableFuture<Void>> lastTaskByEntity = new HashMap<>();
+    List<CompletableFuture<Void>> tasks = new ArrayList<>();
 
     // do the sync
-    log.info("Starting the sync");
-    ihProxyClient.getIhInstitutions().stream()
-        .filter(i -> !skippedEntries.contains(i.getIrn()))
-        .forEach(
+    log.info("Starting the sync of {} IH institutions", ihInstitutions.size());
+    try (ProgressReporter progress =
+        ProgressReporter.start(
+            "IH sync",
+            ihInstitutions.size(),
+            progressInterval(),
+            ihProxyClient::getFailedActionsCount)) {
+      try {
+        ihInstitutions.forEach(
             ihInstitution -> {
-              if (!isValidIhInstitution(ihInstitution, issueNotifier)) {
-                resultBuilder.invalidEntity(ihInstitution);
-                return;
-              }
+              IHMatchResult match = profiler.time("match", () -> matcher.match(ihInstitution));
 
-              handleInvalidEmails(ihInstitution,issueNotifier);
-              IHMatchResult match = matcher.match(ihInstitution);
-              handleResult(match, resultBuilder);
+              // results that write the same GrSciColl entities are handled in order
+              Runnable task =
+                  () -> {
+                    try {
+                      profiler.time("apply", () -> handleResult(match, resultCollector));
+                    } finally {
+                      progress.increment();
+                    }
+                  };
+              Set<UUID> entityKeys = getEntityKeys(match);
+              CompletableFuture<?>[] previousTasks =
+                  entityKeys.stream()
+                      .map(lastTaskByEntity::get)
+                      .filter(Objects::nonNull)
+                      .distinct()
+                      .map(t -> t.handle((r, e) -> null))
+                      .toArray(CompletableFuture[]::new);
+              CompletableFuture<Void> newTask =
+                  previousTasks.length == 0
+                      ? CompletableFuture.runAsync(task, executor)
+                      : CompletableFuture.allOf(previousTasks).thenRunAsync(task, executor);
+              entityKeys.forEach(k -> lastTaskByEntity.put(k, newTask));
+              tasks.add(newTask);
             });
 
-    SyncResult result = resultBuilder.build();
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      } finally {
+        executor.shutdown();
+      }
+
+      profiler.time("await pending calls", ihProxyClient::awaitPendingCalls);
+    }
+    ihProxyClient.drainFailedActions().forEach(resultCollector::failedAction);
+    SyncResult result = resultCollector.build();
 
     // create a notification with all the fails
     if (!result.getFailedActions().isEmpty()) {
       log.info("Creating fails notifications");
-      issueNotifier.createFailsNotification(result.getFailedActions());
+      profiler.time(
+          "notifications",
+          () -> issueNotifier.createFailsNotification(result.getFailedActions()));
+    }
+    ihProxyClient.closeFailedActionsJournal();
+
+    // the failed records have to be synced again in the next run
+    if (ihProxyClient.hasFailedActions()) {
+      log.warn("Delta state not saved because there were failed actions");
+    } else {
+      profiler.time(
+          "delta save", () -> deltaTracker.save(ihProxyClient::fetchWrittenEntities));
     }
 
+    profiler.report(MetricsRegistry.getInstance());
     return result;
   }
 
+  private boolean hasChanged(IHInstitution ihInstitution) {
+    // the staff is part of the content of the institution
+    List<Object> content =
+        Arrays.asList(
+            ihInstitution, ihProxyClient.getIhStaffMapByCode().get(ihInstitution.getCode()));
+
+    List<CollectionEntity> linkedEntities = new ArrayList<>();
+    linkedEntities.addAll(
+        ihProxyClient
+            .getInstitutionsMapByIrn()
+            .getOrDefault(ihInstitution.getIrn(), Collections.emptySet()));
+    linkedEntities.addAll(
+        ihProxyClient
+            .getCollectionsMapByIrn()
+            .getOrDefault(ihInstitution.getIrn(), Collections.emptySet()));
+
+    return deltaTracker.hasChanged(ihInstitution.getIrn(), content, linkedEntities);
+  }
+
+  /**
+   * Returns the keys of the GrSciColl entities that the handling of the match can write: the
+   * institutions and collections matched and the institutions of these collections.
+   */
+  private static Set<UUID> getEntityKeys(IHMatchResult match) {
+    Set<UUID> keys = new HashSet<>();
+    match.getInstitutionMatches().forEach(i -> keys.add(i.getKey()));
+    match
+        .getCollectionMatches()
+        .forEach(
+            c -> {
+              keys.add(c.getKey());
+              keys.add(c.getInstitutionKey());
+            });
+    keys.remove(null);
+    return keys;
+  }
+
   private void detectDeletedIHInstitutions() {
     Map<String, Set<CollectionEntity>> deletedEntities = new HashMap<>();
 
@@ -122,19 +263,33 @@ public class IHSynchronizer extends BaseSynchronizer<IHInstitution, IHStaff> {
     deletedEntities.forEach((k, v) -> issueNotifier.createIHDeletedEntityIssue(v, k));
   }
 
-  private void handleResult(
-      IHMatchResult matchResult, SyncResult.SyncResultBuilder syncResultBuilder) {
+  private Duration progressInterval() {
+    return Duration.ofSeconds(
+        ihProxyClient.getIhConfig().getSyncConfig().getProgressIntervalSeconds());
+  }
+
+  private ExecutorService createExecutor() {
+    int parallelism = ihProxyClient.getIhConfig().getSyncConfig().getParallelism();
+    if (parallelism <= 1) {
+      return MoreExecutors.newDirectExecutorService();
+    }
+
+    return Executors.newFixedThreadPool(
+        parallelism, new ThreadFactoryBuilder().setNameFormat("ih-sync-%d").build());
+  }
+
+  private void handleResult(IHMatchResult matchResult, SyncResultCollector resultCollector) {
     if (matchResult.onlyOneCollectionMatch()) {
-      syncResultBuilder.collectionOnlyMatch(handleCollectionMatch(matchResult));
+      resultCollector.collectionOnlyMatch(handleCollectionMatch(matchResult));
     } else if (matchResult.onlyOneInstitutionMatch()) {
-      syncResultBuilder.institutionOnlyMatch(handleInstitutionMatch(matchResult));
+      resultCollector.institutionOnlyMatch(handleInstitutionMatch(matchResult));
     } else if (matchResult.noMatches()) {
-      syncResultBuilder.noMatch(handleNoMatch(matchResult));
+      resultCollector.noMatch(handleNoMatch(matchResult));
     } else if (matchResult.institutionAndCollectionMatch()) {
-      syncResultBuilder.instAndCollMatch(handleInstAndCollMatch(matchResult));
+      resultCollector.instAndCollMatch(handleInstAndCollMatch(matchResult));
     } else {
       issueNotifier.createConflict(matchResult.getAllMatches(), matchResult.getSource());
-      syncResultBuilder.conflict(handleConflict(matchResult));
+      resultCollector.conflict(handleConflict(matchResult));
     }
   }
 
@@ -22,7 +22,11 @@ import org.gbif.collections.sync.ih.model.IHInstitution;
 import org.gbif.collections.sync.ih.model.IHStaff;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -56,10 +60,7 @@ public class IHStaffMatchResultHandler implements StaffResultHandler<IHInstituti
     ArrayList<Contact> contacts = new ArrayList<>();
     Set<IHStaff> ihStaffList =
         matchResult.getStaff().stream()
-            .filter(
-                s ->
-                    Strings.isNullOrEmpty(s.getCurrentStatus())
-                        || "Active".equals(s.getCurrentStatus()))
+            .filter(IHStaffMatchResultHandler::isActive)
             .collect(Collectors.toSet());
     for (IHStaff ihStaff : ihStaffList) {
       if (isInvalidIhStaff(ihStaff)) {
@@ -81,37 +82,15 @@ public class IHStaffMatchResultHandler implements StaffResultHandler<IHInstituti
       MatchResult<IHInstitution, IHStaff> matchResult, T entity) {
 
     ContactMatch.ContactMatchBuilder contactSyncBuilder = ContactMatch.builder();
-    Set<IHStaff> ihStaffList =
-        matchResult.getStaff().stream()
-            .filter(
-                s ->
-                    Strings.isNullOrEmpty(s.getCurrentStatus())
-                        || "Active".equals(s.getCurrentStatus()))
-            .collect(Collectors.toSet());
     Set<Contact> contactsCopy =
         entity.getContactPersons() != null
             ? new HashSet<>(entity.getContactPersons())
             : new HashSet<>();
-    for (IHStaff ihStaff : ihStaffList) {
-      if (isInvalidIhStaff(ihStaff)) {
-        issueNotifier.createInvalidEntity(
-            ihStaff, "Not valid person - first name is required");
-        continue;
-      }
-
-      // Check and handle invalid emails
-      handleInvalidEmails(ihStaff);
-
+    Map<String, Set<Contact>> contactsByIrn = indexContactsByIrn(entity.getContactPersons());
+    // the staff of the match result was already filtered by the matcher
+    for (IHStaff ihStaff : matchResult.getStaff()) {
       Set<Contact> contactsMatched =
-          entity.getContactPersons().stream()
-              .filter(
-                  cp ->
-                      cp.getUserIds().stream()
-                          .anyMatch(
-                              userId ->
-                                  userId.getType() == IdType.IH_IRN
-                                      && userId.getId().equals(ihStaff.getIrn())))
-              .collect(Collectors.toSet());
+          contactsByIrn.getOrDefault(ihStaff.getIrn(), Collections.emptySet());
 
       if (contactsMatched.isEmpty()) {
         // create
@@ -154,6 +133,56 @@ public class IHStaffMatchResultHandler implements StaffResultHandler<IHInstituti
     return contactSyncBuilder.build();
   }
 
+  /**
+   * Returns the active and valid staff. It creates the issues of the invalid staff and removes
+   * their invalid emails, so it's called only once per IH institution, when the match result is
+   * built, even if the staff is handled for several entities.
+   */
+  public List<IHStaff> filterValidStaff(List<IHStaff> staff) {
+    List<IHStaff> validStaff = new ArrayList<>();
+    for (IHStaff ihStaff : new LinkedHashSet<>(staff)) {
+      if (!isActive(ihStaff)) {
+        continue;
+      }
+
+      if (isInvalidIhStaff(ihStaff)) {
+        issueNotifier.createInvalidEntity(ihStaff, "Not valid person - first name is required");
+        continue;
+      }
+
+      // Check and handle invalid emails
+      handleInvalidEmails(ihStaff);
+      validStaff.add(ihStaff);
+    }
+    return validStaff;
+  }
+
+  /** Indexes the contacts by the IH IRNs of their user IDs. */
+  @VisibleForTesting
+  static Map<String, Set<Contact>> indexContactsByIrn(List<Contact> contacts) {
+    Map<String, Set<Contact>> contactsByIrn = new HashMap<>();
+    if (contacts == null) {
+      return contactsByIrn;
+    }
+
+    for (Contact contact : contacts) {
+      if (contact.getUserIds() == null) {
+        continue;
+      }
+      contact.getUserIds().stream()
+          .filter(userId -> userId.getType() == IdType.IH_IRN && userId.getId() != null)
+          .forEach(
+              userId ->
+                  contactsByIrn.computeIfAbsent(userId.getId(), k -> new HashSet<>()).add(contact));
+    }
+    return contactsByIrn;
+  }
+
+  private static boolean isActive(IHStaff ihStaff) {
+    return Strings.isNullOrEmpty(ihStaff.getCurrentStatus())
+        || "Active".equals(ihStaff.getCurrentStatus());
+  }
+
   private <T extends CollectionEntity & Contactable> void addContactToEntity(
       T entity, Contact contact) {
     if (entity instanceof Institution) {
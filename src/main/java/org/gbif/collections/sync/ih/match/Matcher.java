@@ -17,15 +17,18 @@ import lombok.AllArgsConstructor;
 public class Matcher {
 
   private final IHProxyClient proxyClient;
+  private final IHStaffMatchResultHandler staffResultHandler;
   private final CountryParser countryParser;
 
-  private Matcher(IHProxyClient proxyClient) {
+  private Matcher(IHProxyClient proxyClient, IHStaffMatchResultHandler staffResultHandler) {
     this.countryParser = CountryParser.from(proxyClient.getCountries());
     this.proxyClient = proxyClient;
+    this.staffResultHandler = staffResultHandler;
   }
 
-  public static Matcher create(IHProxyClient proxyClient) {
-    return new Matcher(proxyClient);
+  public static Matcher create(
+      IHProxyClient proxyClient, IHStaffMatchResultHandler staffResultHandler) {
+    return new Matcher(proxyClient, staffResultHandler);
   }
 
   public IHMatchResult match(IHInstitution ihInstitution) {
@@ -42,9 +45,10 @@ public class Matcher {
     return IHMatchResult.builder()
         .ihInstitution(ihInstitution)
         .ihStaff(
-            proxyClient
-                .getIhStaffMapByCode()
-                .getOrDefault(ihInstitution.getCode(), Collections.emptyList()))
+            staffResultHandler.filterValidStaff(
+                proxyClient
+                    .getIhStaffMapByCode()
+                    .getOrDefault(ihInstitution.getCode(), Collections.emptyList())))
         .institutions(institutionsMatched)
         .collections(collectionsMatched)
         .build();
@@ -0,0 +1,480 @@
+package org.gbif.collections.sync.replay;
+
+import org.gbif.api.model.collections.Collection;
+import org.gbif.api.model.collections.CollectionEntity;
+import org.gbif.api.model.collections.Contact;
+import org.gbif.api.model.collections.Contactable;
+import org.gbif.api.model.collections.Institution;
+import org.gbif.api.model.collections.MasterSourceMetadata;
+import org.gbif.api.model.collections.suggestions.CollectionChangeSuggestion;
+import org.gbif.api.model.registry.Identifiable;
+import org.gbif.api.model.registry.Identifier;
+import org.gbif.api.model.registry.LenientEquals;
+import org.gbif.api.model.registry.MachineTag;
+import org.gbif.api.model.registry.MachineTaggable;
+import org.gbif.collections.sync.SyncResult.FailedAction.Operation;
+import org.gbif.collections.sync.clients.http.GrSciCollHttpClient;
+import org.gbif.collections.sync.clients.proxy.FailedActionJournal;
+import org.gbif.collections.sync.clients.proxy.FailedActionJournal.FailedActionRecord;
+import org.gbif.collections.sync.config.ReplayConfig;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.google.common.base.Strings;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import retrofit2.HttpException;
+
+import static org.gbif.collections.sync.common.Utils.containsIdentifier;
+import static org.gbif.collections.sync.common.Utils.containsMachineTag;
+
+/**
+ * Replays the registry writes of a failed actions journal.
+ *
+ * <p>Before replaying an action it checks the current state of the registry, so the actions that
+ * were already applied are not repeated and the entities that changed after the failure are not
+ * overwritten. The actions of the same target entity are replayed in order and the rest
+ * concurrently. The actions that fail again are written to a new journal in the failed actions
+ * directory of the sync config so they can be replayed later.
+ */
+@Slf4j
+public class FailedActionReplayer {
+
+  private static final int DEFAULT_CONCURRENCY = 8;
+
+  private final GrSciCollHttpClient grSciCollHttpClient;
+  private final boolean dryRun;
+  private final int concurrency;
+  private final Path failedActionsDir;
+  private final Map<String, EntityOperations<?>> operationsByType = new HashMap<>();
+  private FailedActionJournal retryJournal;
+
+  FailedActionReplayer(
+      GrSciCollHttpClient grSciCollHttpClient,
+      boolean dryRun,
+      int concurrency,
+      Path failedActionsDir) {
+    this.grSciCollHttpClient = grSciCollHttpClient;
+    this.dryRun = dryRun;
+    this.concurrency = concurrency > 0 ? concurrency : DEFAULT_CONCURRENCY;
+    this.failedActionsDir = failedActionsDir != null ? failedActionsDir : Paths.get("");
+    operationsByType.put(Institution.class.getSimpleName(), institutionOperations());
+    operationsByType.put(Collection.class.getSimpleName(), collectionOperations());
+  }
+
+  public static FailedActionReplayer create(ReplayConfig config) {
+    return new FailedActionReplayer(
+        GrSciCollHttpClient.getInstance(
+            config.getSyncConfig().getRegistry(), config.getSyncConfig().getHttp()),
+        config.getSyncConfig().isDryRun(),
+        config.getSyncConfig().getRegistry().getMaxConcurrentCalls(),
+        !Strings.isNullOrEmpty(config.getSyncConfig().getFailedActionsDir())
+            ? Paths.get(config.getSyncConfig().getFailedActionsDir())
+            : null);
+  }
+
+  public ReplayResult replay(Path journalPath) {
+    List<FailedActionRecord> records = readRecords(journalPath);
+    log.info("Replaying {} failed actions from {}", records.size(), journalPath);
+
+    ReplayResult result = new ReplayResult();
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            concurrency, new ThreadFactoryBuilder().setNameFormat("replay-%d").build());
+    Map<String, CompletableFuture<Void>> lastTaskByTarget = new HashMap<>();
+    List<CompletableFuture<Void>> tasks = new ArrayList<>();
+    try {
+      for (FailedActionRecord record : records) {
+        Runnable task = () -> result.add(replayOrAddFail(record));
+
+        // the actions of the same target are replayed in order
+        CompletableFuture<Void> previousTask =
+            record.getTargetKey() != null ? lastTaskByTarget.get(record.getTargetKey()) : null;
+        CompletableFuture<Void> newTask =
+            previousTask == null
+                ? CompletableFuture.runAsync(task, executor)
+                : previousTask.thenRunAsync(task, executor);
+        if (record.getTargetKey() != null) {
+          lastTaskByTarget.put(record.getTargetKey(), newTask);
+        }
+        tasks.add(newTask);
+      }
+
+      CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+    } finally {
+      executor.shutdown();
+      if (retryJournal != null) {
+        retryJournal.close();
+        log.info("The actions that failed again were written to {}", retryJournal.getPath());
+        // the next replays write to a new journal
+        retryJournal = null;
+      }
+    }
+
+    log.info("Replay result: {}", result);
+    return result;
+  }
+
+  private Outcome replayOrAddFail(FailedActionRecord record) {
+    try {
+      return replay(record);
+    } catch (Exception e) {
+      log.warn("Failed to replay {}", record, e);
+      record.setMessage("Replay failed: " + e.getMessage());
+      if (e instanceof HttpException) {
+        record.setHttpStatus(((HttpException) e).code());
+      }
+      getRetryJournal().append(record);
+      return Outcome.FAILED;
+    }
+  }
+
+  private Outcome replay(FailedActionRecord record) throws IOException {
+    if (record.getOperation() == null || record.getPayload() == null) {
+      return Outcome.NOT_REPLAYABLE;
+    }
+
+    switch (record.getOperation()) {
+      case CREATE_CHANGE_SUGGESTION:
+        return replayChangeSuggestion(record);
+      case CREATE:
+      case UPDATE:
+      case ADD_SUB_ENTITIES:
+      case ADD_IDENTIFIER:
+      case ADD_MACHINE_TAG:
+      case ADD_MASTER_SOURCE_METADATA:
+      case ADD_CONTACT:
+      case UPDATE_CONTACT:
+      case REMOVE_CONTACT:
+        EntityOperations<?> operations = operationsByType.get(record.getTargetType());
+        return operations != null ? replay(record, operations) : Outcome.NOT_REPLAYABLE;
+      default:
+        return Outcome.NOT_REPLAYABLE;
+    }
+  }
+
+  private Outcome replayChangeSuggestion(FailedActionRecord record) throws IOException {
+    CollectionChangeSuggestion suggestion =
+        FailedActionJournal.MAPPER.treeToValue(
+            record.getPayload(), CollectionChangeSuggestion.class);
+
+    if (Strings.isNullOrEmpty(suggestion.getIhIdentifier())) {
+      return Outcome.NOT_REPLAYABLE;
+    }
+
+    if (!grSciCollHttpClient
+        .getChangeSuggestionsByIhIdentifier(suggestion.getIhIdentifier())
+        .isEmpty()) {
+      return Outcome.ALREADY_APPLIED;
+    }
+
+    return apply(record, () -> grSciCollHttpClient.createCollectionChangeSuggestion(suggestion));
+  }
+
+  private <
+          T extends
+              CollectionEntity & Identifiable & MachineTaggable & Contactable & LenientEquals<T>>
+      Outcome replay(FailedActionRecord record, EntityOperations<T> operations) throws IOException {
+    if (record.getOperation() == Operation.CREATE) {
+      return replayCreate(record, operations);
+    }
+
+    // without the target the action would fail again in every replay
+    UUID targetKey = parseKey(record.getTargetKey());
+    if (targetKey == null) {
+      return Outcome.NOT_REPLAYABLE;
+    }
+
+    T current = operations.getGet().apply(targetKey);
+    if (current == null || current.getDeleted() != null) {
+      return Outcome.SUPERSEDED;
+    }
+
+    switch (record.getOperation()) {
+      case UPDATE:
+        {
+          T entity = readPayload(record, operations.getType());
+          if (current.getModified() != null
+              && current.getModified().toInstant().isAfter(record.getTimestamp())) {
+            // we don't overwrite the changes done after the failure
+            return Outcome.SUPERSEDED;
+          }
+          if (entity.lenientEquals(current)) {
+            return Outcome.ALREADY_APPLIED;
+          }
+          return apply(record, () -> operations.getUpdate().accept(entity));
+        }
+      case ADD_SUB_ENTITIES:
+        {
+          T entity = readPayload(record, operations.getType());
+          List<Runnable> calls = missingSubEntitiesCalls(operations, targetKey, entity, current);
+          return calls.isEmpty()
+              ? Outcome.ALREADY_APPLIED
+              : apply(record, () -> calls.forEach(Runnable::run));
+        }
+      case ADD_IDENTIFIER:
+        {
+          Identifier identifier = readPayload(record, Identifier.class);
+          if (containsIdentifier(current, identifier)) {
+            return Outcome.ALREADY_APPLIED;
+          }
+          identifier.setKey(null);
+          return apply(record, () -> operations.getAddIdentifier().accept(targetKey, identifier));
+        }
+      case ADD_MACHINE_TAG:
+        {
+          MachineTag machineTag = readPayload(record, MachineTag.class);
+          if (containsMachineTag(current, machineTag)) {
+            return Outcome.ALREADY_APPLIED;
+          }
+          machineTag.setKey(null);
+          return apply(record, () -> operations.getAddMachineTag().accept(targetKey, machineTag));
+        }
+      case ADD_MASTER_SOURCE_METADATA:
+        {
+          MasterSourceMetadata metadata = readPayload(record, MasterSourceMetadata.class);
+          if (current.getMasterSourceMetadata() != null) {
+            return Outcome.ALREADY_APPLIED;
+          }
+          metadata.setKey(null);
+          return apply(
+              record, () -> operations.getAddMasterSourceMetadata().accept(targetKey, metadata));
+        }
+      case ADD_CONTACT:
+        {
+          Contact contact = readPayload(record, Contact.class);
+          if (findContact(current, c -> c.lenientEquals(contact)).isPresent()) {
+            return Outcome.ALREADY_APPLIED;
+          }
+          return apply(record, () -> operations.getAddContact().apply(targetKey, contact));
+        }
+      case UPDATE_CONTACT:
+        {
+          Contact contact = readPayload(record, Contact.class);
+          Optional<Contact> existing =
+              findContact(current, c -> Objects.equals(c.getKey(), contact.getKey()));
+          if (!existing.isPresent()) {
+            return Outcome.SUPERSEDED;
+          }
+          if (existing.get().lenientEquals(contact)) {
+            return Outcome.ALREADY_APPLIED;
+          }
+          return apply(record, () -> operations.getUpdateContact().accept(targetKey, contact));
+        }
+      case REMOVE_CONTACT:
+        {
+          int contactKey = record.getPayload().asInt();
+          if (!findContact(current, c -> Objects.equals(c.getKey(), contactKey)).isPresent()) {
+            return Outcome.ALREADY_APPLIED;
+          }
+          return apply(
+              record, () -> operations.getRemoveContact().accept(targetKey, contactKey));
+        }
+      default:
+        return Outcome.NOT_REPLAYABLE;
+    }
+  }
+
+  private <
+          T extends
+              CollectionEntity & Identifiable & MachineTaggable & Contactable & LenientEquals<T>>
+      Outcome replayCreate(FailedActionRecord record, EntityOperations<T> operations)
+          throws IOException {
+    T entity = readPayload(record, operations.getType());
+
+    Boolean exists = operations.getExists().apply(entity);
+    if (exists == null) {
+      // we can't know if it was created, so we don't risk creating it twice
+      return Outcome.NOT_REPLAYABLE;
+    } else if (exists) {
+      return Outcome.ALREADY_APPLIED;
+    }
+
+    return apply(
+        record,
+        () -> {
+          UUID createdKey = operations.getCreate().apply(entity);
+          T created = operations.getGet().apply(createdKey);
+          missingSubEntitiesCalls(operations, createdKey, entity, created).forEach(Runnable::run);
+        });
+  }
+
+  private <
+          T extends
+              CollectionEntity & Identifiable & MachineTaggable & Contactable & LenientEquals<T>>
+      List<Runnable> missingSubEntitiesCalls(
+          EntityOperations<T> operations, UUID entityKey, T entity, T current) {
+    List<Runnable> calls = new ArrayList<>();
+    entity.getIdentifiers().stream()
+        .filter(i -> !containsIdentifier(current, i))
+        .forEach(
+            i -> {
+              i.setKey(null);
+              calls.add(() -> operations.getAddIdentifier().accept(entityKey, i));
+            });
+    entity.getMachineTags().stream()
+        .filter(mt -> !containsMachineTag(current, mt))
+        .forEach(
+            mt -> {
+              mt.setKey(null);
+              calls.add(() -> operations.getAddMachineTag().accept(entityKey, mt));
+            });
+    if (entity.getMasterSourceMetadata() != null && current.getMasterSourceMetadata() == null) {
+      MasterSourceMetadata metadata = entity.getMasterSourceMetadata();
+      metadata.setKey(null);
+      calls.add(() -> operations.getAddMasterSourceMetadata().accept(entityKey, metadata));
+    }
+    return calls;
+  }
+
+  private Outcome apply(FailedActionRecord record, Runnable call) {
+    if (dryRun) {
+      log.info(
+          "Dry run - {} on {} {} would be replayed",
+          record.getOperation(),
+          record.getTargetType(),
+          record.getTargetKey());
+    } else {
+      call.run();
+    }
+    return Outcome.REPLAYED;
+  }
+
+  private synchronized FailedActionJournal getRetryJournal() {
+    if (retryJournal == null) {
+      retryJournal =
+          FailedActionJournal.open(
+              failedActionsDir.resolve(
+                  "failed_actions_" + System.currentTimeMillis() + ".jsonl"));
+    }
+    return retryJournal;
+  }
+
+  private static <T> T readPayload(FailedActionRecord record, Class<T> type) throws IOException {
+    return FailedActionJournal.MAPPER.treeToValue(record.getPayload(), type);
+  }
+
+  private static UUID parseKey(String key) {
+    if (Strings.isNullOrEmpty(key)) {
+      return null;
+    }
+    try {
+      return UUID.fromString(key);
+    } catch (IllegalArgumentException e) {
+      log.warn("Invalid target key {}", key);
+      return null;
+    }
+  }
+
+  private static Optional<Contact> findContact(
+      Contactable entity, Predicate<Contact> predicate) {
+    return entity.getContactPersons() == null
+        ? Optional.empty()
+        : entity.getContactPersons().stream().filter(predicate).findFirst();
+  }
+
+  private static List<FailedActionRecord> readRecords(Path journalPath) {
+    List<FailedActionRecord> records = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(journalPath)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.trim().isEmpty()) {
+          records.add(FailedActionJournal.MAPPER.readValue(line, FailedActionRecord.class));
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Couldn't read failed actions journal " + journalPath, e);
+    }
+    return records;
+  }
+
+  private EntityOperations<Institution> institutionOperations() {
+    return EntityOperations.<Institution>builder()
+        .type(Institution.class)
+        .get(grSciCollHttpClient::getInstitution)
+        .create(grSciCollHttpClient::createInstitution)
+        .update(grSciCollHttpClient::updateInstitution)
+        .exists(i -> !grSciCollHttpClient.getInstitutionsByName(i.getName()).isEmpty())
+        .addIdentifier(grSciCollHttpClient::addIdentifierToInstitution)
+        .addMachineTag(grSciCollHttpClient::addMachineTagToInstitution)
+        .addMasterSourceMetadata(grSciCollHttpClient::addMasterSourceMetadataToInstitution)
+        .addContact(grSciCollHttpClient::addContactToInstitution)
+        .updateContact(grSciCollHttpClient::updateContactInInstitution)
+        .removeContact(grSciCollHttpClient::removeContactFromInstitution)
+        .build();
+  }
+
+  private EntityOperations<Collection> collectionOperations() {
+    return EntityOperations.<Collection>builder()
+        .type(Collection.class)
+        .get(grSciCollHttpClient::getCollection)
+        .create(grSciCollHttpClient::createCollection)
+        .update(grSciCollHttpClient::updateCollection)
+        .exists(
+            c ->
+                c.getInstitutionKey() != null
+                    ? !grSciCollHttpClient
+                        .getCollectionsByInstitutionAndCode(c.getInstitutionKey(), c.getCode())
+                        .isEmpty()
+                    : null)
+        .addIdentifier(grSciCollHttpClient::addIdentifierToCollection)
+        .addMachineTag(grSciCollHttpClient::addMachineTagToCollection)
+        .addMasterSourceMetadata(grSciCollHttpClient::addMasterSourceMetadataToCollection)
+        .addContact(grSciCollHttpClient::addContactToCollection)
+        .updateContact(grSciCollHttpClient::updateContactInCollection)
+        .removeContact(grSciCollHttpClient::removeContactFromCollection)
+        .build();
+  }
+
+  /** Registry calls needed to replay the actions of an entity type. */
+  @Builder
+  @Getter
+  private static class EntityOperations<
+      T extends
+          CollectionEntity & Identifiable & MachineTaggable & Contactable & LenientEquals<T>> {
+    private final Class<T> type;
+    private final Function<UUID, T> get;
+    private final Function<T, UUID> create;
+    private final Consumer<T> update;
+    // returns null if it can't be checked
+    private final Function<T, Boolean> exists;
+    private final BiConsumer<UUID, Identifier> addIdentifier;
+    private final BiConsumer<UUID, MachineTag> addMachineTag;
+    private final BiConsumer<UUID, MasterSourceMetadata> addMasterSourceMetadata;
+    private final BiFunction<UUID, Contact, Integer> addContact;
+    private final BiConsumer<UUID, Contact> updateContact;
+    private final BiConsumer<UUID, Integer> removeContact;
+  }
+
+  /** Outcome of the replay of an action. */
+  public enum Outcome {
+    REPLAYED,
+    // the registry already has the changes of the action
+    ALREADY_APPLIED,
+    // the target entity changed or was deleted after the failure
+    SUPERSEDED,
+    NOT_REPLAYABLE,
+    FAILED
+  }
+}
@@ -0,0 +1,25 @@
+package org.gbif.collections.sync.replay;
+
+import org.gbif.collections.sync.replay.FailedActionReplayer.Outcome;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/** Counts of the outcomes of a replay. */
+public class ReplayResult {
+
+  private final Map<Outcome, Integer> counts = new EnumMap<>(Outcome.class);
+
+  synchronized void add(Outcome outcome) {
+    counts.merge(outcome, 1, Integer::sum);
+  }
+
+  public synchronized int getCount(Outcome outcome) {
+    return counts.getOrDefault(outcome, 0);
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "ReplayResult" + counts;
+  }
+}
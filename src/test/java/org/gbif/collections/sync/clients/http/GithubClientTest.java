@@ -0,0 +1,35 @@
+package org.gbif.collections.sync.clients.http;
+
+import org.gbif.collections.sync.config.SyncConfig.HttpConfig;
+import org.gbif.collections.sync.config.SyncConfig.NotificationConfig;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/** Tests the {@link GithubClient}. */
+public class GithubClientTest {
+
+  @Test
+  public void instancesTest() {
+    NotificationConfig notificationConfig = new NotificationConfig();
+    notificationConfig.setGithubWsUrl("http://localhost/");
+    notificationConfig.setGithubUser("user");
+    notificationConfig.setGithubPassword("password");
+
+    HttpConfig httpConfig = new HttpConfig();
+    httpConfig.setMaxRequestsPerHost(3);
+    GithubClient client = GithubClient.getInstance(notificationConfig, httpConfig);
+
+    HttpConfig sameHttpConfig = new HttpConfig();
+    sameHttpConfig.setMaxRequestsPerHost(3);
+    assertSame(client, GithubClient.getInstance(notificationConfig, sameHttpConfig));
+
+    // a different HTTP config needs its own client
+    HttpConfig otherHttpConfig = new HttpConfig();
+    otherHttpConfig.setMaxRequestsPerHost(5);
+    assertNotSame(client, GithubClient.getInstance(notificationConfig, otherHttpConfig));
+    assertNotSame(client, GithubClient.getInstance(notificationConfig));
+  }
+}
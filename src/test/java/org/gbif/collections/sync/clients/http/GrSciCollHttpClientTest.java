@@ -0,0 +1,33 @@
+package org.gbif.collections.sync.clients.http;
+
+import org.gbif.collections.sync.config.SyncConfig.HttpConfig;
+import org.gbif.collections.sync.config.SyncConfig.RegistryConfig;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/** Tests the {@link GrSciCollHttpClient}. */
+public class GrSciCollHttpClientTest {
+
+  @Test
+  public void instancesTest() {
+    RegistryConfig registryConfig = new RegistryConfig();
+    registryConfig.setWsUrl("http://localhost/");
+
+    HttpConfig httpConfig = new HttpConfig();
+    httpConfig.setMaxRequestsPerHost(3);
+    GrSciCollHttpClient client = GrSciCollHttpClient.getInstance(registryConfig, httpConfig);
+
+    HttpConfig sameHttpConfig = new HttpConfig();
+    sameHttpConfig.setMaxRequestsPerHost(3);
+    assertSame(client, GrSciCollHttpClient.getInstance(registryConfig, sameHttpConfig));
+
+    // a different HTTP config needs its own client
+    HttpConfig otherHttpConfig = new HttpConfig();
+    otherHttpConfig.setMaxRequestsPerHost(5);
+    assertNotSame(client, GrSciCollHttpClient.getInstance(registryConfig, otherHttpConfig));
+    assertNotSame(client, GrSciCollHttpClient.getInstance(registryConfig));
+  }
+}
@@ -0,0 +1,42 @@
+package org.gbif.collections.sync.clients.http;
+
+import org.gbif.collections.sync.config.SyncConfig.HttpConfig;
+
+import java.util.Collections;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/** Tests the {@link HttpTransport}. */
+public class HttpTransportTest {
+
+  @Test
+  public void sharedTransportTest() {
+    HttpConfig config = new HttpConfig();
+    config.setMaxRequestsPerHost(7);
+    OkHttpClient transport = HttpTransport.getInstance(config);
+
+    HttpConfig sameConfig = new HttpConfig();
+    sameConfig.setMaxRequestsPerHost(7);
+    assertSame(transport, HttpTransport.getInstance(sameConfig));
+    assertEquals(7, transport.dispatcher().getMaxRequestsPerHost());
+
+    // the derived clients share the connection pool and the dispatcher
+    OkHttpClient derived = transport.newBuilder().addInterceptor(chain -> null).build();
+    assertSame(transport.connectionPool(), derived.connectionPool());
+    assertSame(transport.dispatcher(), derived.dispatcher());
+  }
+
+  @Test
+  public void http1OnlyTest() {
+    HttpConfig config = new HttpConfig();
+    config.setHttp2(false);
+    assertEquals(
+        Collections.singletonList(Protocol.HTTP_1_1),
+        HttpTransport.getInstance(config).protocols());
+  }
+}
@@ -0,0 +1,66 @@
+package org.gbif.collections.sync.clients.http;
+
+import org.gbif.collections.sync.config.IHConfig;
+import org.gbif.collections.sync.config.SyncConfig;
+import org.gbif.collections.sync.config.SyncConfig.HttpConfig;
+
+import java.io.IOException;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.Test;
+import retrofit2.HttpException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/** Tests the {@link IHHttpClient}. */
+public class IHHttpClientTest {
+
+  @Test
+  public void instancesTest() {
+    IHHttpClient client = IHHttpClient.getInstance(ihConfig(2, 3));
+    assertSame(client, IHHttpClient.getInstance(ihConfig(2, 3)));
+
+    // a different rate limit or HTTP config needs its own client
+    assertNotSame(client, IHHttpClient.getInstance(ihConfig(1, 3)));
+    assertNotSame(client, IHHttpClient.getInstance(ihConfig(2, 5)));
+  }
+
+  @Test
+  public void retryConfigTest() throws IOException {
+    try (MockWebServer server = new MockWebServer()) {
+      server.enqueue(new MockResponse().setResponseCode(503));
+      server.enqueue(new MockResponse().setBody("{\"data\":[]}"));
+      server.start();
+
+      IHConfig ihConfig = new IHConfig();
+      ihConfig.setIhWsUrl(server.url("/").toString());
+      ihConfig.getIhRetry().setMaxAttempts(1);
+
+      // the retries of the config are used, so the error is not retried
+      try {
+        IHHttpClient.getInstance(ihConfig).getInstitutions();
+        fail("The request shouldn't be retried");
+      } catch (HttpException e) {
+        assertEquals(503, e.code());
+      }
+      assertEquals(1, server.getRequestCount());
+    }
+  }
+
+  private static IHConfig ihConfig(double requestsPerSecond, int maxRequestsPerHost) {
+    HttpConfig httpConfig = new HttpConfig();
+    httpConfig.setMaxRequestsPerHost(maxRequestsPerHost);
+    SyncConfig syncConfig = new SyncConfig();
+    syncConfig.setHttp(httpConfig);
+
+    IHConfig ihConfig = new IHConfig();
+    ihConfig.setIhWsUrl("http://localhost/");
+    ihConfig.setIhRequestsPerSecond(requestsPerSecond);
+    ihConfig.setSyncConfig(syncConfig);
+    return ihConfig;
+  }
+}
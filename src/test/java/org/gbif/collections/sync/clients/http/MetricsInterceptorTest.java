@@ -0,0 +1,47 @@
+package org.gbif.collections.sync.clients.http;
+
+import org.gbif.collections.sync.common.MetricsRegistry;
+import org.gbif.collections.sync.common.MetricsRegistry.CallStats;
+
+import java.io.IOException;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/** Tests the {@link MetricsInterceptor}. */
+public class MetricsInterceptorTest {
+
+  @Test
+  public void chunkedResponseBytesTest() throws IOException {
+    MetricsRegistry registry = MetricsRegistry.getInstance();
+    registry.clear();
+
+    try (MockWebServer server = new MockWebServer()) {
+      server.enqueue(new MockResponse().setChunkedBody("0123456789", 3));
+      server.start();
+
+      OkHttpClient client =
+          new OkHttpClient.Builder()
+              .addInterceptor(new MetricsInterceptor("test", registry))
+              .build();
+      Request request = new Request.Builder().url(server.url("/institution/1")).build();
+      try (Response response = client.newCall(request).execute()) {
+        // the content length of a chunked response is unknown
+        assertEquals(-1, response.body().contentLength());
+        assertEquals("0123456789", response.body().string());
+      }
+    }
+
+    CallStats stats = registry.getCallStats().get(0);
+    assertEquals("/institution/{key}", stats.getEndpoint());
+    assertEquals(1, stats.getCount());
+    assertEquals(10, stats.getBytes());
+    registry.clear();
+  }
+}
@@ -0,0 +1,109 @@
+package org.gbif.collections.sync.clients.http;
+
+import org.gbif.api.model.common.paging.PagingResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/** Tests the {@link PagedLoader}. */
+public class PagedLoaderTest {
+
+  private static final int TOTAL = 95;
+
+  @Test
+  public void loadAllInOrderTest() {
+    PagedLoader loader = new PagedLoader(10, 4);
+    List<Integer> result = loader.loadAll(PagedLoaderTest::fetchPage);
+
+    assertEquals(TOTAL, result.size());
+    assertEquals(IntStream.range(0, TOTAL).boxed().collect(Collectors.toList()), result);
+  }
+
+  @Test
+  public void loadAllSequentiallyTest() {
+    PagedLoader loader = new PagedLoader(10, 1);
+    List<Integer> result = loader.loadAll(PagedLoaderTest::fetchPage);
+
+    assertEquals(IntStream.range(0, TOTAL).boxed().collect(Collectors.toList()), result);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void failedPageTest() {
+    PagedLoader loader = new PagedLoader(10, 4);
+    loader.loadAll(
+        (limit, offset) -> {
+          if (offset == 50) {
+            throw new IllegalStateException("Error executing call");
+          }
+          return fetchPage(limit, offset);
+        });
+  }
+
+  @Test
+  public void failedStreamTest() {
+    PagedLoader loader = new PagedLoader(10, 2);
+    CountDownLatch pageFailed = new CountDownLatch(1);
+    List<Integer> received = new ArrayList<>();
+
+    try {
+      loader.<Integer>streamAll(
+          (limit, offset, consumer) -> {
+            if (offset == 20) {
+              pageFailed.countDown();
+              throw new IllegalStateException("Error executing call");
+            }
+            if (offset == 10) {
+              // this page is still running when the other one fails
+              await(pageFailed);
+              sleep();
+            }
+            PagingResponse<Integer> page = fetchPage(limit, offset);
+            page.getResults().forEach(consumer);
+            return page;
+          },
+          received::add);
+      fail("The load should fail");
+    } catch (IllegalStateException e) {
+      assertEquals("Error executing call", e.getMessage());
+    }
+
+    // only the records of the first page were pushed
+    assertEquals(IntStream.range(0, 10).boxed().collect(Collectors.toList()), received);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(200);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static PagingResponse<Integer> fetchPage(int limit, int offset) {
+    List<Integer> results =
+        IntStream.range(offset, Math.min(offset + limit, TOTAL))
+            .boxed()
+            .collect(Collectors.toList());
+    PagingResponse<Integer> response =
+        new PagingResponse<>(offset, limit, (long) TOTAL, results);
+    response.setEndOfRecords(offset + limit >= TOTAL);
+    return response;
+  }
+}
@@ -0,0 +1,69 @@
+package org.gbif.collections.sync.clients.http;
+
+import java.io.IOException;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests the {@link RateLimitInterceptor}. */
+public class RateLimitInterceptorTest {
+
+  private MockWebServer server;
+
+  @Before
+  public void setUp() throws IOException {
+    server = new MockWebServer();
+    server.start();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void rateLimitTest() throws IOException {
+    RateLimitInterceptor interceptor = new RateLimitInterceptor(5);
+
+    // the first request doesn't wait and the next ones get a permit every 200ms. The permits
+    // stored while the client is created can save part of the first wait
+    long start = System.currentTimeMillis();
+    executeRequests(interceptor, 6);
+    long elapsed = System.currentTimeMillis() - start;
+
+    assertEquals(6, server.getRequestCount());
+    assertTrue(elapsed >= 700);
+    assertTrue(interceptor.getWaitedMillis() >= 700);
+    assertTrue(interceptor.getWaitedMillis() <= elapsed);
+  }
+
+  @Test
+  public void noLimitTest() throws IOException {
+    RateLimitInterceptor interceptor = new RateLimitInterceptor(0);
+
+    executeRequests(interceptor, 20);
+
+    assertEquals(20, server.getRequestCount());
+    assertEquals(0, interceptor.getWaitedMillis());
+  }
+
+  private void executeRequests(RateLimitInterceptor interceptor, int count) throws IOException {
+    OkHttpClient client = new OkHttpClient.Builder().addInterceptor(interceptor).build();
+    for (int i = 0; i < count; i++) {
+      server.enqueue(new MockResponse().setBody("ok"));
+      Request request = new Request.Builder().url(server.url("/institution")).build();
+      try (Response response = client.newCall(request).execute()) {
+        assertEquals(200, response.code());
+      }
+    }
+  }
+}
@@ -0,0 +1,185 @@
+package org.gbif.collections.sync.clients.http;
+
+import org.gbif.collections.sync.config.SyncConfig.RetryConfig;
+
+import java.io.IOException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests the {@link RetryInterceptor}. */
+public class RetryInterceptorTest {
+
+  private MockWebServer server;
+
+  @Before
+  public void setUp() throws IOException {
+    server = new MockWebServer();
+    server.start();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void retryableResponsesTest() throws IOException {
+    server.enqueue(new MockResponse().setResponseCode(503));
+    server.enqueue(new MockResponse().setResponseCode(429));
+    server.enqueue(new MockResponse().setBody("ok"));
+
+    RetryInterceptor interceptor = new RetryInterceptor(retryConfig(4, 1, 10));
+    try (Response response = execute(interceptor, get())) {
+      assertEquals(200, response.code());
+      assertEquals("ok", response.body().string());
+    }
+    assertEquals(3, server.getRequestCount());
+    assertEquals(2, interceptor.getRetries());
+  }
+
+  @Test
+  public void maxAttemptsTest() throws IOException {
+    for (int i = 0; i < 3; i++) {
+      server.enqueue(new MockResponse().setResponseCode(500));
+    }
+
+    // the last response is returned when there are no attempts left
+    RetryInterceptor interceptor = new RetryInterceptor(retryConfig(2, 1, 10));
+    try (Response response = execute(interceptor, get())) {
+      assertEquals(500, response.code());
+    }
+    assertEquals(2, server.getRequestCount());
+    assertEquals(1, interceptor.getRetries());
+  }
+
+  @Test
+  public void notRetryableResponseTest() throws IOException {
+    server.enqueue(new MockResponse().setResponseCode(404));
+
+    RetryInterceptor interceptor = new RetryInterceptor(retryConfig(4, 1, 10));
+    try (Response response = execute(interceptor, get())) {
+      assertEquals(404, response.code());
+    }
+    assertEquals(1, server.getRequestCount());
+  }
+
+  @Test
+  public void ioErrorTest() throws IOException {
+    server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+    server.enqueue(new MockResponse().setBody("ok"));
+
+    RetryInterceptor interceptor = new RetryInterceptor(retryConfig(4, 1, 10));
+    try (Response response = execute(interceptor, get())) {
+      assertEquals(200, response.code());
+    }
+    assertEquals(1, interceptor.getRetries());
+  }
+
+  @Test
+  public void nonIdempotentMethodTest() throws IOException {
+    server.enqueue(new MockResponse().setResponseCode(503));
+    server.enqueue(new MockResponse().setBody("ok"));
+
+    // a POST could be applied twice, so it's never retried
+    RetryInterceptor interceptor = new RetryInterceptor(retryConfig(4, 1, 10));
+    Request post =
+        new Request.Builder()
+            .url(server.url("/institution"))
+            .post(RequestBody.create("{}", MediaType.get("application/json")))
+            .build();
+    try (Response response = execute(interceptor, post)) {
+      assertEquals(503, response.code());
+    }
+    assertEquals(1, server.getRequestCount());
+    assertEquals(0, interceptor.getRetries());
+  }
+
+  @Test
+  public void retryAfterSecondsTest() throws IOException {
+    server.enqueue(new MockResponse().setResponseCode(429).setHeader("Retry-After", "1"));
+    server.enqueue(new MockResponse().setBody("ok"));
+
+    // the header is used instead of the backoff
+    RetryInterceptor interceptor = new RetryInterceptor(retryConfig(4, 0, 5_000));
+    long start = System.currentTimeMillis();
+    try (Response response = execute(interceptor, get())) {
+      assertEquals(200, response.code());
+    }
+    assertTrue(System.currentTimeMillis() - start >= 1_000);
+  }
+
+  @Test
+  public void retryAfterDateTest() throws IOException {
+    String date =
+        DateTimeFormatter.RFC_1123_DATE_TIME.format(
+            ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(2));
+    server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", date));
+    server.enqueue(new MockResponse().setBody("ok"));
+
+    // the date has no milliseconds, so the wait can be up to 1 second shorter
+    RetryInterceptor interceptor = new RetryInterceptor(retryConfig(4, 0, 5_000));
+    long start = System.currentTimeMillis();
+    try (Response response = execute(interceptor, get())) {
+      assertEquals(200, response.code());
+    }
+    assertTrue(System.currentTimeMillis() - start >= 900);
+  }
+
+  @Test
+  public void maxDelayTest() throws IOException {
+    server.enqueue(new MockResponse().setResponseCode(503).setHeader("Retry-After", "60"));
+    for (int i = 0; i < 2; i++) {
+      server.enqueue(new MockResponse().setResponseCode(503));
+    }
+    server.enqueue(new MockResponse().setBody("ok"));
+
+    // neither the Retry-After header nor the exponential backoff exceed the max delay
+    RetryInterceptor interceptor = new RetryInterceptor(retryConfig(4, 60_000, 100));
+    long start = System.currentTimeMillis();
+    try (Response response = execute(interceptor, get())) {
+      assertEquals(200, response.code());
+    }
+    assertTrue(System.currentTimeMillis() - start < 5_000);
+    assertEquals(3, interceptor.getRetries());
+  }
+
+  private Request get() {
+    return new Request.Builder().url(server.url("/institution")).build();
+  }
+
+  private static Response execute(RetryInterceptor interceptor, Request request)
+      throws IOException {
+    // the client doesn't retry on its own, so only the retries of the interceptor are done
+    OkHttpClient client =
+        new OkHttpClient.Builder()
+            .addInterceptor(interceptor)
+            .retryOnConnectionFailure(false)
+            .build();
+    return client.newCall(request).execute();
+  }
+
+  private static RetryConfig retryConfig(
+      int maxAttempts, long initialDelayMillis, long maxDelayMillis) {
+    RetryConfig retryConfig = new RetryConfig();
+    retryConfig.setMaxAttempts(maxAttempts);
+    retryConfig.setInitialDelayMillis(initialDelayMillis);
+    retryConfig.setMaxDelayMillis(maxDelayMillis);
+    return retryConfig;
+  }
+}
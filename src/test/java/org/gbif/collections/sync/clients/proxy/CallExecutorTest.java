@@ -0,0 +1,175 @@
+package org.gbif.collections.sync.clients.proxy;
+
+import org.gbif.collections.sync.SyncResult.FailedAction;
+import org.gbif.collections.sync.config.SyncConfig;
+import org.gbif.collections.sync.config.SyncConfig.ExecutorStrategy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/** Tests the {@link CallExecutor}. */
+public class CallExecutorTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void instancesTest() {
+    CallExecutor callExecutor = CallExecutor.getInstance(syncConfig(ExecutorStrategy.BLOCKING, 1));
+    assertSame(callExecutor, CallExecutor.getInstance(syncConfig(ExecutorStrategy.BLOCKING, 1)));
+    assertNotSame(
+        callExecutor, CallExecutor.getInstance(syncConfig(ExecutorStrategy.BLOCKING, 2)));
+
+    // an executor without config is also shared
+    CallExecutor noConfigExecutor = CallExecutor.getInstance(null);
+    assertSame(noConfigExecutor, CallExecutor.getInstance(null));
+    assertNotSame(callExecutor, noConfigExecutor);
+  }
+
+  @Test
+  public void awaitPendingCallsTest() {
+    CallExecutor callExecutor =
+        CallExecutor.getInstance(syncConfig(ExecutorStrategy.CONCURRENT, 4));
+
+    AtomicInteger executed = new AtomicInteger();
+    for (int i = 0; i < 20; i++) {
+      callExecutor.executeOrAddFailAsync(
+          () -> {
+            sleep();
+            executed.incrementAndGet();
+          },
+          e -> new FailedAction(null, e.getMessage()));
+    }
+
+    callExecutor.awaitPendingCalls();
+    assertEquals(20, executed.get());
+  }
+
+  @Test
+  public void maxConcurrentCallsTest() {
+    CallExecutor callExecutor = CallExecutor.getInstance(syncConfig(ExecutorStrategy.VIRTUAL, 2));
+
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    for (int i = 0; i < 10; i++) {
+      callExecutor.executeOrAddFailAsync(
+          () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep();
+            running.decrementAndGet();
+          },
+          e -> new FailedAction(null, e.getMessage()));
+    }
+
+    callExecutor.awaitPendingCalls();
+    assertTrue(maxRunning.get() <= 2);
+  }
+
+  @Test
+  public void orderedCallsTest() {
+    CallExecutor callExecutor =
+        CallExecutor.getInstance(syncConfig(ExecutorStrategy.CONCURRENT, 4));
+
+    List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    for (int i = 0; i < 10; i++) {
+      int call = i;
+      callExecutor.executeOrAddFailAsync(
+          "key",
+          () -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep();
+            executed.add(call);
+            running.decrementAndGet();
+          },
+          e -> new FailedAction(null, e.getMessage()));
+    }
+
+    // the calls of the same key run one after another in the order they were submitted
+    callExecutor.awaitPendingCalls("key");
+    assertEquals(10, executed.size());
+    assertEquals(1, maxRunning.get());
+    for (int i = 0; i < 10; i++) {
+      assertEquals(i, executed.get(i).intValue());
+    }
+  }
+
+  @Test
+  public void closeJournalTest() throws IOException {
+    SyncConfig syncConfig = syncConfig(ExecutorStrategy.BLOCKING, 2);
+    syncConfig.setFailedActionsDir(folder.getRoot().getAbsolutePath());
+    CallExecutor callExecutor = CallExecutor.getInstance(syncConfig);
+
+    callExecutor.executeOrAddFail(
+        () -> {
+          throw new IllegalStateException("error");
+        },
+        e -> new FailedAction(1, e.getMessage()));
+    callExecutor.closeJournal();
+
+    // the journal is written when it's closed
+    List<Path> journals;
+    try (Stream<Path> files = Files.list(folder.getRoot().toPath())) {
+      journals = files.collect(Collectors.toList());
+    }
+    assertEquals(1, journals.size());
+    assertEquals(1, Files.readAllLines(journals.get(0)).size());
+    assertTrue(callExecutor.hasFailedActions());
+  }
+
+  @Test
+  public void journalErrorTest() throws IOException {
+    // the journal can't be created inside a file
+    SyncConfig syncConfig = syncConfig(ExecutorStrategy.BLOCKING, 2);
+    syncConfig.setFailedActionsDir(folder.newFile("file").toPath().resolve("dir").toString());
+    CallExecutor callExecutor = CallExecutor.getInstance(syncConfig);
+
+    // the sync isn't aborted and the action is kept for the result
+    callExecutor.executeOrAddFail(
+        () -> {
+          throw new IllegalStateException("error");
+        },
+        e -> new FailedAction(1, e.getMessage()));
+
+    assertTrue(callExecutor.hasFailedActions());
+    List<FailedAction> failedActions = callExecutor.drainFailedActions();
+    assertEquals(1, failedActions.size());
+    assertEquals("error", failedActions.get(0).getMessage());
+    assertTrue(callExecutor.drainFailedActions().isEmpty());
+  }
+
+  private static SyncConfig syncConfig(ExecutorStrategy strategy, int maxConcurrentCalls) {
+    SyncConfig.RegistryConfig registryConfig = new SyncConfig.RegistryConfig();
+    registryConfig.setMaxConcurrentCalls(maxConcurrentCalls);
+
+    SyncConfig syncConfig = new SyncConfig();
+    syncConfig.setDryRun(false);
+    syncConfig.setExecutorStrategy(strategy);
+    syncConfig.setRegistry(registryConfig);
+    return syncConfig;
+  }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(20);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+package org.gbif.collections.sync.clients.proxy;
+
+import org.gbif.api.model.collections.Institution;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/** Tests the {@link EntityCache}. */
+public class EntityCacheTest {
+
+  @Test
+  public void fetchOnceTest() {
+    AtomicInteger fetches = new AtomicInteger();
+    EntityCache<Institution> cache = new EntityCache<>(fetcher(fetches), 10, 2);
+
+    UUID key = UUID.randomUUID();
+    Institution institution = cache.get(key);
+    assertSame(institution, cache.get(key));
+    assertEquals(1, fetches.get());
+  }
+
+  @Test
+  public void putAvoidsFetchTest() {
+    AtomicInteger fetches = new AtomicInteger();
+    EntityCache<Institution> cache = new EntityCache<>(fetcher(fetches), 10, 2);
+
+    Institution updated = new Institution();
+    updated.setKey(UUID.randomUUID());
+    cache.put(updated);
+
+    assertSame(updated, cache.get(updated.getKey()));
+    assertEquals(0, fetches.get());
+
+    cache.invalidate(updated.getKey());
+    cache.get(updated.getKey());
+    assertEquals(1, fetches.get());
+  }
+
+  @Test
+  public void evictionTest() {
+    AtomicInteger fetches = new AtomicInteger();
+    EntityCache<Institution> cache = new EntityCache<>(fetcher(fetches), 5, 2);
+
+    for (int i = 0; i < 20; i++) {
+      cache.get(UUID.randomUUID());
+    }
+    assertTrue(cache.size() <= 5);
+    assertEquals(20, fetches.get());
+  }
+
+  @Test
+  public void concurrentGetsShareFetchTest() {
+    AtomicInteger fetches = new AtomicInteger();
+    CountDownLatch latch = new CountDownLatch(1);
+    EntityCache<Institution> cache =
+        new EntityCache<>(
+            key -> {
+              try {
+                latch.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              return fetcher(fetches).apply(key);
+            },
+            10,
+            2);
+
+    UUID key = UUID.randomUUID();
+    CompletableFuture<Institution> f1 = CompletableFuture.supplyAsync(() -> cache.get(key));
+    CompletableFuture<Institution> f2 = CompletableFuture.supplyAsync(() -> cache.get(key));
+    latch.countDown();
+
+    assertSame(f1.join(), f2.join());
+    assertEquals(1, fetches.get());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void notFoundTest() {
+    EntityCache<Institution> cache = new EntityCache<>(key -> null, 10, 2);
+    cache.get(UUID.randomUUID());
+  }
+
+  private static Function<UUID, Institution> fetcher(AtomicInteger fetches) {
+    return key -> {
+      fetches.incrementAndGet();
+      Institution institution = new Institution();
+      institution.setKey(key);
+      return institution;
+    };
+  }
+}
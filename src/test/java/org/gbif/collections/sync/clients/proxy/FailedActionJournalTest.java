@@ -0,0 +1,103 @@
+package org.gbif.collections.sync.clients.proxy;
+
+import org.gbif.api.model.collections.Institution;
+import org.gbif.collections.sync.SyncResult.FailedAction;
+import org.gbif.collections.sync.clients.proxy.FailedActionJournal.FailedActionRecord;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/** Tests the {@link FailedActionJournal}. */
+public class FailedActionJournalTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void appendTest() throws IOException {
+    Path path = folder.getRoot().toPath().resolve("failed_actions.jsonl");
+
+    Institution institution = new Institution();
+    institution.setKey(UUID.randomUUID());
+
+    try (FailedActionJournal journal = FailedActionJournal.open(path)) {
+      journal.append(
+          new FailedAction(institution, "Failed to update entity"),
+          new IllegalStateException("error"));
+      journal.append(new FailedAction(1, "Failed to remove contact"), null);
+    }
+
+    List<String> lines = Files.readAllLines(path);
+    assertEquals(2, lines.size());
+
+    FailedActionRecord first =
+        FailedActionJournal.MAPPER.readValue(lines.get(0), FailedActionRecord.class);
+    assertEquals("Institution", first.getEntityType());
+    assertEquals(institution.getKey().toString(), first.getEntityKey());
+    assertEquals("Failed to update entity", first.getMessage());
+
+    FailedActionRecord second =
+        FailedActionJournal.MAPPER.readValue(lines.get(1), FailedActionRecord.class);
+    assertEquals("1", second.getEntityKey());
+  }
+
+  @Test
+  public void appendWhileClosingTest() throws Exception {
+    Path path = folder.getRoot().toPath().resolve("failed_actions.jsonl");
+    FailedActionJournal journal = FailedActionJournal.open(path);
+
+    AtomicInteger appended = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(4);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    for (int t = 0; t < 4; t++) {
+      executor.execute(
+          () -> {
+            started.countDown();
+            for (int i = 0; i < 10_000; i++) {
+              try {
+                journal.append(new FailedAction(i, "Failed to remove contact"), null);
+                appended.incrementAndGet();
+              } catch (IllegalStateException e) {
+                // rejected because it's closed
+                return;
+              }
+            }
+          });
+    }
+    started.await();
+    journal.close();
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+
+    // the records accepted are all written
+    assertEquals(appended.get(), Files.readAllLines(path).size());
+  }
+
+  @Test
+  public void appendToClosedJournalTest() {
+    FailedActionJournal journal =
+        FailedActionJournal.open(folder.getRoot().toPath().resolve("failed_actions.jsonl"));
+    journal.close();
+
+    try {
+      journal.append(new FailedAction(1, "Failed to remove contact"), null);
+      fail("The failed action shouldn't be dropped silently");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+}
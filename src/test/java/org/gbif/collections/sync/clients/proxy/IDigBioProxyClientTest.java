@@ -0,0 +1,150 @@
+package org.gbif.collections.sync.clients.proxy;
+
+import org.gbif.api.model.collections.Collection;
+import org.gbif.api.model.registry.Identifier;
+import org.gbif.api.vocabulary.IdentifierType;
+import org.gbif.collections.sync.common.converter.ConvertedCollection;
+import org.gbif.collections.sync.config.IDigBioConfig;
+import org.gbif.collections.sync.config.SyncConfig;
+import org.gbif.collections.sync.config.SyncConfig.ExecutorStrategy;
+import org.gbif.collections.sync.config.SyncConfig.RegistryConfig;
+import org.gbif.collections.sync.idigbio.IDigBioDataLoader.IDigBioData;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/** Tests the {@link IDigBioProxyClient}. */
+public class IDigBioProxyClientTest {
+
+  private static final ObjectMapper MAPPER =
+      new ObjectMapper()
+          .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void updateWithConcurrentSubEntitiesTest() throws IOException {
+    Collection registryCollection = new Collection();
+    registryCollection.setKey(UUID.randomUUID());
+    registryCollection.setCode("c1");
+    registryCollection.setName("coll");
+
+    try (MockWebServer server = new MockWebServer()) {
+      server.setDispatcher(new CollectionDispatcher(registryCollection));
+      server.start();
+
+      Collection summary = new Collection();
+      summary.setKey(registryCollection.getKey());
+      summary.setCode(registryCollection.getCode());
+      summary.setName(registryCollection.getName());
+      IDigBioProxyClient proxyClient =
+          IDigBioProxyClient.builder()
+              .iDigBioConfig(config(server.url("/").toString()))
+              .dataLoader(
+                  () ->
+                      new IDigBioData(
+                          Collections.emptyList(),
+                          Collections.singletonList(summary),
+                          Collections.emptyList(),
+                          true))
+              .build();
+
+      Collection oldCollection = proxyClient.getFullCollection(summary);
+      Collection newCollection = new Collection();
+      newCollection.setKey(oldCollection.getKey());
+      newCollection.setCode(oldCollection.getCode());
+      newCollection.setName("new name");
+      newCollection.getIdentifiers().add(new Identifier(IdentifierType.LSID, "lsid"));
+      assertTrue(
+          proxyClient.updateCollection(
+              oldCollection, ConvertedCollection.builder().collection(newCollection).build()));
+
+      // the collection is fetched again after the identifier was added, so it has its key
+      Collection updated = proxyClient.getFullCollection(summary);
+      assertEquals(1, updated.getIdentifiers().size());
+      assertNotNull(updated.getIdentifiers().get(0).getKey());
+
+      proxyClient.awaitPendingCalls();
+      assertEquals(0, proxyClient.getFailedActionsCount());
+    }
+  }
+
+  private IDigBioConfig config(String wsUrl) {
+    RegistryConfig registryConfig = new RegistryConfig();
+    registryConfig.setWsUrl(wsUrl);
+    registryConfig.setWsUser("wsUser");
+    registryConfig.setWsPassword("wsPassword");
+    registryConfig.getRetry().setMaxAttempts(1);
+
+    SyncConfig syncConfig = new SyncConfig();
+    syncConfig.setDryRun(false);
+    syncConfig.setExecutorStrategy(ExecutorStrategy.CONCURRENT);
+    syncConfig.setFailedActionsDir(folder.getRoot().getAbsolutePath());
+    syncConfig.setRegistry(registryConfig);
+
+    IDigBioConfig iDigBioConfig = new IDigBioConfig();
+    iDigBioConfig.setSyncConfig(syncConfig);
+    return iDigBioConfig;
+  }
+
+  /** Serves a collection whose identifiers are added slowly. */
+  private static class CollectionDispatcher extends Dispatcher {
+
+    private final Collection collection;
+
+    CollectionDispatcher(Collection collection) {
+      this.collection = collection;
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+      String path = "/collection/" + collection.getKey();
+      try {
+        if ("GET".equals(request.getMethod()) && path.equals(request.getPath())) {
+          synchronized (collection) {
+            return json(collection);
+          }
+        } else if ("PUT".equals(request.getMethod()) && path.equals(request.getPath())) {
+          return new MockResponse().setResponseCode(204);
+        } else if ("POST".equals(request.getMethod())
+            && (path + "/identifier").equals(request.getPath())) {
+          Identifier identifier =
+              MAPPER.readValue(request.getBody().readUtf8(), Identifier.class);
+          // the identifier is added after the entity was updated
+          Thread.sleep(300);
+          synchronized (collection) {
+            identifier.setKey(collection.getIdentifiers().size() + 1);
+            collection.getIdentifiers().add(identifier);
+            return json(identifier.getKey()).setResponseCode(201);
+          }
+        }
+        return new MockResponse().setResponseCode(404);
+      } catch (IOException e) {
+        return new MockResponse().setResponseCode(500);
+      }
+    }
+
+    private static MockResponse json(Object body) throws IOException {
+      return new MockResponse()
+          .setHeader("Content-Type", "application/json")
+          .setBody(MAPPER.writeValueAsString(body));
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package org.gbif.collections.sync.clients.proxy;
+
+import org.gbif.api.model.collections.Institution;
+import org.gbif.api.model.collections.suggestions.CollectionChangeSuggestion;
+import org.gbif.collections.sync.config.IHConfig;
+import org.gbif.collections.sync.ih.IHDataLoader.IHData;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.Test;
+
+import static org.gbif.collections.sync.TestUtils.createTestSyncConfig;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/** Tests the {@link IHProxyClient}. */
+public class IHProxyClientTest {
+
+  @Test
+  public void prefetchedChangeSuggestionsTest() {
+    CollectionChangeSuggestion existing = changeSuggestion("gbif:ih:irn:1");
+    IHProxyClient proxyClient =
+        createProxyClient(
+            new IHData(
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Collections.singletonList(existing)));
+
+    assertEquals(
+        Collections.singletonList(existing),
+        proxyClient.getCollectionChangeSuggestion("gbif:ih:irn:1"));
+    assertTrue(proxyClient.getCollectionChangeSuggestion("gbif:ih:irn:2").isEmpty());
+
+    // the suggestions created are also kept
+    CollectionChangeSuggestion created = changeSuggestion("gbif:ih:irn:2");
+    proxyClient.createCollectionChangeSuggestion(created);
+    assertEquals(
+        Collections.singletonList(created),
+        proxyClient.getCollectionChangeSuggestion("gbif:ih:irn:2"));
+  }
+
+  @Test
+  public void notPrefetchedChangeSuggestionsTest() {
+    IHProxyClient proxyClient =
+        createProxyClient(
+            new IHData(
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Collections.emptyList()));
+
+    assertNull(proxyClient.getChangeSuggestionsByIhIdentifier());
+  }
+
+  @Test
+  public void allInstitutionsIndexedTest() throws IOException {
+    Institution loaded = new Institution();
+    loaded.setKey(UUID.randomUUID());
+    loaded.setCode("NHM");
+    loaded.setName("Natural History Museum");
+    UUID otherKey = UUID.randomUUID();
+
+    try (MockWebServer server = new MockWebServer()) {
+      // summaries of all the institutions, not only the IH ones loaded by the sync
+      server.enqueue(
+          new MockResponse()
+              .setHeader("Content-Type", "application/json")
+              .setBody(
+                  "{\"offset\":0,\"limit\":1000,\"count\":2,\"endOfRecords\":true,"
+                      + "\"results\":[{\"key\":\""
+                      + loaded.getKey()
+                      + "\",\"code\":\"NHM\",\"name\":\"Natural History Museum\"},"
+                      + "{\"key\":\""
+                      + otherKey
+                      + "\",\"code\":\"BGB\",\"name\":\"Botanical Garden Berlin\"}]}"));
+      server.start();
+
+      IHConfig ihConfig = new IHConfig();
+      ihConfig.setSyncConfig(createTestSyncConfig());
+      ihConfig.getSyncConfig().getRegistry().setWsUrl(server.url("/").toString());
+      IHData data =
+          new IHData(
+              Collections.singletonList(loaded),
+              Collections.emptyList(),
+              Collections.emptyList(),
+              Collections.emptyList(),
+              Collections.emptyList(),
+              Collections.emptyList());
+      IHProxyClient proxyClient =
+          IHProxyClient.builder().ihConfig(ihConfig).dataLoader(() -> data).build();
+
+      // the institutions that weren't loaded are also candidates
+      List<Institution> similar =
+          proxyClient.findSimilarInstitutions("Botanical Garden of Berlin", "BGB");
+      assertEquals(1, similar.size());
+      assertEquals(otherKey, similar.get(0).getKey());
+      assertEquals(
+          otherKey, proxyClient.findInstitutionByName("Botanical Garden Berlin").get(0).getKey());
+      // the loaded institutions are kept instead of their summaries
+      assertSame(loaded, proxyClient.findInstitutionByName("Natural History Museum").get(0));
+      // the names are not looked up in the registry
+      assertEquals(1, server.getRequestCount());
+    }
+  }
+
+  private static IHProxyClient createProxyClient(IHData data) {
+    IHConfig ihConfig = new IHConfig();
+    ihConfig.setSyncConfig(createTestSyncConfig());
+    return IHProxyClient.builder().ihConfig(ihConfig).dataLoader(() -> data).build();
+  }
+
+  private static CollectionChangeSuggestion changeSuggestion(String ihIdentifier) {
+    CollectionChangeSuggestion suggestion = new CollectionChangeSuggestion();
+    suggestion.setIhIdentifier(ihIdentifier);
+    return suggestion;
+  }
+}
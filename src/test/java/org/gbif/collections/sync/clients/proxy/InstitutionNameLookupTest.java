@@ -0,0 +1,131 @@
+package org.gbif.collections.sync.clients.proxy;
+
+import org.gbif.api.model.collections.Institution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/** Tests the {@link InstitutionNameLookup}. */
+public class InstitutionNameLookupTest {
+
+  @Test
+  public void completeTest() {
+    AtomicInteger remoteLookups = new AtomicInteger();
+    InstitutionNameLookup lookup =
+        new InstitutionNameLookup(
+            n -> {
+              remoteLookups.incrementAndGet();
+              return new ArrayList<>();
+            },
+            null,
+            10);
+    Institution i1 = institution("Natural History Museum");
+    lookup.addAll(Arrays.asList(i1, institution("Botanical Garden")), true);
+
+    assertEquals(Collections.singletonList(i1), lookup.find(" natural  history MUSEUM"));
+    assertTrue(lookup.find("Other").isEmpty());
+    assertTrue(lookup.find(null).isEmpty());
+    assertEquals(0, remoteLookups.get());
+  }
+
+  @Test
+  public void bulkFetchTest() {
+    AtomicInteger bulkFetches = new AtomicInteger();
+    Institution fetched = institution("Botanical Garden");
+    InstitutionNameLookup lookup =
+        new InstitutionNameLookup(
+            n -> {
+              throw new IllegalStateException("Not expected");
+            },
+            () -> {
+              bulkFetches.incrementAndGet();
+              return Collections.singletonList(fetched);
+            },
+            10);
+    lookup.addAll(Collections.singletonList(institution("Natural History Museum")), false);
+
+    assertEquals(Collections.singletonList(fetched), lookup.find("Botanical Garden"));
+    assertTrue(lookup.find("Other").isEmpty());
+    assertEquals(1, bulkFetches.get());
+  }
+
+  @Test
+  public void remoteFallbackTest() {
+    AtomicInteger remoteLookups = new AtomicInteger();
+    Institution remote = institution("Botanical Garden");
+    InstitutionNameLookup lookup =
+        new InstitutionNameLookup(
+            n -> {
+              remoteLookups.incrementAndGet();
+              return Collections.singletonList(remote);
+            },
+            () -> {
+              throw new IllegalStateException("Bulk fetch failed");
+            },
+            10);
+    lookup.addAll(Collections.emptyList(), false);
+
+    assertEquals(Collections.singletonList(remote), lookup.find("Botanical Garden"));
+    assertEquals(Collections.singletonList(remote), lookup.find("botanical garden"));
+    assertEquals(1, remoteLookups.get());
+  }
+
+  @Test
+  public void failedRemoteLookupTest() {
+    AtomicInteger remoteLookups = new AtomicInteger();
+    Institution remote = institution("Botanical Garden");
+    InstitutionNameLookup lookup =
+        new InstitutionNameLookup(
+            n -> {
+              if (remoteLookups.incrementAndGet() == 1) {
+                throw new IllegalStateException("Registry not available");
+              }
+              return Collections.singletonList(remote);
+            },
+            null,
+            10);
+
+    try {
+      lookup.find("Botanical Garden");
+      fail("The error of the lookup should be thrown");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+
+    // the failure is not cached
+    assertEquals(Collections.singletonList(remote), lookup.find("Botanical Garden"));
+    assertEquals(2, remoteLookups.get());
+  }
+
+  @Test
+  public void updateTest() {
+    InstitutionNameLookup lookup = new InstitutionNameLookup(n -> new ArrayList<>(), null, 10);
+    Institution institution = institution("Natural History Museum");
+    lookup.addAll(Collections.singletonList(institution), true);
+
+    Institution renamed = institution("Museum of Natural History");
+    renamed.setKey(institution.getKey());
+    lookup.put(renamed);
+
+    assertTrue(lookup.find("Natural History Museum").isEmpty());
+    List<Institution> found = lookup.find("Museum of Natural History");
+    assertEquals(Collections.singletonList(renamed), found);
+  }
+
+  private static Institution institution(String name) {
+    Institution institution = new Institution();
+    institution.setKey(UUID.randomUUID());
+    institution.setName(name);
+    return institution;
+  }
+}
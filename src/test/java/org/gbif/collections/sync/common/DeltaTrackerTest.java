@@ -0,0 +1,151 @@
+package org.gbif.collections.sync.common;
+
+import org.gbif.api.model.collections.Institution;
+import org.gbif.collections.sync.config.SyncConfig;
+import org.gbif.collections.sync.ih.model.IHInstitution;
+
+import java.io.File;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/** Tests the {@link DeltaTracker}. */
+public class DeltaTrackerTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void unchangedRecordTest() {
+    SyncConfig config = syncConfig();
+
+    DeltaTracker firstRun = DeltaTracker.create(config);
+    assertTrue(firstRun.hasChanged("1", ihInstitution("A"), Collections.emptyList()));
+    firstRun.save();
+
+    DeltaTracker secondRun = DeltaTracker.create(config);
+    assertFalse(secondRun.hasChanged("1", ihInstitution("A"), Collections.emptyList()));
+    assertTrue(secondRun.hasChanged("1", ihInstitution("B"), Collections.emptyList()));
+    assertTrue(secondRun.hasChanged("2", ihInstitution("A"), Collections.emptyList()));
+  }
+
+  @Test
+  public void modifiedLinkedEntityTest() {
+    SyncConfig config = syncConfig();
+
+    // the registry clock is ahead of the local one, the watermark has to come from the registry
+    Instant loadedModified = Instant.now().plus(1, ChronoUnit.DAYS);
+    Institution institution = institution(loadedModified);
+
+    DeltaTracker firstRun = DeltaTracker.create(config);
+    firstRun.hasChanged("1", ihInstitution("A"), Collections.singletonList(institution));
+    firstRun.save();
+
+    Institution modifiedInstitution =
+        institution(institution.getKey(), loadedModified.plus(1, ChronoUnit.MINUTES));
+
+    DeltaTracker secondRun = DeltaTracker.create(config);
+    assertFalse(
+        secondRun.hasChanged("1", ihInstitution("A"), Collections.singletonList(institution)));
+    assertTrue(
+        secondRun.hasChanged(
+            "1", ihInstitution("A"), Collections.singletonList(modifiedInstitution)));
+  }
+
+  @Test
+  public void writtenEntityTest() {
+    SyncConfig config = syncConfig();
+
+    Instant loadedModified = Instant.now().minus(1, ChronoUnit.DAYS);
+    Institution institution = institution(loadedModified);
+    Institution otherInstitution = institution(loadedModified);
+
+    DeltaTracker firstRun = DeltaTracker.create(config);
+    firstRun.hasChanged("1", ihInstitution("A"), Collections.singletonList(institution));
+    firstRun.hasChanged("2", ihInstitution("B"), Collections.singletonList(otherInstitution));
+
+    // the sync writes the first institution
+    Institution writtenInstitution =
+        institution(institution.getKey(), loadedModified.plus(1, ChronoUnit.HOURS));
+    firstRun.save(() -> Collections.singletonList(writtenInstitution));
+
+    // the write of the sync doesn't make the record change
+    DeltaTracker secondRun = DeltaTracker.create(config);
+    assertFalse(
+        secondRun.hasChanged(
+            "1", ihInstitution("A"), Collections.singletonList(writtenInstitution)));
+
+    // but a later change of another user does
+    Institution modifiedInstitution =
+        institution(institution.getKey(), loadedModified.plus(2, ChronoUnit.HOURS));
+    assertTrue(
+        secondRun.hasChanged(
+            "1", ihInstitution("A"), Collections.singletonList(modifiedInstitution)));
+
+    // the other institution was modified by another user after it was loaded
+    Institution otherModifiedInstitution =
+        institution(otherInstitution.getKey(), loadedModified.plus(1, ChronoUnit.HOURS));
+    assertTrue(
+        secondRun.hasChanged(
+            "2", ihInstitution("B"), Collections.singletonList(otherModifiedInstitution)));
+  }
+
+  @Test
+  public void fullSyncTest() {
+    SyncConfig config = syncConfig();
+
+    DeltaTracker firstRun = DeltaTracker.create(config);
+    firstRun.hasChanged("1", ihInstitution("A"), Collections.emptyList());
+    firstRun.save();
+
+    config.setFullSync(true);
+    DeltaTracker secondRun = DeltaTracker.create(config);
+    assertTrue(secondRun.hasChanged("1", ihInstitution("A"), Collections.emptyList()));
+  }
+
+  @Test
+  public void dryRunTest() {
+    SyncConfig config = syncConfig();
+    config.setDryRun(true);
+
+    DeltaTracker firstRun = DeltaTracker.create(config);
+    firstRun.hasChanged("1", ihInstitution("A"), Collections.emptyList());
+    firstRun.save();
+
+    DeltaTracker secondRun = DeltaTracker.create(config);
+    assertTrue(secondRun.hasChanged("1", ihInstitution("A"), Collections.emptyList()));
+  }
+
+  private SyncConfig syncConfig() {
+    SyncConfig config = new SyncConfig();
+    config.setDryRun(false);
+    config.setDeltaStateFile(new File(folder.getRoot(), "delta.json").getAbsolutePath());
+    return config;
+  }
+
+  private static Institution institution(Instant modified) {
+    return institution(UUID.randomUUID(), modified);
+  }
+
+  private static Institution institution(UUID key, Instant modified) {
+    Institution institution = new Institution();
+    institution.setKey(key);
+    institution.setModified(Date.from(modified));
+    return institution;
+  }
+
+  private static IHInstitution ihInstitution(String name) {
+    IHInstitution ihInstitution = new IHInstitution();
+    ihInstitution.setIrn("1");
+    ihInstitution.setOrganization(name);
+    return ihInstitution;
+  }
+}
@@ -0,0 +1,92 @@
+package org.gbif.collections.sync.common;
+
+import org.gbif.collections.sync.common.MetricsRegistry.CallStats;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests the {@link MetricsRegistry}. */
+public class MetricsRegistryTest {
+
+  @Test
+  public void callStatsTest() {
+    MetricsRegistry registry = new MetricsRegistry();
+    for (int i = 1; i <= 100; i++) {
+      registry.recordCall("grscicoll", "GET", "institution/{key}", 200, millis(i), 10);
+    }
+    registry.recordCall("grscicoll", "GET", "institution/{key}", 404, millis(5), 0);
+    registry.recordCall("ih", "GET", "staff/search", 200, millis(1), 0);
+
+    List<CallStats> stats = registry.getCallStats();
+    assertEquals(3, stats.size());
+
+    // sorted by total time
+    CallStats institutionStats = stats.get(0);
+    assertEquals("institution/{key}", institutionStats.getEndpoint());
+    assertEquals(200, institutionStats.getStatus());
+    assertEquals(100, institutionStats.getCount());
+    assertEquals(5050, institutionStats.getTotalMillis());
+    assertEquals(50, institutionStats.getP50Millis());
+    assertEquals(95, institutionStats.getP95Millis());
+    assertEquals(99, institutionStats.getP99Millis());
+    assertEquals(100, institutionStats.getMaxMillis());
+    assertEquals(1000, institutionStats.getBytes());
+  }
+
+  @Test
+  public void boundedTimerTest() {
+    MetricsRegistry registry = new MetricsRegistry();
+    for (int i = 1; i <= 10_000; i++) {
+      registry.recordCall("grscicoll", "GET", "collection/{key}", 200, millis(i % 1000 + 1), 0);
+    }
+    registry.recordBytes("grscicoll", "GET", "collection/{key}", 200, 2048);
+
+    CallStats stats = registry.getCallStats().get(0);
+    assertEquals(10_000, stats.getCount());
+    assertEquals(1000, stats.getMaxMillis());
+    assertEquals(2048, stats.getBytes());
+
+    // the percentiles are estimated from a sample of the durations
+    assertTrue(stats.getP50Millis() > 400 && stats.getP50Millis() < 600);
+    assertTrue(stats.getP99Millis() > 950 && stats.getP99Millis() <= 1000);
+  }
+
+  @Test
+  public void writeJsonTest() throws IOException {
+    MetricsRegistry registry = new MetricsRegistry();
+    registry.recordCall("github", "POST", "issues", 201, millis(10), 100);
+    registry.gauge("github.rateLimitWaitMillis", () -> 7);
+
+    Path file = Files.createTempFile("metrics", ".json");
+    try {
+      registry.writeJson(file);
+      JsonNode report = new ObjectMapper().readTree(file.toFile());
+      assertEquals(1, report.get("calls").size());
+      assertEquals("issues", report.get("calls").get(0).get("endpoint").asText());
+      assertEquals(7, report.get("gauges").get("github.rateLimitWaitMillis").asLong());
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public void emptyTest() {
+    MetricsRegistry registry = new MetricsRegistry();
+    assertTrue(registry.isEmpty());
+    assertTrue(registry.getCallStats().isEmpty());
+  }
+
+  private static long millis(long millis) {
+    return TimeUnit.MILLISECONDS.toNanos(millis);
+  }
+}
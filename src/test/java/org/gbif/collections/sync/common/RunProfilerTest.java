@@ -0,0 +1,77 @@
+package org.gbif.collections.sync.common;
+
+import org.gbif.collections.sync.common.RunProfiler.PhaseStats;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests the {@link RunProfiler} and the {@link ProgressReporter}. */
+public class RunProfilerTest {
+
+  @Test
+  public void phasesTest() {
+    RunProfiler profiler = RunProfiler.create("test");
+    profiler.record("load", TimeUnit.MILLISECONDS.toNanos(100));
+    for (int i = 0; i < 3; i++) {
+      profiler.record("match", TimeUnit.MILLISECONDS.toNanos(10));
+    }
+    // the sub-millisecond durations are not lost
+    for (int i = 0; i < 4; i++) {
+      profiler.record("lookup", TimeUnit.MICROSECONDS.toNanos(500));
+    }
+    assertEquals("value", profiler.time("apply", () -> "value"));
+
+    // in the order they were first timed
+    List<PhaseStats> phases = profiler.getPhases();
+    assertEquals(4, phases.size());
+    assertEquals("load", phases.get(0).getPhase());
+    assertEquals(100, phases.get(0).getTotalMillis());
+    assertEquals("match", phases.get(1).getPhase());
+    assertEquals(3, phases.get(1).getCount());
+    assertEquals(30, phases.get(1).getTotalMillis());
+    assertEquals("lookup", phases.get(2).getPhase());
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(2), phases.get(2).getTotalNanos());
+    assertEquals(2, phases.get(2).getTotalMillis());
+    assertEquals("apply", phases.get(3).getPhase());
+    assertEquals(1, phases.get(3).getCount());
+
+    MetricsRegistry metricsRegistry = new MetricsRegistry();
+    profiler.report(metricsRegistry);
+    assertEquals(30L, (long) metricsRegistry.getGauges().get("phase.match.millis"));
+    assertEquals(2L, (long) metricsRegistry.getGauges().get("phase.lookup.millis"));
+    assertTrue(metricsRegistry.getGauges().containsKey("phase.total.millis"));
+  }
+
+  @Test
+  public void failedPhaseIsTimedTest() {
+    RunProfiler profiler = RunProfiler.create("test");
+    try {
+      profiler.time(
+          "apply",
+          () -> {
+            throw new IllegalStateException();
+          });
+    } catch (IllegalStateException e) {
+      // expected
+    }
+    assertEquals(1, profiler.getPhases().get(0).getCount());
+  }
+
+  @Test
+  public void progressTest() {
+    try (ProgressReporter progress = ProgressReporter.start("test", 4, null, () -> 1)) {
+      progress.increment();
+      progress.increment();
+
+      assertEquals(2, progress.getProcessed());
+      String line = progress.progressLine();
+      assertTrue(line.startsWith("test progress: 2/4 (50.0%)"));
+      assertTrue(line.endsWith("1 failures"));
+    }
+  }
+}
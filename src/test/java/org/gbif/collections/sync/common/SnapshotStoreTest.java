@@ -0,0 +1,104 @@
+package org.gbif.collections.sync.common;
+
+import org.gbif.api.model.collections.Address;
+import org.gbif.api.model.collections.Institution;
+import org.gbif.api.vocabulary.Country;
+import org.gbif.collections.sync.config.SyncConfig.SnapshotConfig;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+
+/** Tests the {@link SnapshotStore}. */
+public class SnapshotStoreTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void reuseSnapshotTest() {
+    SnapshotStore store = SnapshotStore.create(snapshotConfig(24, false));
+    AtomicInteger calls = new AtomicInteger();
+
+    List<Institution> first = store.load("institutions", Institution.class, fetcher(calls));
+    List<Institution> second = store.load("institutions", Institution.class, fetcher(calls));
+
+    assertEquals(1, calls.get());
+    assertEquals(1, second.size());
+    assertEquals(first.get(0).getKey(), second.get(0).getKey());
+    assertEquals(first.get(0).getName(), second.get(0).getName());
+    assertEquals(Country.SPAIN, second.get(0).getAddress().getCountry());
+  }
+
+  @Test
+  public void expiredSnapshotTest() {
+    SnapshotStore store = SnapshotStore.create(snapshotConfig(0, false));
+    AtomicInteger calls = new AtomicInteger();
+
+    store.load("institutions", Institution.class, fetcher(calls));
+    store.load("institutions", Institution.class, fetcher(calls));
+
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  public void noDirectoryTest() {
+    SnapshotStore store = SnapshotStore.create(null);
+    AtomicInteger calls = new AtomicInteger();
+
+    store.load("institutions", Institution.class, fetcher(calls));
+    store.load("institutions", Institution.class, fetcher(calls));
+
+    assertEquals(2, calls.get());
+  }
+
+  @Test
+  public void targetStateTest() {
+    AtomicInteger calls = new AtomicInteger();
+
+    // the registry data is fetched again in the runs that write to it
+    SnapshotStore store = SnapshotStore.create(snapshotConfig(24, false), false);
+    store.loadTargetState("institutions", Institution.class, fetcher(calls));
+    store.loadTargetState("institutions", Institution.class, fetcher(calls));
+    assertEquals(2, calls.get());
+
+    // but the snapshot is reused in dry runs
+    SnapshotStore dryRunStore = SnapshotStore.create(snapshotConfig(24, false), true);
+    dryRunStore.loadTargetState("institutions", Institution.class, fetcher(calls));
+    assertEquals(2, calls.get());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void frozenWithoutSnapshotTest() {
+    SnapshotStore store = SnapshotStore.create(snapshotConfig(24, true));
+    store.load("institutions", Institution.class, fetcher(new AtomicInteger()));
+  }
+
+  private SnapshotConfig snapshotConfig(long maxAgeHours, boolean frozen) {
+    SnapshotConfig config = new SnapshotConfig();
+    config.setDirectory(folder.getRoot().getAbsolutePath());
+    config.setMaxAgeHours(maxAgeHours);
+    config.setFrozen(frozen);
+    return config;
+  }
+
+  private static Supplier<List<Institution>> fetcher(AtomicInteger calls) {
+    return () -> {
+      calls.incrementAndGet();
+      Institution institution = new Institution();
+      institution.setKey(UUID.randomUUID());
+      institution.setName("inst");
+      Address address = new Address();
+      address.setCountry(Country.SPAIN);
+      institution.setAddress(address);
+      return Collections.singletonList(institution);
+    };
+  }
+}
@@ -0,0 +1,65 @@
+package org.gbif.collections.sync.common.match;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests the {@link TrigramIndex}. */
+public class TrigramIndexTest {
+
+  @Test
+  public void trigramsTest() {
+    assertEquals(
+        new HashSet<>(Arrays.asList(" ab", "abc", "bc ", "c d", " d ")),
+        TrigramIndex.trigrams("ÁBC, d."));
+    assertTrue(TrigramIndex.trigrams("  ").isEmpty());
+    assertTrue(TrigramIndex.trigrams("...").isEmpty());
+    assertTrue(TrigramIndex.trigrams(null).isEmpty());
+  }
+
+  @Test
+  public void searchTest() {
+    TrigramIndex<String> index = TrigramIndex.create(0.5);
+    UUID k1 = UUID.randomUUID();
+    UUID k2 = UUID.randomUUID();
+    UUID k3 = UUID.randomUUID();
+    index.put(k1, "i1", "University of Oxford", "OXF");
+    index.put(k2, "i2", "Oxford University Herbaria", "OXF2");
+    index.put(k3, "i3", "Natural History Museum", "NHM");
+
+    List<TrigramIndex.Candidate<String>> candidates =
+        index.search(5, "Universty of Oxford", "ABC");
+    assertEquals(2, candidates.size());
+    assertEquals("i1", candidates.get(0).getValue());
+    assertEquals("i2", candidates.get(1).getValue());
+    assertTrue(candidates.get(0).getScore() > candidates.get(1).getScore());
+
+    // only the fields in the same position are compared
+    assertTrue(index.search(5, "NHM").isEmpty());
+    assertEquals("i3", index.search(5, null, "NHM").get(0).getValue());
+    assertEquals(1, index.search(1, "University of Oxford").size());
+    assertTrue(index.search(5, "Botanical Garden", "BG").isEmpty());
+  }
+
+  @Test
+  public void updateTest() {
+    TrigramIndex<String> index = TrigramIndex.create(0.5);
+    UUID key = UUID.randomUUID();
+    index.put(key, "old", "Natural History Museum", "NHM");
+    index.put(key, "new", "Botanical Garden", "BG");
+
+    assertEquals(1, index.size());
+    assertTrue(index.search(5, "Natural History Museum").isEmpty());
+    assertEquals("new", index.search(5, "Botanical Garden").get(0).getValue());
+
+    index.remove(key);
+    assertEquals(0, index.size());
+    assertTrue(index.search(5, "Botanical Garden").isEmpty());
+  }
+}
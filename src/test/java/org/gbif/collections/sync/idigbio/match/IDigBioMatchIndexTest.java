@@ -0,0 +1,88 @@
+package org.gbif.collections.sync.idigbio.match;
+
+import org.gbif.api.model.collections.Collection;
+import org.gbif.api.model.collections.Institution;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests the {@link IDigBioMatchIndex}. */
+public class IDigBioMatchIndexTest {
+
+  private static final String SYNC_USER = "sync-user";
+
+  @Test
+  public void collectionsTest() {
+    UUID instKey = UUID.randomUUID();
+    Collection c1 = collection(instKey, "C1", "Collection of Plants", "user");
+    Collection c2 = collection(instKey, "C2", "Collection of Fungi", "user");
+    Collection createdBySync = collection(instKey, "C1", "Collection of Plants", SYNC_USER);
+    Collection noCreator = collection(instKey, "C1", "Collection of Plants", null);
+
+    IDigBioMatchIndex index =
+        IDigBioMatchIndex.create(Arrays.asList(c1, c2, createdBySync, noCreator), SYNC_USER);
+
+    assertEquals(2, index.getCollections(instKey).size());
+    assertEquals(
+        Collections.singletonList(c1), index.getCollections(instKey, Arrays.asList("C1", "C1")));
+    assertEquals(2, index.getCollections(instKey, Arrays.asList("C1", "C2")).size());
+    assertTrue(index.getCollections(instKey, Collections.singletonList("C3")).isEmpty());
+    assertTrue(index.getCollections(UUID.randomUUID()).isEmpty());
+  }
+
+  @Test
+  public void updateCollectionTest() {
+    UUID instKey = UUID.randomUUID();
+    Collection c1 = collection(instKey, "C1", "Collection of Plants", "user");
+    IDigBioMatchIndex index = IDigBioMatchIndex.create(Collections.singletonList(c1), SYNC_USER);
+    assertEquals(NameSignature.of("plants collection"), index.getNameSignature(c1));
+
+    Collection updated = collection(instKey, "C2", "Collection of Fungi", "user");
+    updated.setKey(c1.getKey());
+    index.updateCollection(c1.getKey(), updated);
+
+    assertTrue(index.getCollections(instKey, Collections.singletonList("C1")).isEmpty());
+    assertEquals(
+        Collections.singletonList(updated),
+        index.getCollections(instKey, Collections.singletonList("C2")));
+    assertEquals(NameSignature.of("fungi collection"), index.getNameSignature(updated));
+
+    // an update by the sync user makes the collection not matchable
+    Collection updatedBySync = collection(instKey, "C2", "Collection of Fungi", SYNC_USER);
+    updatedBySync.setKey(c1.getKey());
+    index.updateCollection(c1.getKey(), updatedBySync);
+    assertTrue(index.getCollections(instKey).isEmpty());
+  }
+
+  @Test
+  public void newInstitutionsTest() {
+    IDigBioMatchIndex index = IDigBioMatchIndex.create(Collections.emptyList(), SYNC_USER);
+    Institution i1 = new Institution();
+    i1.setCode("I1");
+    Institution i2 = new Institution();
+    i2.setCode("I2");
+    index.addNewInstitution(i1);
+    index.addNewInstitution(i2);
+    index.addNewInstitution(new Institution());
+
+    assertEquals(
+        Collections.singletonList(i1), index.getNewInstitutions(Arrays.asList("I1", "I1", "I3")));
+    assertEquals(2, index.getNewInstitutions(Arrays.asList("I1", "I2")).size());
+  }
+
+  private static Collection collection(UUID instKey, String code, String name, String creator) {
+    Collection collection = new Collection();
+    collection.setKey(UUID.randomUUID());
+    collection.setInstitutionKey(instKey);
+    collection.setCode(code);
+    collection.setName(name);
+    collection.setCreatedBy(creator);
+    return collection;
+  }
+}
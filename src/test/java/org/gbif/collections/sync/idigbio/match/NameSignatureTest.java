@@ -0,0 +1,37 @@
+package org.gbif.collections.sync.idigbio.match;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Tests the {@link NameSignature}. */
+public class NameSignatureTest {
+
+  @Test
+  public void signatureTest() {
+    NameSignature signature = NameSignature.of("  the Test\tPHRASE\u00A0of  names ");
+    assertEquals(Arrays.asList("names", "phrase", "test"), signature.getTokens());
+    assertEquals("names phrase test", signature.toString());
+    assertEquals(NameSignature.of("names phrase test"), signature);
+
+    assertTrue(NameSignature.of("the of").isEmpty());
+    assertNull(NameSignature.of(null));
+  }
+
+  @Test
+  public void similarTest() {
+    assertTrue(NameSignature.similar(NameSignature.of("test phrase"), NameSignature.of("test")));
+    assertTrue(NameSignature.similar(NameSignature.of("test"), NameSignature.of("test phrase")));
+    assertTrue(
+        NameSignature.similar(NameSignature.of("test phrases"), NameSignature.of("my phrase")));
+    assertFalse(
+        NameSignature.similar(NameSignature.of("test phrase"), NameSignature.of("test other")));
+    assertFalse(NameSignature.similar(null, NameSignature.of("test")));
+    assertFalse(NameSignature.similar(NameSignature.of("test"), null));
+  }
+}
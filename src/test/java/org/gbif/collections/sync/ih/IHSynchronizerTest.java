@@ -7,22 +7,38 @@ import org.gbif.api.vocabulary.collections.Source;
 import org.gbif.collections.sync.SyncResult;
 import org.gbif.collections.sync.SyncResult.*;
 import org.gbif.collections.sync.common.DataLoader;
+import org.gbif.collections.sync.config.IHConfig;
+import org.gbif.collections.sync.config.SyncConfig;
 import org.gbif.collections.sync.ih.IHDataLoader.IHData;
 import org.gbif.collections.sync.ih.model.IHInstitution;
 import org.gbif.collections.sync.ih.model.IHStaff;
 
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import static org.gbif.collections.sync.TestUtils.assertEmptyContactMatch;
+import static org.gbif.collections.sync.TestUtils.createTestSyncConfig;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class IHSynchronizerTest extends BaseIHTest {
 
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
   @Test
   public void ihSynchronizerTest() {
     DataLoader<IHData> dataLoader = createData();
@@ -61,6 +77,141 @@ public class IHSynchronizerTest extends BaseIHTest {
     assertEquals(1, syncResult.getNoMatches().size());
   }
 
+  @Test
+  public void institutionNameLookupErrorTest() throws IOException {
+    AtomicInteger suggestionsCreated = new AtomicInteger();
+    try (MockWebServer server = new MockWebServer()) {
+      // the registry fails all the calls, including the lookups of the institutions by name
+      server.setDispatcher(
+          new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+              if ("POST".equals(request.getMethod())
+                  && request.getPath().contains("changeSuggestion")) {
+                suggestionsCreated.incrementAndGet();
+              }
+              return new MockResponse().setResponseCode(500);
+            }
+          });
+      server.start();
+
+      SyncConfig syncConfig = createTestSyncConfig();
+      syncConfig.setDryRun(false);
+      syncConfig.setFailedActionsDir(folder.getRoot().getAbsolutePath());
+      syncConfig.getRegistry().setWsUrl(server.url("/").toString());
+      syncConfig.getRegistry().setWsPassword("wsPassword");
+      syncConfig.getRegistry().getRetry().setMaxAttempts(1);
+      IHConfig config = new IHConfig();
+      config.setSyncConfig(syncConfig);
+
+      IHInstitution ihInstitution = new IHInstitution();
+      ihInstitution.setIrn("1");
+      ihInstitution.setCode("c1");
+      ihInstitution.setOrganization("o1");
+      // the change suggestions are loaded so they're not requested to the registry
+      IHData data =
+          new IHData(
+              Collections.emptyList(),
+              Collections.emptyList(),
+              Collections.singletonList(ihInstitution),
+              Collections.emptyList(),
+              COUNTRIES,
+              Collections.emptyList());
+
+      SyncResult syncResult = IHSynchronizer.create(config, () -> data).sync();
+
+      // the record is reported as failed and no suggestion is created for it
+      assertEquals(1, syncResult.getFailedActions().size());
+      assertEquals(1, syncResult.getNoMatches().size());
+      assertNull(syncResult.getNoMatches().get(0).getNewChangeSuggestion());
+      assertEquals(0, suggestionsCreated.get());
+    }
+  }
+
+  @Test
+  public void parallelHandlingTest() throws IOException {
+    AtomicInteger calls = new AtomicInteger();
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    try (MockWebServer server = new MockWebServer()) {
+      server.setDispatcher(
+          new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+              calls.incrementAndGet();
+              maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+              try {
+                Thread.sleep(50);
+              } finally {
+                running.decrementAndGet();
+              }
+              if ("POST".equals(request.getMethod())
+                  && "/collection".equals(request.getPath())) {
+                return new MockResponse()
+                    .setHeader("Content-Type", "application/json")
+                    .setBody("\"" + UUID.randomUUID() + "\"");
+              }
+              return "POST".equals(request.getMethod())
+                  ? new MockResponse().setHeader("Content-Type", "application/json").setBody("1")
+                  : new MockResponse().setResponseCode(204);
+            }
+          });
+      server.start();
+
+      SyncConfig syncConfig = createTestSyncConfig();
+      syncConfig.setDryRun(false);
+      syncConfig.setParallelism(4);
+      syncConfig.setFailedActionsDir(folder.getRoot().getAbsolutePath());
+      syncConfig.getRegistry().setWsUrl(server.url("/").toString());
+      syncConfig.getRegistry().setWsPassword("wsPassword");
+      syncConfig.getRegistry().getRetry().setMaxAttempts(1);
+      IHConfig config = new IHConfig();
+      config.setSyncConfig(syncConfig);
+
+      IHInstitution ih1 = new IHInstitution();
+      ih1.setIrn("1");
+      ih1.setCode("c1");
+      ih1.setOrganization("o1");
+      IHInstitution ih2 = new IHInstitution();
+      ih2.setIrn("2");
+      ih2.setCode("c2");
+      ih2.setOrganization("o2");
+
+      // the IRNs are different but the collection of the second one belongs to the institution
+      // of the first one
+      Institution institution = new Institution();
+      institution.setKey(UUID.randomUUID());
+      institution.setCode("c1");
+      institution.setName("inst");
+      institution.setMasterSource(MasterSourceType.IH);
+      institution.setMasterSourceMetadata(new MasterSourceMetadata(Source.IH_IRN, ih1.getIrn()));
+      Collection collection = new Collection();
+      collection.setKey(UUID.randomUUID());
+      collection.setInstitutionKey(institution.getKey());
+      collection.setCode("c2");
+      collection.setName("coll");
+      collection.setMasterSource(MasterSourceType.IH);
+      collection.setMasterSourceMetadata(new MasterSourceMetadata(Source.IH_IRN, ih2.getIrn()));
+
+      IHData data =
+          new IHData(
+              Collections.singletonList(institution),
+              Collections.singletonList(collection),
+              Arrays.asList(ih1, ih2),
+              Collections.emptyList(),
+              COUNTRIES,
+              Collections.emptyList());
+
+      SyncResult syncResult = IHSynchronizer.create(config, () -> data).sync();
+
+      assertEquals(1, syncResult.getInstitutionOnlyMatches().size());
+      assertEquals(1, syncResult.getCollectionOnlyMatches().size());
+      // both results write the same institution, so they are handled one after another
+      assertTrue(calls.get() > 1);
+      assertEquals(1, maxRunning.get());
+    }
+  }
+
   private DataLoader<IHData> createData() {
     IHInstitution ih1 = new IHInstitution();
     ih1.setCode("c1");
@@ -15,6 +15,8 @@ import org.gbif.collections.sync.ih.model.IHStaff;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
 
 import org.junit.Test;
 
@@ -152,4 +154,47 @@ public class IHStaffMatchResultHandlerTest extends BaseIHTest {
     contact.setEmail("aa@aa.com;bb@bb.es;aaa");
     assertFalse(IHStaffMatchResultHandler.isInvalidIhStaff(ihStaff));
   }
+
+  @Test
+  public void filterValidStaffTest() {
+    IHStaff active = new IHStaff();
+    active.setIrn("1");
+    active.setFirstName("first");
+    active.setCurrentStatus("Active");
+
+    IHStaff inactive = new IHStaff();
+    inactive.setIrn("2");
+    inactive.setFirstName("first");
+    inactive.setCurrentStatus("Inactive");
+
+    IHStaff invalid = new IHStaff();
+    invalid.setIrn("3");
+
+    assertEquals(
+        Collections.singletonList(active),
+        staffMatchResultHandler.filterValidStaff(Arrays.asList(active, inactive, invalid)));
+  }
+
+  @Test
+  public void indexContactsByIrnTest() {
+    Contact c1 = new Contact();
+    c1.setKey(1);
+    c1.getUserIds().add(new UserId(IdType.IH_IRN, "1"));
+    c1.getUserIds().add(new UserId(IdType.OTHER, "2"));
+    Contact c2 = new Contact();
+    c2.setKey(2);
+    c2.getUserIds().add(new UserId(IdType.IH_IRN, "1"));
+    c2.getUserIds().add(new UserId(IdType.IH_IRN, "3"));
+    Contact c3 = new Contact();
+    c3.setKey(3);
+
+    Map<String, Set<Contact>> index =
+        IHStaffMatchResultHandler.indexContactsByIrn(Arrays.asList(c1, c2, c3));
+
+    assertEquals(2, index.size());
+    assertEquals(2, index.get("1").size());
+    assertEquals(Collections.singleton(c2), index.get("3"));
+    assertFalse(index.containsKey("2"));
+    assertTrue(IHStaffMatchResultHandler.indexContactsByIrn(null).isEmpty());
+  }
 }
@@ -0,0 +1,210 @@
+package org.gbif.collections.sync.loadtest;
+
+import org.gbif.api.model.collections.Institution;
+import org.gbif.collections.sync.SyncResult;
+import org.gbif.collections.sync.common.MetricsRegistry;
+import org.gbif.collections.sync.config.IDigBioConfig;
+import org.gbif.collections.sync.config.IHConfig;
+import org.gbif.collections.sync.config.SyncConfig;
+import org.gbif.collections.sync.config.SyncConfig.NotificationConfig;
+import org.gbif.collections.sync.config.SyncConfig.RegistryConfig;
+import org.gbif.collections.sync.idigbio.IDigBioSynchronizer;
+import org.gbif.collections.sync.idigbio.model.IDigBioRecord;
+import org.gbif.collections.sync.ih.IHSynchronizer;
+import org.gbif.collections.sync.loadtest.MockRegistryServer.Options;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.beust.jcommander.JCommander;
+import com.beust.jcommander.Parameter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs the IH and the iDigBio syncs in non-dry mode against a {@link MockRegistryServer} and
+ * reports their wall time, throughput and calls. It can be run from the command line, e.g.
+ * {@code --size 10000 --latencyMillis 20 --errorRate 0.01 --parallelism 8}.
+ */
+@Slf4j
+public class LoadTestDriver {
+
+  private static final ObjectMapper EXPORT_MAPPER =
+      new ObjectMapper()
+          .registerModule(new JavaTimeModule())
+          .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+  private LoadTestDriver() {}
+
+  static class Args {
+    @Parameter(names = "--size")
+    int size = 1_000;
+
+    @Parameter(names = "--latencyMillis")
+    long latencyMillis = 0;
+
+    @Parameter(names = "--errorRate")
+    double errorRate = 0;
+
+    @Parameter(names = "--parallelism")
+    int parallelism = 1;
+  }
+
+  public static void main(String[] args) throws IOException {
+    Args cliArgs = new Args();
+    JCommander.newBuilder().addObject(cliArgs).build().parse(args);
+
+    Options options =
+        Options.builder()
+            .size(cliArgs.size)
+            .latencyMillis(cliArgs.latencyMillis)
+            .errorRate(cliArgs.errorRate)
+            .build();
+    run(options, cliArgs.parallelism, Files.createTempDirectory("load-test"))
+        .forEach(r -> log.info(r.summary()));
+  }
+
+  /** Runs both syncs, one after the other, against the same server. */
+  public static List<LoadTestReport> run(Options options, int parallelism, Path workDir)
+      throws IOException {
+    List<LoadTestReport> reports = new ArrayList<>();
+    try (MockRegistryServer server = MockRegistryServer.start(options)) {
+      reports.add(runIH(server, parallelism, workDir));
+      reports.add(runIDigBio(server, options, parallelism, workDir));
+    }
+    return reports;
+  }
+
+  static LoadTestReport runIH(MockRegistryServer server, int parallelism, Path workDir) {
+    IHConfig ihConfig = new IHConfig();
+    ihConfig.setSyncConfig(createSyncConfig(server, parallelism, workDir));
+    ihConfig.setIhWsUrl(server.getIhUrl());
+    ihConfig.setIhPortalUrl("http://localhost");
+
+    return measure(
+        "IH sync",
+        server,
+        server.getIhInstitutions().size(),
+        () -> IHSynchronizer.builder().ihConfig(ihConfig).build().sync());
+  }
+
+  static LoadTestReport runIDigBio(
+      MockRegistryServer server, Options options, int parallelism, Path workDir)
+      throws IOException {
+    List<IDigBioRecord> records = createIDigBioRecords(server.getInstitutions(), options);
+    Path exportFile = workDir.resolve("idigbio-export.json");
+    EXPORT_MAPPER.writeValue(exportFile.toFile(), records);
+
+    IDigBioConfig iDigBioConfig = new IDigBioConfig();
+    iDigBioConfig.setSyncConfig(createSyncConfig(server, parallelism, workDir));
+    iDigBioConfig.setExportFilePath(exportFile.toString());
+    iDigBioConfig.setIDigBioPortalUrl("http://localhost");
+
+    return measure(
+        "iDigBio sync",
+        server,
+        records.size(),
+        () -> IDigBioSynchronizer.builder().iDigBioConfig(iDigBioConfig).build().sync());
+  }
+
+  private static LoadTestReport measure(
+      String name, MockRegistryServer server, long records, Supplier<SyncResult> sync) {
+    MetricsRegistry metricsRegistry = MetricsRegistry.getInstance();
+    metricsRegistry.clear();
+    Map<String, Long> callsBefore = server.getCallCounts();
+    long errorsBefore = server.getInjectedErrors();
+
+    long start = System.nanoTime();
+    SyncResult result = sync.get();
+    long wallMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    Map<String, Long> calls = new TreeMap<>();
+    server
+        .getCallCounts()
+        .forEach(
+            (k, v) -> {
+              long count = v - callsBefore.getOrDefault(k, 0L);
+              if (count > 0) {
+                calls.put(k, count);
+              }
+            });
+    Map<String, Long> phases = new TreeMap<>();
+    metricsRegistry.getGauges().entrySet().stream()
+        .filter(e -> e.getKey().startsWith("phase."))
+        .forEach(e -> phases.put(e.getKey(), e.getValue()));
+
+    return LoadTestReport.builder()
+        .sync(name)
+        .records(records)
+        .wallMillis(wallMillis)
+        .totalCalls(calls.values().stream().mapToLong(Long::longValue).sum())
+        .injectedErrors(server.getInjectedErrors() - errorsBefore)
+        .failedActions(result.getFailedActions() != null ? result.getFailedActions().size() : 0)
+        .callCounts(calls)
+        .clientCalls(metricsRegistry.getCallStats())
+        .phaseMillis(phases)
+        .build();
+  }
+
+  private static SyncConfig createSyncConfig(
+      MockRegistryServer server, int parallelism, Path workDir) {
+    SyncConfig syncConfig = new SyncConfig();
+    syncConfig.setDryRun(false);
+    syncConfig.setSendNotifications(false);
+    syncConfig.setFullSync(true);
+    syncConfig.setParallelism(parallelism);
+    syncConfig.setFailedActionsDir(workDir.toString());
+
+    RegistryConfig registryConfig = new RegistryConfig();
+    registryConfig.setWsUrl(server.getRegistryUrl());
+    registryConfig.setWsUser("load-test");
+    registryConfig.setWsPassword("load-test");
+    // the errors are injected, there is no need to wait long to retry
+    registryConfig.getRetry().setInitialDelayMillis(10);
+    registryConfig.getRetry().setMaxDelayMillis(100);
+    syncConfig.setRegistry(registryConfig);
+
+    NotificationConfig notificationConfig = new NotificationConfig();
+    notificationConfig.setRegistryPortalUrl("http://localhost");
+    syncConfig.setNotification(notificationConfig);
+    return syncConfig;
+  }
+
+  /**
+   * Creates as many iDigBio records as the size of the server. Most of them point to existing
+   * institutions and the rest are new.
+   */
+  private static List<IDigBioRecord> createIDigBioRecords(
+      List<Institution> institutions, Options options) {
+    Random random = new Random(options.getSeed());
+    List<IDigBioRecord> records = new ArrayList<>();
+    for (int i = 0; i < options.getSize(); i++) {
+      IDigBioRecord record = new IDigBioRecord();
+      if (!institutions.isEmpty() && random.nextInt(10) < 7) {
+        Institution institution = institutions.get(random.nextInt(institutions.size()));
+        record.setGrbioInstMatch(institution.getKey());
+        record.setInstitution(institution.getName());
+        record.setInstitutionCode(institution.getCode());
+      } else {
+        record.setInstitution("iDigBio institution " + i);
+        record.setInstitutionCode("IDB" + i);
+      }
+      record.setCollection("iDigBio collection " + i);
+      record.setCollectionCode("IDBC" + i);
+      record.setCollectionUuid(new UUID(options.getSeed(), i).toString());
+      records.add(record);
+    }
+    return records;
+  }
+}
@@ -0,0 +1,55 @@
+package org.gbif.collections.sync.loadtest;
+
+import org.gbif.collections.sync.common.MetricsRegistry.CallStats;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.Builder;
+import lombok.Data;
+
+/** Outcome of a sync run by the {@link LoadTestDriver}. */
+@Data
+@Builder
+public class LoadTestReport {
+
+  private final String sync;
+  private final long records;
+  private final long wallMillis;
+  private final long totalCalls;
+  private final long injectedErrors;
+  private final long failedActions;
+  // requests received by the server by endpoint
+  private final Map<String, Long> callCounts;
+  // calls as seen by the clients, with their latencies
+  private final List<CallStats> clientCalls;
+  // time spent in each phase of the sync
+  private final Map<String, Long> phaseMillis;
+
+  public double getRecordsPerSecond() {
+    return wallMillis > 0 ? records * 1000d / wallMillis : records;
+  }
+
+  public double getCallsPerSecond() {
+    return wallMillis > 0 ? totalCalls * 1000d / wallMillis : totalCalls;
+  }
+
+  public String summary() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(
+        String.format(
+            "%s: %d records in %d ms (%.1f records/s), %d calls (%.1f calls/s), "
+                + "%d injected errors, %d failed actions",
+            sync,
+            records,
+            wallMillis,
+            getRecordsPerSecond(),
+            totalCalls,
+            getCallsPerSecond(),
+            injectedErrors,
+            failedActions));
+    callCounts.forEach((k, v) -> sb.append(String.format("%n  %-60s %8d", k, v)));
+    phaseMillis.forEach((k, v) -> sb.append(String.format("%n  phase %-54s %8d ms", k, v)));
+    return sb.toString();
+  }
+}
@@ -0,0 +1,50 @@
+package org.gbif.collections.sync.loadtest;
+
+import org.gbif.collections.sync.loadtest.MockRegistryServer.Options;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Runs the {@link LoadTestDriver} with a small dataset to check that the harness works. */
+public class LoadTestSmokeTest {
+
+  @Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  @Test
+  public void syncsAgainstMockServerTest() throws IOException {
+    List<LoadTestReport> reports =
+        LoadTestDriver.run(Options.builder().size(50).build(), 2, tempFolder.getRoot().toPath());
+
+    assertEquals(2, reports.size());
+    LoadTestReport ihReport = reports.get(0);
+    assertEquals(50, ihReport.getRecords());
+    assertEquals(0, ihReport.getFailedActions());
+    assertTrue(ihReport.getCallCounts().containsKey("GET /ih/institutions"));
+    assertTrue(ihReport.getCallCounts().containsKey("PUT /grscicoll/institution/{key}"));
+    assertTrue(ihReport.getCallCounts().containsKey("POST /grscicoll/institution"));
+
+    LoadTestReport iDigBioReport = reports.get(1);
+    assertEquals(50, iDigBioReport.getRecords());
+    assertEquals(0, iDigBioReport.getFailedActions());
+    assertTrue(iDigBioReport.getCallCounts().containsKey("POST /grscicoll/collection"));
+    assertTrue(iDigBioReport.getTotalCalls() > 0);
+  }
+
+  @Test
+  public void injectedErrorsTest() throws IOException {
+    List<LoadTestReport> reports =
+        LoadTestDriver.run(
+            Options.builder().size(50).errorRate(0.1).build(), 1, tempFolder.getRoot().toPath());
+
+    // the syncs finish and the failed calls that couldn't be retried are reported
+    assertEquals(2, reports.size());
+    assertTrue(reports.get(0).getInjectedErrors() + reports.get(1).getInjectedErrors() > 0);
+  }
+}
@@ -0,0 +1,452 @@
+package org.gbif.collections.sync.loadtest;
+
+import org.gbif.api.model.collections.Collection;
+import org.gbif.api.model.collections.Institution;
+import org.gbif.api.model.collections.MasterSourceMetadata;
+import org.gbif.api.model.collections.suggestions.CollectionChangeSuggestion;
+import org.gbif.api.model.common.paging.PagingResponse;
+import org.gbif.api.model.registry.Identifier;
+import org.gbif.api.vocabulary.Country;
+import org.gbif.api.vocabulary.IdentifierType;
+import org.gbif.api.vocabulary.collections.Source;
+import org.gbif.collections.sync.ih.model.IHInstitution;
+import org.gbif.collections.sync.ih.model.IHStaff;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.google.common.base.Enums;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.gbif.collections.sync.common.Utils.encodeIRN;
+
+/**
+ * Local server that serves synthetic GrSciColl and IH APIs for load tests. The GrSciColl API is
+ * served under {@link #getRegistryUrl()} and the IH one under {@link #getIhUrl()}.
+ *
+ * <p>The data is generated with a fixed seed, so the same options always serve the same data. The
+ * entities created and updated by a sync are kept in memory. Every response can be delayed and a
+ * fraction of them replaced by 503 errors.
+ */
+@Slf4j
+public class MockRegistryServer implements Closeable {
+
+  private static final Pattern KEY_SEGMENT =
+      Pattern.compile("/([0-9a-fA-F]{8}(-[0-9a-fA-F]{4}){3}-[0-9a-fA-F]{12}|\\d+)(?=/|$)");
+  private static final String[] WORDS = {
+    "herbarium", "museum", "natural", "history", "botany", "university", "national", "garden",
+    "state", "college", "institute", "research", "center", "flora", "regional", "royal"
+  };
+  private static final String[] COUNTRIES = {
+    "U.S.A.", "United Kingdom", "Spain", "Denmark", "Brazil", "Argentina", "Japan", "Kenya"
+  };
+
+  private final Options options;
+  private final MockWebServer server = new MockWebServer();
+  private final ObjectMapper mapper = createMapper();
+  private final Random random;
+  private final Object randomLock = new Object();
+
+  private final ConcurrentMap<UUID, Institution> institutions = new ConcurrentHashMap<>();
+  private final ConcurrentMap<UUID, Collection> collections = new ConcurrentHashMap<>();
+  private final List<CollectionChangeSuggestion> changeSuggestions = new CopyOnWriteArrayList<>();
+  private final List<IHInstitution> ihInstitutions = new ArrayList<>();
+  private final List<IHStaff> ihStaff = new ArrayList<>();
+  private final ConcurrentMap<String, AtomicLong> callCounts = new ConcurrentHashMap<>();
+  private final AtomicLong injectedErrors = new AtomicLong();
+
+  /** Options of the server. */
+  @Builder
+  @Getter
+  public static class Options {
+    // number of IH institutions and of GrSciColl institutions and collections
+    @Builder.Default private int size = 1_000;
+    // delay added to every response
+    @Builder.Default private long latencyMillis = 0;
+    // fraction of the responses replaced by a 503 error, between 0 and 1
+    @Builder.Default private double errorRate = 0;
+    @Builder.Default private long seed = 20_201;
+  }
+
+  private MockRegistryServer(Options options) {
+    this.options = options;
+    this.random = new Random(options.getSeed());
+    generateData();
+  }
+
+  public static MockRegistryServer start(Options options) throws IOException {
+    MockRegistryServer mockServer = new MockRegistryServer(options);
+    mockServer.server.setDispatcher(mockServer.new RegistryDispatcher());
+    mockServer.server.start();
+    log.info(
+        "Mock registry started at {} with {} entities", mockServer.server.url("/"), options.size);
+    return mockServer;
+  }
+
+  public String getRegistryUrl() {
+    return server.url("/grscicoll/").toString();
+  }
+
+  public String getIhUrl() {
+    return server.url("/ih/").toString();
+  }
+
+  /** GrSciColl institutions, including the ones created by the syncs. */
+  public List<Institution> getInstitutions() {
+    return new ArrayList<>(institutions.values());
+  }
+
+  public List<IHInstitution> getIhInstitutions() {
+    return Collections.unmodifiableList(ihInstitutions);
+  }
+
+  /** Number of requests received by endpoint, e.g. "PUT institution/{key}". */
+  public Map<String, Long> getCallCounts() {
+    Map<String, Long> counts = new TreeMap<>();
+    callCounts.forEach((k, v) -> counts.put(k, v.get()));
+    return counts;
+  }
+
+  public long getTotalCalls() {
+    return callCounts.values().stream().mapToLong(AtomicLong::get).sum();
+  }
+
+  public long getInjectedErrors() {
+    return injectedErrors.get();
+  }
+
+  @Override
+  public void close() throws IOException {
+    server.shutdown();
+  }
+
+  private void generateData() {
+    for (int i = 0; i < options.size; i++) {
+      String irn = String.valueOf(100_000 + i);
+      String code = "H" + i;
+      String country = COUNTRIES[random.nextInt(COUNTRIES.length)];
+
+      IHInstitution ihInstitution = new IHInstitution();
+      ihInstitution.setIrn(irn);
+      ihInstitution.setCode(code);
+      ihInstitution.setOrganization(words(3));
+      ihInstitution.setSpecimenTotal(random.nextInt(100_000));
+      ihInstitution.setDateFounded(String.valueOf(1800 + random.nextInt(200)));
+      ihInstitution.setCurrentStatus("Active");
+      ihInstitution.setTaxonomicCoverage(words(4));
+      IHInstitution.Address address = new IHInstitution.Address();
+      address.setPhysicalCity(words(1));
+      address.setPhysicalCountry(country);
+      ihInstitution.setAddress(address);
+      IHInstitution.Contact contact = new IHInstitution.Contact();
+      contact.setEmail("herbarium" + i + "@example.org");
+      ihInstitution.setContact(contact);
+      ihInstitutions.add(ihInstitution);
+
+      IHStaff staff = new IHStaff();
+      staff.setIrn("s" + i);
+      staff.setCode(code);
+      staff.setFirstName(words(1));
+      staff.setLastName(words(1));
+      staff.setCorrespondent("Yes");
+      IHStaff.Contact staffContact = new IHStaff.Contact();
+      staffContact.setEmail("staff" + i + "@example.org");
+      staff.setContact(staffContact);
+      ihStaff.add(staff);
+
+      // most of the IH institutions are already in GrSciColl and some of them changed
+      if (random.nextInt(10) < 8) {
+        Institution institution = new Institution();
+        institution.setKey(randomUuid());
+        institution.setCode(code);
+        institution.setName(random.nextBoolean() ? ihInstitution.getOrganization() : words(3));
+        institution.setCreatedBy("registry-user");
+        institution.setMasterSourceMetadata(new MasterSourceMetadata(Source.IH_IRN, irn));
+        institution.getIdentifiers().add(new Identifier(IdentifierType.IH_IRN, encodeIRN(irn)));
+        institutions.put(institution.getKey(), institution);
+
+        Collection collection = new Collection();
+        collection.setKey(randomUuid());
+        collection.setCode(code);
+        collection.setName(words(4));
+        collection.setInstitutionKey(institution.getKey());
+        collection.setCreatedBy("registry-user");
+        collection.setMasterSourceMetadata(new MasterSourceMetadata(Source.IH_IRN, irn));
+        collections.put(collection.getKey(), collection);
+      }
+    }
+  }
+
+  private String words(int count) {
+    List<String> words = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      words.add(WORDS[random.nextInt(WORDS.length)]);
+    }
+    return String.join(" ", words);
+  }
+
+  private UUID randomUuid() {
+    return new UUID(random.nextLong(), random.nextLong());
+  }
+
+  private boolean injectError() {
+    if (options.errorRate <= 0) {
+      return false;
+    }
+    synchronized (randomLock) {
+      return random.nextDouble() < options.errorRate;
+    }
+  }
+
+  private static ObjectMapper createMapper() {
+    SimpleModule module = new SimpleModule();
+    // the clients expect the ISO codes of the countries
+    module.addSerializer(
+        Country.class,
+        new JsonSerializer<Country>() {
+          @Override
+          public void serialize(Country value, JsonGenerator gen, SerializerProvider serializers)
+              throws IOException {
+            gen.writeString(value.getIso2LetterCode());
+          }
+        });
+    module.addDeserializer(
+        Country.class,
+        new JsonDeserializer<Country>() {
+          @Override
+          public Country deserialize(JsonParser p, DeserializationContext ctxt)
+              throws IOException {
+            Country country = Country.fromIsoCode(p.getText());
+            return country != null
+                ? country
+                : Enums.getIfPresent(Country.class, p.getText()).orNull();
+          }
+        });
+    return new ObjectMapper()
+        .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+        .registerModule(module);
+  }
+
+  private class RegistryDispatcher extends Dispatcher {
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+      HttpUrl url = request.getRequestUrl();
+      String path = url.encodedPath();
+      String endpoint = request.getMethod() + " " + KEY_SEGMENT.matcher(path).replaceAll("/{key}");
+      callCounts.computeIfAbsent(endpoint, k -> new AtomicLong()).incrementAndGet();
+
+      MockResponse response;
+      if (injectError()) {
+        injectedErrors.incrementAndGet();
+        response = new MockResponse().setResponseCode(503);
+      } else {
+        try {
+          if (path.startsWith("/ih/")) {
+            response = dispatchIh(path.substring("/ih/".length()), url);
+          } else if (path.startsWith("/grscicoll/")) {
+            response = dispatchRegistry(request, path.substring("/grscicoll/".length()), url);
+          } else {
+            response = new MockResponse().setResponseCode(404);
+          }
+        } catch (IOException | RuntimeException e) {
+          log.warn("Error handling request {}", endpoint, e);
+          response = new MockResponse().setResponseCode(500);
+        }
+      }
+
+      if (options.latencyMillis > 0) {
+        response.setHeadersDelay(options.latencyMillis, TimeUnit.MILLISECONDS);
+      }
+      return response;
+    }
+
+    private MockResponse dispatchIh(String path, HttpUrl url) throws IOException {
+      switch (path) {
+        case "institutions":
+          return json(ihWrapper(ihInstitutions));
+        case "staff":
+          return json(ihWrapper(ihStaff));
+        case "staff/search":
+          String code = url.queryParameter("code");
+          return json(
+              ihWrapper(
+                  ihStaff.stream()
+                      .filter(s -> s.getCode().equals(code))
+                      .collect(Collectors.toList())));
+        case "countries":
+          List<String> countries = new ArrayList<>();
+          Collections.addAll(countries, COUNTRIES);
+          return json(ihWrapper(countries));
+        default:
+          return new MockResponse().setResponseCode(404);
+      }
+    }
+
+    private MockResponse dispatchRegistry(RecordedRequest request, String path, HttpUrl url)
+        throws IOException {
+      String[] segments = path.split("/");
+      String method = request.getMethod();
+      boolean isInstitution = "institution".equals(segments[0]);
+      boolean isCollection = "collection".equals(segments[0]);
+      if (!isInstitution && !isCollection) {
+        return new MockResponse().setResponseCode(404);
+      }
+
+      if (segments.length == 1) {
+        if ("GET".equals(method)) {
+          return isInstitution
+              ? json(page(institutions.values(), url, Institution::getMasterSourceMetadata))
+              : json(page(collections.values(), url, Collection::getMasterSourceMetadata));
+        }
+        if ("POST".equals(method)) {
+          UUID key = UUID.randomUUID();
+          if (isInstitution) {
+            Institution institution = read(request, Institution.class);
+            institution.setKey(key);
+            institutions.put(key, institution);
+          } else {
+            Collection collection = read(request, Collection.class);
+            collection.setKey(key);
+            collections.put(key, collection);
+          }
+          return json(key).setResponseCode(201);
+        }
+      }
+
+      if (isCollection && "changeSuggestion".equals(segments[1])) {
+        if ("GET".equals(method)) {
+          String ihIdentifier = url.queryParameter("ihIdentifier");
+          return json(
+              page(
+                  changeSuggestions.stream()
+                      .filter(s -> ihIdentifier == null || ihIdentifier.equals(s.getIhIdentifier()))
+                      .collect(Collectors.toList()),
+                  url,
+                  s -> null));
+        }
+        // only the IH identifier is kept, it's the only field the syncs read
+        CollectionChangeSuggestion suggestion = new CollectionChangeSuggestion();
+        suggestion.setIhIdentifier(
+            mapper.readTree(request.getBody().readUtf8()).path("ihIdentifier").asText(null));
+        changeSuggestions.add(suggestion);
+        return json(changeSuggestions.size()).setResponseCode(201);
+      }
+
+      UUID key = UUID.fromString(segments[1]);
+      if (segments.length == 2) {
+        switch (method) {
+          case "GET":
+            Object entity = isInstitution ? institutions.get(key) : collections.get(key);
+            return entity != null ? json(entity) : new MockResponse().setResponseCode(404);
+          case "PUT":
+            if (isInstitution) {
+              institutions.put(key, read(request, Institution.class));
+            } else {
+              collections.put(key, read(request, Collection.class));
+            }
+            return new MockResponse().setResponseCode(204);
+          case "DELETE":
+            return new MockResponse().setResponseCode(204);
+          default:
+            return new MockResponse().setResponseCode(405);
+        }
+      }
+
+      // sub-entities: identifiers, machine tags, contacts, master source metadata, descriptors
+      switch (method) {
+        case "POST":
+          return json(1).setResponseCode(201);
+        case "PUT":
+        case "DELETE":
+          return new MockResponse().setResponseCode(204);
+        default:
+          return new MockResponse().setResponseCode(405);
+      }
+    }
+
+    private <T> PagingResponse<T> page(
+        java.util.Collection<T> entities,
+        HttpUrl url,
+        Function<T, MasterSourceMetadata> masterSourceGetter) {
+      long offset = parseLong(url.queryParameter("offset"), 0);
+      int limit = (int) parseLong(url.queryParameter("limit"), 20);
+      boolean onlyIh = "IH".equals(url.queryParameter("masterSourceType"));
+
+      List<T> filtered =
+          entities.stream()
+              .filter(
+                  e ->
+                      !onlyIh
+                          || (masterSourceGetter.apply(e) != null
+                              && masterSourceGetter.apply(e).getSource() == Source.IH_IRN))
+              .collect(Collectors.toList());
+      List<T> results =
+          filtered.subList(
+              (int) Math.min(offset, filtered.size()),
+              (int) Math.min(offset + limit, filtered.size()));
+      PagingResponse<T> page =
+          new PagingResponse<>(offset, limit, (long) filtered.size(), results);
+      page.setEndOfRecords(offset + limit >= filtered.size());
+      return page;
+    }
+
+    private <T> Map<String, Object> ihWrapper(List<T> data) {
+      Map<String, Object> meta = new HashMap<>();
+      meta.put("hits", data.size());
+      meta.put("code", 200);
+      Map<String, Object> wrapper = new HashMap<>();
+      wrapper.put("meta", meta);
+      wrapper.put("data", data);
+      return wrapper;
+    }
+
+    private <T> T read(RecordedRequest request, Class<T> type) throws IOException {
+      return mapper.readValue(request.getBody().readUtf8(), type);
+    }
+
+    private MockResponse json(Object body) throws IOException {
+      return new MockResponse()
+          .setHeader("Content-Type", "application/json")
+          .setBody(mapper.writeValueAsString(body));
+    }
+
+    private long parseLong(String value, long defaultValue) {
+      return value != null ? Long.parseLong(value) : defaultValue;
+    }
+  }
+}
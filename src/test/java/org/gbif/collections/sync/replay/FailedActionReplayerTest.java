@@ -0,0 +1,362 @@
+package org.gbif.collections.sync.replay;
+
+import org.gbif.api.model.collections.Institution;
+import org.gbif.api.model.common.paging.PagingResponse;
+import org.gbif.api.model.registry.Identifier;
+import org.gbif.api.model.registry.MachineTag;
+import org.gbif.api.vocabulary.IdentifierType;
+import org.gbif.collections.sync.SyncResult.FailedAction;
+import org.gbif.collections.sync.SyncResult.FailedAction.Operation;
+import org.gbif.collections.sync.clients.http.GrSciCollHttpClient;
+import org.gbif.collections.sync.clients.proxy.FailedActionJournal;
+import org.gbif.collections.sync.clients.proxy.FailedActionJournal.FailedActionRecord;
+import org.gbif.collections.sync.config.SyncConfig.RegistryConfig;
+import org.gbif.collections.sync.replay.FailedActionReplayer.Outcome;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** Tests the {@link FailedActionReplayer}. */
+public class FailedActionReplayerTest {
+
+  private static final ObjectMapper MAPPER =
+      new ObjectMapper()
+          .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+          .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private MockWebServer server;
+  private RegistryDispatcher dispatcher;
+  private Path retryDir;
+  private FailedActionReplayer replayer;
+
+  @Before
+  public void setUp() throws IOException {
+    dispatcher = new RegistryDispatcher();
+    server = new MockWebServer();
+    server.setDispatcher(dispatcher);
+    server.start();
+
+    RegistryConfig registryConfig = new RegistryConfig();
+    registryConfig.setWsUrl(server.url("/").toString());
+    registryConfig.setWsUser("wsUser");
+    registryConfig.setWsPassword("wsPassword");
+    registryConfig.getRetry().setMaxAttempts(1);
+    retryDir = folder.newFolder("retry").toPath();
+    replayer =
+        new FailedActionReplayer(
+            GrSciCollHttpClient.getInstance(registryConfig), false, 4, retryDir);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    server.shutdown();
+  }
+
+  @Test
+  public void createTest() throws IOException {
+    Institution institution = institution(null, "inst");
+    institution.getIdentifiers().add(new Identifier(IdentifierType.LSID, "lsid"));
+
+    ReplayResult result =
+        replayer.replay(
+            journal(
+                new FailedAction(
+                    institution,
+                    "Failed to create entity",
+                    Operation.CREATE,
+                    Institution.class.getSimpleName(),
+                    null)));
+
+    // the identifier isn't persisted in the create call so it's added afterwards
+    assertEquals(1, result.getCount(Outcome.REPLAYED));
+    assertEquals(1, dispatcher.institutions.size());
+    Institution created = dispatcher.institutions.values().iterator().next();
+    assertEquals("inst", created.getName());
+    assertTrue(
+        dispatcher.requests.contains("POST /institution/" + created.getKey() + "/identifier"));
+
+    // it's not created again
+    result =
+        replayer.replay(
+            journal(
+                new FailedAction(
+                    institution(null, "inst"),
+                    "Failed to create entity",
+                    Operation.CREATE,
+                    Institution.class.getSimpleName(),
+                    null)));
+    assertEquals(1, result.getCount(Outcome.ALREADY_APPLIED));
+    assertEquals(1, dispatcher.institutions.size());
+  }
+
+  @Test
+  public void updateTest() throws IOException {
+    Institution existing = dispatcher.add(institution(UUID.randomUUID(), "old"));
+    existing.setModified(new Date(0));
+
+    ReplayResult result =
+        replayer.replay(
+            journal(
+                update(institution(existing.getKey(), "new")),
+                update(institution(existing.getKey(), "new"))));
+
+    // the second update is already applied
+    assertEquals(1, result.getCount(Outcome.REPLAYED));
+    assertEquals(1, result.getCount(Outcome.ALREADY_APPLIED));
+    assertEquals("new", dispatcher.institutions.get(existing.getKey()).getName());
+    assertEquals(0, countRetryJournals());
+  }
+
+  @Test
+  public void supersededTest() throws IOException {
+    // changed after the failure
+    Institution changed = dispatcher.add(institution(UUID.randomUUID(), "changed"));
+    changed.setModified(new Date(System.currentTimeMillis() + 3_600_000));
+    Institution deleted = dispatcher.add(institution(UUID.randomUUID(), "deleted"));
+    deleted.setDeleted(new Date());
+
+    ReplayResult result =
+        replayer.replay(
+            journal(
+                update(institution(changed.getKey(), "new")),
+                update(institution(deleted.getKey(), "new"))));
+
+    assertEquals(2, result.getCount(Outcome.SUPERSEDED));
+    assertEquals("changed", dispatcher.institutions.get(changed.getKey()).getName());
+    assertTrue(dispatcher.requests.stream().noneMatch(r -> r.startsWith("PUT")));
+  }
+
+  @Test
+  public void notReplayableTest() throws IOException {
+    ReplayResult result =
+        replayer.replay(
+            journal(
+                new FailedAction(institution(null, "inst"), "Failed to get entity"),
+                update(institution(null, "no key")),
+                new FailedAction(
+                    institution(null, "unknown"),
+                    "Failed to update entity",
+                    Operation.UPDATE,
+                    "Unknown",
+                    UUID.randomUUID().toString())));
+
+    // they aren't written to the retry journal since they would fail again
+    assertEquals(3, result.getCount(Outcome.NOT_REPLAYABLE));
+    assertEquals(0, countRetryJournals());
+    assertTrue(dispatcher.requests.isEmpty());
+  }
+
+  @Test
+  public void sameTargetOrderTest() throws IOException {
+    Institution existing = dispatcher.add(institution(UUID.randomUUID(), "inst"));
+
+    List<FailedAction> actions = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      actions.add(
+          new FailedAction(
+              new MachineTag("ns", "name", String.valueOf(i)),
+              "Failed to add machine tag to entity",
+              Operation.ADD_MACHINE_TAG,
+              Institution.class.getSimpleName(),
+              existing.getKey().toString()));
+    }
+    ReplayResult result = replayer.replay(journal(actions.toArray(new FailedAction[0])));
+
+    // the actions of the same target are replayed one after another in the journal order
+    assertEquals(20, result.getCount(Outcome.REPLAYED));
+    assertEquals(1, dispatcher.maxConcurrentWrites.get());
+    List<String> values =
+        existing.getMachineTags().stream().map(MachineTag::getValue).collect(Collectors.toList());
+    for (int i = 0; i < 20; i++) {
+      assertEquals(String.valueOf(i), values.get(i));
+    }
+  }
+
+  @Test
+  public void retryJournalTest() throws IOException {
+    Institution existing = dispatcher.add(institution(UUID.randomUUID(), "old"));
+    dispatcher.failWrites = true;
+
+    ReplayResult result =
+        replayer.replay(journal(update(institution(existing.getKey(), "new"))));
+
+    assertEquals(1, result.getCount(Outcome.FAILED));
+    List<Path> retryJournals = listRetryJournals();
+    assertEquals(1, retryJournals.size());
+    List<String> lines = Files.readAllLines(retryJournals.get(0));
+    assertEquals(1, lines.size());
+    FailedActionRecord record =
+        FailedActionJournal.MAPPER.readValue(lines.get(0), FailedActionRecord.class);
+    assertEquals(Operation.UPDATE, record.getOperation());
+    assertEquals(existing.getKey().toString(), record.getTargetKey());
+    assertEquals(500, record.getHttpStatus().intValue());
+
+    // the retry journal can be replayed
+    dispatcher.failWrites = false;
+    result = replayer.replay(retryJournals.get(0));
+    assertEquals(1, result.getCount(Outcome.REPLAYED));
+    assertEquals("new", dispatcher.institutions.get(existing.getKey()).getName());
+  }
+
+  private Path journal(FailedAction... failedActions) throws IOException {
+    Path path = folder.newFile().toPath();
+    FailedActionJournal journal = FailedActionJournal.open(path);
+    for (FailedAction failedAction : failedActions) {
+      journal.append(failedAction, null);
+    }
+    journal.close();
+    return path;
+  }
+
+  private int countRetryJournals() throws IOException {
+    return listRetryJournals().size();
+  }
+
+  private List<Path> listRetryJournals() throws IOException {
+    try (Stream<Path> files = Files.list(retryDir)) {
+      return files.collect(Collectors.toList());
+    }
+  }
+
+  private static FailedAction update(Institution institution) {
+    return new FailedAction(
+        institution,
+        "Failed to update entity",
+        Operation.UPDATE,
+        Institution.class.getSimpleName(),
+        institution.getKey() != null ? institution.getKey().toString() : null);
+  }
+
+  private static Institution institution(UUID key, String name) {
+    Institution institution = new Institution();
+    institution.setKey(key);
+    institution.setCode("code");
+    institution.setName(name);
+    return institution;
+  }
+
+  /** Serves the institutions of the registry and keeps the writes in memory. */
+  private static class RegistryDispatcher extends Dispatcher {
+
+    private final Map<UUID, Institution> institutions = new ConcurrentHashMap<>();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final AtomicInteger concurrentWrites = new AtomicInteger();
+    private final AtomicInteger maxConcurrentWrites = new AtomicInteger();
+    private volatile boolean failWrites;
+
+    Institution add(Institution institution) {
+      institutions.put(institution.getKey(), institution);
+      return institution;
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+      String path = request.getRequestUrl().encodedPath();
+      String method = request.getMethod();
+      if (!"GET".equals(method)) {
+        requests.add(method + " " + path);
+        if (failWrites) {
+          return new MockResponse().setResponseCode(500);
+        }
+      }
+
+      try {
+        String[] segments = path.substring(1).split("/");
+        if (!"institution".equals(segments[0])) {
+          return new MockResponse().setResponseCode(404);
+        }
+
+        if (segments.length == 1) {
+          if ("GET".equals(method)) {
+            String name = request.getRequestUrl().queryParameter("name");
+            List<Institution> results =
+                institutions.values().stream()
+                    .filter(i -> i.getName().equals(name))
+                    .collect(Collectors.toList());
+            PagingResponse<Institution> page =
+                new PagingResponse<>(0L, 20, (long) results.size(), results);
+            page.setEndOfRecords(true);
+            return json(page);
+          }
+          // the sub-entities aren't persisted in the create call
+          Institution institution = read(request, Institution.class);
+          institution.setKey(UUID.randomUUID());
+          institution.setIdentifiers(new ArrayList<>());
+          institution.setMachineTags(new ArrayList<>());
+          add(institution);
+          return json(institution.getKey()).setResponseCode(201);
+        }
+
+        Institution institution = institutions.get(UUID.fromString(segments[1]));
+        if (institution == null) {
+          return new MockResponse().setResponseCode(404);
+        }
+        if (segments.length == 2) {
+          if ("GET".equals(method)) {
+            return json(institution);
+          }
+          add(read(request, Institution.class));
+          return new MockResponse().setResponseCode(204);
+        }
+
+        maxConcurrentWrites.accumulateAndGet(concurrentWrites.incrementAndGet(), Math::max);
+        try {
+          Thread.sleep(10);
+          if ("identifier".equals(segments[2])) {
+            Identifier identifier = read(request, Identifier.class);
+            identifier.setKey(institution.getIdentifiers().size() + 1);
+            institution.getIdentifiers().add(identifier);
+          } else if ("machineTag".equals(segments[2])) {
+            MachineTag machineTag = read(request, MachineTag.class);
+            machineTag.setKey(institution.getMachineTags().size() + 1);
+            institution.getMachineTags().add(machineTag);
+          }
+          return json(1).setResponseCode(201);
+        } finally {
+          concurrentWrites.decrementAndGet();
+        }
+      } catch (IOException e) {
+        return new MockResponse().setResponseCode(500);
+      }
+    }
+
+    private static <T> T read(RecordedRequest request, Class<T> type) throws IOException {
+      return MAPPER.readValue(request.getBody().readUtf8(), type);
+    }
+
+    private static MockResponse json(Object body) throws IOException {
+      return new MockResponse()
+          .setHeader("Content-Type", "application/json")
+          .setBody(MAPPER.writeValueAsString(body));
+    }
+  }
+}